@@ -3,6 +3,7 @@ package com.chefsitos.uamishop;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -167,9 +168,10 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
   /**
    * 409 - Conflictos de estado (por ejemplo, intentos de cambiar a un estado
-   * inválido).
+   * inválido, o una escritura concurrente sobre la misma versión).
    */
-  @ExceptionHandler({ IllegalStateException.class, ConflictException.class })
+  @ExceptionHandler({ IllegalStateException.class, ConflictException.class,
+      OptimisticLockingFailureException.class })
   public ResponseEntity<ApiError> handleIllegalStateException(
       Exception ex, WebRequest request) {
 
@@ -2,9 +2,13 @@ package com.chefsitos.uamishop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableAsync
+@EnableCaching
+@EnableScheduling
 @SpringBootApplication
 public class UamishopApplication {
 
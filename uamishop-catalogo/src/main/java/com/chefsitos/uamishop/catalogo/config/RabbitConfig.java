@@ -1,12 +1,17 @@
 package com.chefsitos.uamishop.catalogo.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.amqp.autoconfigure.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -31,6 +36,12 @@ public class RabbitConfig {
    */
   public static final String RK_PRODUCTO_AGREGADO = "producto.agregado-carrito";
 
+  /** Factoría de contenedores que entrega los mensajes a los listeners en lotes. */
+  public static final String BATCH_LISTENER_FACTORY = "batchListenerContainerFactory";
+
+  /** Factoría de contenedores con confirmación (ack) manual desde el listener. */
+  public static final String MANUAL_ACK_LISTENER_FACTORY = "manualAckListenerContainerFactory";
+
   /**
    *
    * /**
@@ -101,4 +112,51 @@ public class RabbitConfig {
     template.setMessageConverter(messageConverter);
     return template;
   }
+
+  /**
+   * Factoría para listeners por lotes: el contenedor acumula hasta
+   * {@code catalogo.listener.batch.size} mensajes o espera como máximo
+   * {@code catalogo.listener.batch.receive-timeout} ms y entrega la lista
+   * completa al listener, que la procesa en una sola transacción.
+   * Parte de la configuración de spring.rabbitmq.listener.simple de Spring Boot.
+   */
+  @Bean(name = BATCH_LISTENER_FACTORY)
+  public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory,
+      JacksonJsonMessageConverter messageConverter,
+      @Value("${catalogo.listener.batch.size:100}") int batchSize,
+      @Value("${catalogo.listener.batch.receive-timeout:200}") long receiveTimeout) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setMessageConverter(messageConverter);
+    factory.setBatchListener(true);
+    factory.setConsumerBatchEnabled(true);
+    factory.setBatchSize(batchSize);
+    factory.setReceiveTimeout(receiveTimeout);
+    // El prefetch debe cubrir al menos un lote completo
+    factory.setPrefetchCount(Math.max(batchSize, 250));
+    return factory;
+  }
+
+  /**
+   * Factoría para el acumulador write-behind: los mensajes se confirman tras
+   * volcarlos a la BD, así que el prefetch
+   * ({@code catalogo.estadisticas.write-behind.prefetch}) fija cuántos pueden
+   * quedar pendientes entre volcados.
+   */
+  @Bean(name = MANUAL_ACK_LISTENER_FACTORY)
+  @ConditionalOnProperty(name = "catalogo.estadisticas.write-behind.enabled", havingValue = "true")
+  public SimpleRabbitListenerContainerFactory manualAckListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory,
+      JacksonJsonMessageConverter messageConverter,
+      @Value("${catalogo.estadisticas.write-behind.prefetch:2000}") int prefetch) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setMessageConverter(messageConverter);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setPrefetchCount(prefetch);
+    return factory;
+  }
 }
@@ -1,8 +1,11 @@
 package com.chefsitos.uamishop.catalogo.controller;
 
+import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaArbolResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaResponse;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPaginaResponse;
 import com.chefsitos.uamishop.catalogo.service.ProductoService;
+import com.chefsitos.uamishop.catalogo.service.Versionado;
 import com.chefsitos.uamishop.shared.ApiErrors;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,10 +16,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
 import java.util.UUID;
@@ -52,17 +58,22 @@ public class CategoriaController {
 
   }
 
-  @Operation(summary = "Obtener categoría por ID", description = "Devuelve la información de una categoría específica buscando por su identificador único.")
+  @Operation(summary = "Obtener categoría por ID", description = "Devuelve la información de una categoría específica buscando por su identificador único. Incluye un ETag; con If-None-Match igual a la versión vigente responde 304 sin cuerpo")
   @ApiResponses(value = {
-    @ApiResponse(responseCode = "200", description = "Categoría encontrada", content = @Content(schema = @Schema(implementation = CategoriaResponse.class)))
+    @ApiResponse(responseCode = "200", description = "Categoría encontrada", headers = @Header(name = HttpHeaders.ETAG, description = "Versión de la categoría"), content = @Content(schema = @Schema(implementation = CategoriaResponse.class))),
+    @ApiResponse(responseCode = "304", description = "La categoría no cambió desde el ETag enviado", content = @Content)
   })
   @ApiErrors.NotFound
   @GetMapping("/{id}")
   public ResponseEntity<CategoriaResponse> buscarCategoriaPorId(
-    @Parameter(description = "ID único de la categoría a buscar") @PathVariable UUID id) {
+    @Parameter(description = "ID único de la categoría a buscar") @PathVariable UUID id,
+    WebRequest webRequest) {
 
-    CategoriaResponse response = productoService.buscarCategoriaPorId(id);
-    return ResponseEntity.ok(response);
+    Versionado<CategoriaResponse> response = productoService.buscarCategoriaPorId(id);
+    if (webRequest.checkNotModified(response.etag())) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(response.etag()).body(response.contenido());
   }
 
   @Operation(summary = "Listar categorías", description = "Obtiene la lista de todas las categorías registradas en el catálogo.")
@@ -92,4 +103,35 @@ public class CategoriaController {
 
     return ResponseEntity.ok(response);
   }
+
+  @Operation(summary = "Obtener árbol de una categoría", description = "Devuelve la categoría con su ruta de ancestros (de la raíz al padre) y todas sus subcategorías anidadas.")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Árbol de la categoría", content = @Content(schema = @Schema(implementation = CategoriaArbolResponse.class)))
+  })
+  @ApiErrors.NotFound
+  @GetMapping("/{id}/arbol")
+  public ResponseEntity<CategoriaArbolResponse> buscarArbolCategoria(
+    @Parameter(description = "ID único de la categoría") @PathVariable UUID id) {
+
+    return ResponseEntity.ok(productoService.buscarArbolCategoria(id));
+  }
+
+  @Operation(summary = "Listar productos de una categoría y sus subcategorías", description = "Devuelve una página de productos de la categoría o de cualquiera de sus subcategorías, ordenada por fecha de creación. Para la siguiente página se envía el siguienteCursor recibido")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Página de productos obtenida exitosamente", content = @Content(schema = @Schema(implementation = ProductoPaginaResponse.class)))
+  })
+  @ApiErrors.BadRequest
+  @ApiErrors.NotFound
+  @GetMapping("/{id}/productos")
+  public ResponseEntity<ProductoPaginaResponse> buscarProductosDeSubarbol(
+    @Parameter(description = "ID único de la categoría raíz del subárbol") @PathVariable UUID id,
+    @Parameter(description = "Cursor opaco devuelto por la página anterior; vacío para la primera") @RequestParam(required = false) String cursor,
+    @Parameter(description = "Productos por página (1-100)") @RequestParam(defaultValue = "20") int size,
+    @Parameter(description = "Filtra por disponibilidad") @RequestParam(required = false) Boolean disponible,
+    @Parameter(description = "Precio mínimo (inclusive)") @RequestParam(required = false) BigDecimal precioMin,
+    @Parameter(description = "Precio máximo (inclusive)") @RequestParam(required = false) BigDecimal precioMax) {
+
+    return ResponseEntity.ok(
+      productoService.buscarPaginaDeSubarbol(id, cursor, size, disponible, precioMin, precioMax));
+  }
 }
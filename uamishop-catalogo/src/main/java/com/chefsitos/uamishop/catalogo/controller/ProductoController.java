@@ -1,12 +1,20 @@
 package com.chefsitos.uamishop.catalogo.controller;
 
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoEstadisticasResponse;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoLoteRequest;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPaginaResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPatchRequest;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPopularidadResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoVentasVentanaResponse;
 import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
+import com.chefsitos.uamishop.catalogo.service.ProductoBusquedaService;
 import com.chefsitos.uamishop.catalogo.service.ProductoEstadisticasService;
+import com.chefsitos.uamishop.catalogo.service.ProductoImportService;
 import com.chefsitos.uamishop.catalogo.service.ProductoService;
+import com.chefsitos.uamishop.catalogo.service.ProductoSerializado;
+import com.chefsitos.uamishop.catalogo.service.VentanaVentas;
 import com.chefsitos.uamishop.shared.ApiErrors;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,14 +25,27 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -37,6 +58,8 @@ public class ProductoController {
 
   private final ProductoService productoService;
   private final ProductoEstadisticasService productoEstadisticasService;
+  private final ProductoImportService productoImportService;
+  private final ProductoBusquedaService productoBusquedaService;
 
   @Operation(summary = "Crear producto", description = "Permite registrar un nuevo producto en el catálogo")
   @ApiResponses(value = {
@@ -56,17 +79,85 @@ public class ProductoController {
     return ResponseEntity.created(location).body(response);
   }
 
-  @Operation(summary = "Obtener producto por ID", description = "Devuelve los detalles de un producto específico dado su ID")
+  @Operation(summary = "Importar productos", description = "Alta masiva de productos desde CSV (cabecera: nombreProducto,descripcion,precio,moneda,idCategoria,urlImagen) o NDJSON (un ProductoRequest por línea). Responde en NDJSON una línea por registro rechazado y una línea final de resumen")
   @ApiResponses(value = {
-    @ApiResponse(responseCode = "200", description = "Producto encontrado", content = @Content(schema = @Schema(implementation = ProductoResponse.class)))
+    @ApiResponse(responseCode = "200", description = "Informe de la importación", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE))
+  })
+  @ApiErrors.BadRequest
+  @PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE }, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void importar(
+    @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+    HttpServletRequest request,
+    HttpServletResponse response) throws IOException {
+    ProductoImportService.Formato formato = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+      ? ProductoImportService.Formato.NDJSON
+      : ProductoImportService.Formato.CSV;
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    productoImportService.importar(request.getInputStream(), formato, response.getOutputStream());
+  }
+
+  @Operation(summary = "Obtener producto por ID", description = "Devuelve los detalles de un producto específico dado su ID. Incluye un ETag; con If-None-Match igual a la versión vigente responde 304 sin cuerpo. Con Accept-Encoding: gzip la respuesta puede ir comprimida")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Producto encontrado", headers = @Header(name = HttpHeaders.ETAG, description = "Versión del producto"), content = @Content(schema = @Schema(implementation = ProductoResponse.class))),
+    @ApiResponse(responseCode = "304", description = "El producto no cambió desde el ETag enviado", content = @Content)
   })
   @ApiErrors.NotFound
-  @GetMapping("/{id}")
-  public ResponseEntity<ProductoResponse> obtener(
-    @Parameter(description = "ID único del producto") @PathVariable UUID id) {
-    Producto response = productoService.buscarPorId(id);
+  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> obtener(
+    @Parameter(description = "ID único del producto") @PathVariable UUID id,
+    WebRequest webRequest) {
+    // Las escrituras locales desalojan la entrada (@CacheEvict), pero las de
+    // otra réplica sólo se ven al expirar. Una petición condicional compara
+    // antes la versión cacheada con la de la BD (un SELECT por clave, sin
+    // cargar la entidad): ni el 304 ni el 200 salen de una entrada atrasada
+    ProductoSerializado respuesta = productoService.buscarSerializadoPorId(id);
+    if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+      && productoService.buscarVersion(id) != respuesta.version()) {
+      respuesta = productoService.recargarSerializadoPorId(id);
+    }
+    boolean gzip = respuesta.gzip() != null && aceptaGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    String etag = gzip ? respuesta.etagGzip() : respuesta.etag();
+    if (noModificado(webRequest, respuesta)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(etag)
+        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+        .build();
+    }
+
+    // Los bytes cacheados se escriben tal cual (ByteArrayHttpMessageConverter),
+    // sin pasar por Jackson
+    ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+      .eTag(etag)
+      .contentType(MediaType.APPLICATION_JSON)
+      .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(respuesta.gzip());
+    }
+    return ok.body(respuesta.json());
+  }
 
-    return ResponseEntity.ok(ProductoResponse.from(response));
+  /**
+   * If-None-Match contra los ETag de ambas codificaciones: el cliente puede
+   * guardar el cuerpo gzip o el JSON, y los dos son la misma versión.
+   * Comparación débil, como WebRequest.checkNotModified.
+   */
+  private static boolean noModificado(WebRequest webRequest, ProductoSerializado respuesta) {
+    String[] valores = webRequest.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+    if (valores == null) {
+      return false;
+    }
+    ETag json = ETag.create(respuesta.etag());
+    ETag gzip = ETag.create(respuesta.etagGzip());
+    for (String valor : valores) {
+      for (ETag etag : ETag.parse(valor)) {
+        if (etag.isWildcard() || etag.compare(json, false) || etag.compare(gzip, false)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   @Operation(summary = "Listar productos", description = "Devuelve la lista de todos los productos disponibles en el catálogo")
@@ -83,6 +174,57 @@ public class ProductoController {
     return ResponseEntity.ok(productos);
   }
 
+  @Operation(summary = "Obtener varios productos por ID", description = "Devuelve en una sola llamada los productos pedidos (hasta 100), en el orden de la petición. Los ids que no existen se omiten de la respuesta")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Productos encontrados", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+  })
+  @ApiErrors.BadRequest
+  @PostMapping("/lote")
+  public ResponseEntity<List<ProductoResponse>> buscarPorIds(@RequestBody @Valid ProductoLoteRequest request) {
+    return ResponseEntity.ok(productoService.buscarPorIds(request.ids()));
+  }
+
+  @Operation(summary = "Buscar productos", description = "Búsqueda de texto en nombre y descripción, sin distinguir acentos ni mayúsculas y con coincidencia por prefijo. Devuelve los productos más relevantes primero (ranking BM25)")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Productos encontrados", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+  })
+  @ApiErrors.BadRequest
+  @GetMapping("/buscar")
+  public ResponseEntity<List<ProductoResponse>> buscar(
+    @Parameter(description = "Texto a buscar") @RequestParam String q,
+    @Parameter(description = "Máximo de productos a devolver (1-100)") @RequestParam(defaultValue = "20") int limit) {
+    return ResponseEntity.ok(productoBusquedaService.buscar(q, limit));
+  }
+
+  @Operation(summary = "Listar productos paginados", description = "Devuelve una página de productos ordenada por fecha de creación, con filtros opcionales. Para la siguiente página se envía el siguienteCursor recibido")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Página de productos obtenida exitosamente", content = @Content(schema = @Schema(implementation = ProductoPaginaResponse.class)))
+  })
+  @GetMapping("/pagina")
+  @ApiErrors.BadRequest
+  public ResponseEntity<ProductoPaginaResponse> buscarPagina(
+    @Parameter(description = "Cursor opaco devuelto por la página anterior; vacío para la primera") @RequestParam(required = false) String cursor,
+    @Parameter(description = "Productos por página (1-100)") @RequestParam(defaultValue = "20") int size,
+    @Parameter(description = "Filtra por categoría") @RequestParam(required = false) UUID categoriaId,
+    @Parameter(description = "Filtra por disponibilidad") @RequestParam(required = false) Boolean disponible,
+    @Parameter(description = "Precio mínimo (inclusive)") @RequestParam(required = false) BigDecimal precioMin,
+    @Parameter(description = "Precio máximo (inclusive)") @RequestParam(required = false) BigDecimal precioMax) {
+    return ResponseEntity.ok(productoService.buscarPagina(cursor, size, categoriaId, disponible, precioMin, precioMax));
+  }
+
+  @Operation(summary = "Exportar catálogo", description = "Transmite el catálogo en NDJSON (un producto por línea) sin cargarlo completo en memoria. Con updatedSince sólo incluye los productos creados o modificados desde esa fecha")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Catálogo exportado", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = ProductoResponse.class)))
+  })
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportar(
+    @Parameter(description = "Fecha ISO-8601 (ej: 2026-01-31T00:00:00); sólo productos modificados desde entonces") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+    StreamingResponseBody body = salida -> productoService.exportar(salida, updatedSince);
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(body);
+  }
+
   @Operation(summary = "Actualizar producto", description = "Cambia el estado del producto a disponible en el catálogo")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Producto activado exitosamente", content = @Content(schema = @Schema(implementation = ProductoResponse.class)))
@@ -151,7 +293,7 @@ public class ProductoController {
     return ResponseEntity.ok(ProductoResponse.from(producto));
   }
 
-  @GetMapping("/mas-vendidos")
+  @GetMapping(value = "/mas-vendidos", params = "!ventana")
   @Operation(summary = "Productos más vendidos", description = "Devuelve una lista de los productos más vendidos ordenados por cantidad vendida descendente")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Lista de productos más vendidos obtenida exitosamente", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoEstadisticasResponse.class))))
@@ -165,6 +307,37 @@ public class ProductoController {
     return ResponseEntity.ok(masVendidos);
   }
 
+  @GetMapping(value = "/mas-vendidos", params = "ventana")
+  @Operation(summary = "Productos más vendidos por ventana de tiempo", description = "Devuelve los productos con más unidades vendidas en la última hora (1h), día (24h) o semana (7d), calculados en memoria")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Lista de productos más vendidos en la ventana obtenida exitosamente", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoVentasVentanaResponse.class))))
+  })
+  @ApiErrors.BadRequest
+  public ResponseEntity<List<ProductoVentasVentanaResponse>> obtenerMasVendidosPorVentana(
+    @Parameter(description = "Ventana de tiempo: 1h, 24h o 7d") @RequestParam String ventana,
+    @Parameter(description = "Número máximo de productos a devolver") @RequestParam(defaultValue = "10") int limit) {
+    VentanaVentas ventanaVentas = VentanaVentas.desde(ventana);
+    List<ProductoVentasVentanaResponse> masVendidos = productoEstadisticasService.obtenerMasVendidos(ventanaVentas, limit)
+      .stream()
+      .map(ventas -> ProductoVentasVentanaResponse.from(ventanaVentas, ventas))
+      .toList();
+    return ResponseEntity.ok(masVendidos);
+  }
+
+  @GetMapping("/mas-agregados")
+  @Operation(summary = "Productos más agregados al carrito", description = "Devuelve un ranking aproximado de los productos más agregados al carrito; la cifra real está entre vecesAgregadoAlCarrito - errorMaximo y vecesAgregadoAlCarrito")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Lista de productos más agregados al carrito obtenida exitosamente", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoPopularidadResponse.class))))
+  })
+  public ResponseEntity<List<ProductoPopularidadResponse>> obtenerMasAgregados(
+    @Parameter(description = "Número máximo de productos a devolver") @RequestParam(defaultValue = "10") int limit) {
+    List<ProductoPopularidadResponse> masAgregados = productoEstadisticasService.obtenerMasAgregados(limit)
+      .stream()
+      .map(ProductoPopularidadResponse::from)
+      .toList();
+    return ResponseEntity.ok(masAgregados);
+  }
+
   @GetMapping("/{id}/estadisticas")
   @Operation(summary = "Estadísticas de producto", description = "Devuelve las estadísticas de ventas y carrito de un producto específico")
   @ApiResponses(value = {
@@ -175,4 +348,41 @@ public class ProductoController {
     @Parameter(description = "ID único del producto") @PathVariable UUID id) {
     return ResponseEntity.ok(ProductoEstadisticasResponse.from(productoEstadisticasService.obtenerEstadisticas(id)));
   }
+
+  /**
+   * Si Accept-Encoding admite gzip: manda la entrada gzip si la hay y si no
+   * la de *; q=0 la rechaza.
+   */
+  private static boolean aceptaGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    boolean comodin = false;
+    for (String codificacion : acceptEncoding.split(",")) {
+      int separador = codificacion.indexOf(';');
+      String nombre = (separador < 0 ? codificacion : codificacion.substring(0, separador)).trim();
+      boolean aceptada = separador < 0 || !calidadCero(codificacion.substring(separador + 1));
+      if (nombre.equalsIgnoreCase("gzip")) {
+        return aceptada;
+      }
+      if (nombre.equals("*")) {
+        comodin = aceptada;
+      }
+    }
+    return comodin;
+  }
+
+  private static boolean calidadCero(String parametros) {
+    for (String parametro : parametros.split(";")) {
+      String[] claveValor = parametro.split("=", 2);
+      if (claveValor.length == 2 && claveValor[0].trim().equalsIgnoreCase("q")) {
+        try {
+          return Double.parseDouble(claveValor[1].trim()) == 0;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,31 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.service.ArbolCategorias;
+
+/**
+ * Subárbol de una categoría: su ruta de ancestros (de la raíz al padre) y sus
+ * subcategorías anidadas.
+ */
+public record CategoriaArbolResponse(
+    UUID idCategoria,
+    String nombreCategoria,
+    String descripcion,
+    UUID idCategoriaPadre,
+    List<CategoriaNodoResponse> ruta,
+    List<CategoriaNodoResponse> subcategorias) {
+
+  public static CategoriaArbolResponse from(ArbolCategorias arbol, ArbolCategorias.Nodo nodo) {
+    return new CategoriaArbolResponse(
+        nodo.id(),
+        nodo.nombre(),
+        nodo.descripcion(),
+        nodo.padreId(),
+        arbol.ruta(nodo.id()).stream()
+            .map(ancestro -> new CategoriaNodoResponse(ancestro.id(), ancestro.nombre(), List.of()))
+            .toList(),
+        arbol.hijos(nodo.id()).stream().map(hijo -> CategoriaNodoResponse.from(arbol, hijo)).toList());
+  }
+}
@@ -0,0 +1,22 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.service.ArbolCategorias;
+
+/**
+ * Una categoría del árbol con sus subcategorías anidadas.
+ */
+public record CategoriaNodoResponse(
+    UUID idCategoria,
+    String nombreCategoria,
+    List<CategoriaNodoResponse> subcategorias) {
+
+  public static CategoriaNodoResponse from(ArbolCategorias arbol, ArbolCategorias.Nodo nodo) {
+    return new CategoriaNodoResponse(
+        nodo.id(),
+        nodo.nombre(),
+        arbol.hijos(nodo.id()).stream().map(hijo -> from(arbol, hijo)).toList());
+  }
+}
@@ -0,0 +1,17 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record ProductoLoteRequest(
+
+    @NotEmpty(message = "La lista de ids no puede estar vacía")
+    @Size(max = 100, message = "No se pueden pedir más de 100 productos por lote")
+    List<@NotNull(message = "Los ids no pueden ser nulos") UUID> ids
+
+) {
+}
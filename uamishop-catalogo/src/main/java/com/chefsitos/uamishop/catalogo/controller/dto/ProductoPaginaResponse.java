@@ -0,0 +1,12 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.List;
+
+/**
+ * Una página del listado de productos. {@code siguienteCursor} es null en la
+ * última página.
+ */
+public record ProductoPaginaResponse(
+    List<ProductoResponse> productos,
+    String siguienteCursor) {
+}
@@ -0,0 +1,18 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.service.PopularidadCarrito;
+
+public record ProductoPopularidadResponse(
+    UUID productoId,
+    long vecesAgregadoAlCarrito,
+    long errorMaximo) {
+
+  public static ProductoPopularidadResponse from(PopularidadCarrito.ProductoPopular popular) {
+    return new ProductoPopularidadResponse(
+        popular.productoId(),
+        popular.vecesAgregado(),
+        popular.errorMaximo());
+  }
+}
@@ -0,0 +1,19 @@
+package com.chefsitos.uamishop.catalogo.controller.dto;
+
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.service.VentanaVentas;
+import com.chefsitos.uamishop.catalogo.service.VentasPorVentana;
+
+public record ProductoVentasVentanaResponse(
+    UUID productoId,
+    String ventana,
+    long cantidadVendida) {
+
+  public static ProductoVentasVentanaResponse from(VentanaVentas ventana, VentasPorVentana.VentasEnVentana ventas) {
+    return new ProductoVentasVentanaResponse(
+        ventas.productoId(),
+        ventana.codigo(),
+        ventas.cantidadVendida());
+  }
+}
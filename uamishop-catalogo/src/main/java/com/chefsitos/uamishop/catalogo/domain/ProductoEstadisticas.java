@@ -6,6 +6,7 @@ import java.util.UUID;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,7 +14,9 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "producto_estadisticas")
+@Table(name = "producto_estadisticas", indexes = {
+    @Index(name = "idx_estadisticas_cantidad_vendida", columnList = "cantidad_vendida")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 public class ProductoEstadisticas {
@@ -4,6 +4,8 @@ import com.chefsitos.uamishop.catalogo.domain.valueObject.*;
 import com.chefsitos.uamishop.shared.domain.valueObject.Money;
 import com.chefsitos.uamishop.shared.domain.valueObject.ProductoId;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
 import jakarta.persistence.CollectionTable;
@@ -11,9 +13,13 @@ import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Index;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -23,7 +29,14 @@ import com.chefsitos.uamishop.shared.exception.BusinessRuleException;
 import lombok.Getter;
 
 @Entity
-@Table(name = "productos")
+// Índices del listado por keyset (fecha_creacion, id), solo o tras un filtro
+@Table(name = "productos", indexes = {
+  @Index(name = "idx_productos_fecha", columnList = "fecha_creacion, id"),
+  @Index(name = "idx_productos_categoria_fecha", columnList = "categoria_id, fecha_creacion, id"),
+  @Index(name = "idx_productos_disponible_fecha", columnList = "disponible, fecha_creacion, id"),
+  @Index(name = "idx_productos_precio", columnList = "precio_monto"),
+  @Index(name = "idx_productos_actualizacion", columnList = "fecha_actualizacion")
+})
 public class Producto {
 
   @EmbeddedId
@@ -49,8 +62,11 @@ public class Producto {
   @AttributeOverride(name = "valor", column = @Column(name = "categoria_id"))
   private CategoriaId categoriaId;
 
+  // Al recorrer varios productos, las imágenes se cargan en una consulta por
+  // cada 100 productos en lugar de una por producto
   @Getter
   @ElementCollection
+  @BatchSize(size = 100)
   @CollectionTable(name = "producto_imagenes", joinColumns = @JoinColumn(name = "producto_id"))
   private List<Imagen> imagenes;
 
@@ -64,6 +80,18 @@ public class Producto {
   @Getter
   private LocalDateTime fechaCreacion;
 
+  // Última escritura del producto; la usa la exportación incremental
+  // (updatedSince). Null en filas anteriores a la columna.
+  @Getter
+  private LocalDateTime fechaActualizacion;
+
+  // Versión para bloqueo optimista y ETag de la API; las filas anteriores a
+  // la columna parten de 0. Null sólo antes del primer persist.
+  @Getter
+  @Version
+  @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+  private Long version;
+
   protected Producto() {
   }
 
@@ -201,6 +229,12 @@ public class Producto {
     this.urlImagen = urlImagen;
   }
 
+  @PrePersist
+  @PreUpdate
+  void marcarActualizacion() {
+    this.fechaActualizacion = LocalDateTime.now();
+  }
+
   public ProductoId getProductoId() {
     return this.id;
   }
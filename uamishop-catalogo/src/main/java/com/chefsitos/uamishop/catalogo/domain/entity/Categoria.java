@@ -23,6 +23,12 @@ public class Categoria {
   @AttributeOverride(name = "valor", column = @Column(name = "padre_id", nullable = true))
   private CategoriaId categoriaPadreId;
 
+  // Versión para bloqueo optimista y ETag de la API (ver Producto.version)
+  @Getter
+  @Version
+  @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+  private Long version;
+
   protected Categoria() {
   }
 
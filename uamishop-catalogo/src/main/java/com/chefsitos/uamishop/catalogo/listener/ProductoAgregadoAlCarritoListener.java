@@ -13,8 +13,7 @@ import com.chefsitos.uamishop.catalogo.service.ProductoEstadisticasService;
 import com.chefsitos.uamishop.shared.event.ProductoAgregadoAlCarritoEvent;
 import com.chefsitos.uamishop.catalogo.config.RabbitConfig;
 
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxEvent;
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxRepository;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +23,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ProductoAgregadoAlCarritoListener {
   private final ProductoEstadisticasService productoEstadisticasService;
-  private final InboxRepository inboxRepository;
+  private final InboxIdempotencyFilter inboxFilter;
 
-  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO)
+  // Con catalogo.estadisticas.write-behind.enabled=true la cola la consume
+  // ProductoAgregadoAlCarritoWriteBehindListener y este método queda sólo como
+  // @EventListener
+  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO,
+      autoStartup = "#{!${catalogo.estadisticas.write-behind.enabled:false}}")
   @EventListener
   @Async // El listener se ejecuta en un hilo distinto, las métricas son eventualmente
          // consistentes
@@ -35,7 +38,8 @@ public class ProductoAgregadoAlCarritoListener {
   // falla aquí no debe afectar ni bloquear la transacción
   // principal
   public void onProductoAgregadoAlCarrito(ProductoAgregadoAlCarritoEvent event) {
-    if (event.eventId() != null && inboxRepository.existsById(event.eventId())) {
+    // Registra el evento en el Inbox (un único INSERT); si ya existía es duplicado
+    if (event.eventId() != null && !inboxFilter.register(event.eventId())) {
       log.warn(AZUL + "Evento duplicado omitido (Idempotente): {}" + RESET, event.eventId());
       return;
     }
@@ -44,10 +48,6 @@ public class ProductoAgregadoAlCarritoListener {
         + " | productoId={}, carritoId={}, cantidad={}",
         event.productoId(), event.carritoId(), event.cantidad());
     productoEstadisticasService.registrarAgregadoAlCarrito(event.productoId());
-
-    if (event.eventId() != null) {
-      inboxRepository.save(InboxEvent.from(event.eventId()));
-    }
   }
 
 }
@@ -0,0 +1,60 @@
+package com.chefsitos.uamishop.catalogo.listener;
+
+import static com.chefsitos.uamishop.shared.util.LogColor.*;
+
+import java.io.IOException;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.chefsitos.uamishop.catalogo.config.RabbitConfig;
+import com.chefsitos.uamishop.catalogo.service.ProductoEstadisticasWriteBehind;
+import com.chefsitos.uamishop.shared.event.ProductoAgregadoAlCarritoEvent;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxDuplicateFilter;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
+import com.rabbitmq.client.Channel;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumo de catalogo.producto-agregado-carrito en modo write-behind: cada
+ * mensaje sólo se acumula en memoria y se confirma cuando
+ * ProductoEstadisticasWriteBehind lo vuelca a la BD.
+ *
+ * Los duplicados se detectan primero por message-id (InboxDuplicateFilter),
+ * sin deserializar el JSON, y se confirman en el momento.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalogo.estadisticas.write-behind.enabled", havingValue = "true")
+public class ProductoAgregadoAlCarritoWriteBehindListener {
+
+  private final ProductoEstadisticasWriteBehind writeBehind;
+  private final InboxIdempotencyFilter inboxFilter;
+  private final InboxDuplicateFilter duplicateFilter;
+  private final JacksonJsonMessageConverter messageConverter;
+
+  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_AGREGADO,
+      containerFactory = RabbitConfig.MANUAL_ACK_LISTENER_FACTORY)
+  public void onProductoAgregadoAlCarrito(Message message, Channel channel) throws IOException {
+    long deliveryTag = message.getMessageProperties().getDeliveryTag();
+    if (duplicateFilter.isDuplicate(message)) {
+      channel.basicAck(deliveryTag, false);
+      return;
+    }
+
+    message.getMessageProperties().setInferredArgumentType(ProductoAgregadoAlCarritoEvent.class);
+    ProductoAgregadoAlCarritoEvent event = (ProductoAgregadoAlCarritoEvent) messageConverter.fromMessage(message);
+    if (event.eventId() != null && inboxFilter.isDuplicate(event.eventId())) {
+      log.warn(AZUL + "Evento duplicado omitido (Idempotente): {}" + RESET, event.eventId());
+      channel.basicAck(deliveryTag, false);
+      return;
+    }
+    writeBehind.registrarAgregadoAlCarrito(event.productoId(), event.eventId(), channel, deliveryTag);
+  }
+}
@@ -0,0 +1,93 @@
+package com.chefsitos.uamishop.catalogo.listener;
+
+import static com.chefsitos.uamishop.shared.util.LogColor.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.chefsitos.uamishop.catalogo.config.RabbitConfig;
+import com.chefsitos.uamishop.catalogo.service.ProductoEstadisticasService;
+import com.chefsitos.uamishop.shared.event.ProductoCompradoEvent;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxDuplicateFilter;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumo por lotes de la cola catalogo.producto-comprado.
+ *
+ * Recibe hasta N mensajes (o lo que llegue en T ms) sin convertir: los
+ * duplicados se descartan por message-id (InboxDuplicateFilter) antes de
+ * deserializar el JSON. Del resto descarta duplicados contra el Inbox con un único registro por lotes y suma las cantidades por
+ * producto, de modo que se escribe una vez por producto y no una vez por item.
+ * Todo el lote se procesa en una transacción: si falla, se reentrega completo
+ * y el Inbox evita contar dos veces.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalogo.listener.batch.enabled", havingValue = "true")
+public class ProductoCompradoBatchListener {
+
+  private final ProductoEstadisticasService productoEstadisticasService;
+  private final InboxIdempotencyFilter inboxFilter;
+  private final InboxDuplicateFilter duplicateFilter;
+  private final JacksonJsonMessageConverter messageConverter;
+
+  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO,
+      containerFactory = RabbitConfig.BATCH_LISTENER_FACTORY)
+  @Transactional
+  public void onMensajes(List<Message> messages) {
+    List<ProductoCompradoEvent> events = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      if (duplicateFilter.isDuplicate(message)) {
+        continue;
+      }
+      message.getMessageProperties().setInferredArgumentType(ProductoCompradoEvent.class);
+      events.add((ProductoCompradoEvent) messageConverter.fromMessage(message));
+    }
+    if (events.size() < messages.size()) {
+      log.warn(AZUL + "Mensajes de compra duplicados omitidos por message-id: {}" + RESET,
+          messages.size() - events.size());
+    }
+    if (!events.isEmpty()) {
+      onProductosComprados(events);
+    }
+  }
+
+  @Transactional
+  public void onProductosComprados(List<ProductoCompradoEvent> events) {
+    Set<UUID> nuevos = new HashSet<>(inboxFilter.registerAll(events.stream()
+        .map(ProductoCompradoEvent::eventId)
+        .filter(eventId -> eventId != null)
+        .toList()));
+
+    // remove(): un mismo evento repetido dentro del lote sólo se cuenta una vez
+    List<ProductoCompradoEvent> aProcesar = events.stream()
+        .filter(event -> event.eventId() == null || nuevos.remove(event.eventId()))
+        .toList();
+    if (aProcesar.size() < events.size()) {
+      log.warn(AZUL + "Eventos de compra duplicados omitidos (Idempotente): {}" + RESET,
+          events.size() - aProcesar.size());
+    }
+
+    List<ProductoCompradoEvent.ItemComprado> items = aProcesar.stream()
+        .flatMap(event -> event.items().stream())
+        .toList();
+    productoEstadisticasService.registrarVentas(items);
+
+    log.info(AZUL + "Lote de ProductoComprado procesado" + RESET + " | eventos={}, items={}",
+        aProcesar.size(), items.size());
+  }
+}
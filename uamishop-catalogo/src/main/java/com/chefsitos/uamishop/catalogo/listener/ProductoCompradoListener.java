@@ -13,8 +13,7 @@ import com.chefsitos.uamishop.catalogo.service.ProductoEstadisticasService;
 import com.chefsitos.uamishop.catalogo.config.RabbitConfig;
 
 import com.chefsitos.uamishop.shared.event.ProductoCompradoEvent;
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxEvent;
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxRepository;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +23,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ProductoCompradoListener {
   private final ProductoEstadisticasService productoEstadisticasService;
-  private final InboxRepository inboxRepository;
+  private final InboxIdempotencyFilter inboxFilter;
 
-  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO)
+  // Con catalogo.listener.batch.enabled=true la cola la consume
+  // ProductoCompradoBatchListener y este método queda sólo como @EventListener
+  @RabbitListener(queues = RabbitConfig.QUEUE_CATALOGO_PRODUCTO_COMPRADO,
+      autoStartup = "#{!${catalogo.listener.batch.enabled:false}}")
   @EventListener
   @Async // El listener se ejecuta en un hilo distinto, las métricas son eventualmente
          // consistentes
@@ -35,7 +37,8 @@ public class ProductoCompradoListener {
   // falla aquí no debe afectar ni bloquear la transacción
   // principal
   public void onProductoComprado(ProductoCompradoEvent event) {
-    if (event.eventId() != null && inboxRepository.existsById(event.eventId())) {
+    // Registra el evento en el Inbox (un único INSERT); si ya existía es duplicado
+    if (event.eventId() != null && !inboxFilter.register(event.eventId())) {
       log.warn(AZUL + "Evento de compra duplicado omitido (Idempotente): {}" + RESET, event.eventId());
       return;
     }
@@ -44,10 +47,6 @@ public class ProductoCompradoListener {
         + " | ordenId={}, clienteId={}, totalItems={}",
         event.ordenId(), event.clienteId(), event.items().size());
     event.items().forEach(item -> productoEstadisticasService.registrarVenta(item.productoId(), item.cantidad()));
-
-    if (event.eventId() != null) {
-      inboxRepository.save(InboxEvent.from(event.eventId()));
-    }
   }
 
 }
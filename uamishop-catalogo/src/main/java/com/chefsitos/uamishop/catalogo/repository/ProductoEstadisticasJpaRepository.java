@@ -1,20 +1,85 @@
 package com.chefsitos.uamishop.catalogo.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
 
 import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
 
-public interface ProductoEstadisticasJpaRepository extends JpaRepository<ProductoEstadisticas, UUID> {
+public interface ProductoEstadisticasJpaRepository extends JpaRepository<ProductoEstadisticas, UUID>,
+    ProductoEstadisticasUpsertRepository {
 
+  /**
+   * Los {@code limit} productos con más unidades vendidas. La BD resuelve el
+   * ORDER BY ... LIMIT sobre el índice de cantidad_vendida, sin cargar la
+   * tabla completa.
+   */
   default List<ProductoEstadisticas> findMasVendidos(int limit) {
-    return findAll(Sort.by(Sort.Direction.DESC, "cantidadVendida"))
-        .stream()
-        .limit(limit)
-        .toList();
+    if (limit <= 0) {
+      return List.of();
+    }
+    return findAllByOrderByCantidadVendidaDesc(PageRequest.of(0, limit));
   }
 
+  List<ProductoEstadisticas> findAllByOrderByCantidadVendidaDesc(Pageable pageable);
+
+  /**
+   * Suma ventas y unidades vendidas a un producto con un único
+   * INSERT ... ON DUPLICATE KEY UPDATE: crea la fila si no existe y, si existe,
+   * incrementa los contadores en la propia BD. No hay lectura previa, así que
+   * consumidores concurrentes sobre el mismo producto no pierden incrementos.
+   *
+   * La fecha de última venta sólo avanza: un evento que llega tarde no la
+   * retrasa. GREATEST devuelve NULL si algún argumento lo es, de ahí el
+   * COALESCE para filas que aún no tenían venta.
+   */
+  default void incrementarVentas(UUID productoId, long ventas, long cantidad, Instant ultimaVentaAt) {
+    Assert.notNull(productoId, "El id del producto no puede ser nulo");
+    upsertVentas(productoId, ventas, cantidad, ultimaVentaAt);
+  }
+
+  /**
+   * Suma {@code veces} a las veces que el producto se agregó al carrito, con la
+   * misma estrategia de upsert atómico que {@link #incrementarVentas}.
+   */
+  default void incrementarAgregadoAlCarrito(UUID productoId, long veces, Instant ultimaAgregadoAt) {
+    Assert.notNull(productoId, "El id del producto no puede ser nulo");
+    upsertAgregadoAlCarrito(productoId, veces, ultimaAgregadoAt);
+  }
+
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = """
+      INSERT INTO {h-schema}producto_estadisticas
+        (producto_id, ventas_totales, cantidad_vendida, veces_agregado_al_carrito, ultima_venta_at)
+      VALUES (:productoId, :ventas, :cantidad, 0, :ultimaVentaAt)
+      ON DUPLICATE KEY UPDATE
+        ventas_totales = ventas_totales + :ventas,
+        cantidad_vendida = cantidad_vendida + :cantidad,
+        ultima_venta_at = GREATEST(COALESCE(ultima_venta_at, :ultimaVentaAt), :ultimaVentaAt)""", nativeQuery = true)
+  int upsertVentas(@Param("productoId") UUID productoId, @Param("ventas") long ventas,
+      @Param("cantidad") long cantidad, @Param("ultimaVentaAt") Instant ultimaVentaAt);
+
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = """
+      INSERT INTO {h-schema}producto_estadisticas
+        (producto_id, ventas_totales, cantidad_vendida, veces_agregado_al_carrito, ultima_agregado_al_carrito_at)
+      VALUES (:productoId, 0, 0, :veces, :ultimaAgregadoAt)
+      ON DUPLICATE KEY UPDATE
+        veces_agregado_al_carrito = veces_agregado_al_carrito + :veces,
+        ultima_agregado_al_carrito_at = GREATEST(COALESCE(ultima_agregado_al_carrito_at, :ultimaAgregadoAt),
+          :ultimaAgregadoAt)""", nativeQuery = true)
+  int upsertAgregadoAlCarrito(@Param("productoId") UUID productoId, @Param("veces") long veces,
+      @Param("ultimaAgregadoAt") Instant ultimaAgregadoAt);
+
 }
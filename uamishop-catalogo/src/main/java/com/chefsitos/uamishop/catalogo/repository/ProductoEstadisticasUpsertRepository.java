@@ -0,0 +1,20 @@
+package com.chefsitos.uamishop.catalogo.repository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Upserts por lotes de estadísticas: una única sentencia multi-fila
+ * INSERT ... ON DUPLICATE KEY UPDATE para muchos productos a la vez.
+ */
+public interface ProductoEstadisticasUpsertRepository {
+
+  /**
+   * Suma a cada producto las veces que se agregó al carrito.
+   *
+   * @param incrementos veces a sumar por producto
+   * @return filas afectadas según MySQL (1 por inserción, 2 por actualización)
+   */
+  int incrementarAgregadosAlCarrito(Map<UUID, Long> incrementos, Instant ultimaAgregadoAt);
+}
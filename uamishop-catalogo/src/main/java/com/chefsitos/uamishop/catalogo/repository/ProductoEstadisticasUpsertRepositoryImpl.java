@@ -0,0 +1,61 @@
+package com.chefsitos.uamishop.catalogo.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+class ProductoEstadisticasUpsertRepositoryImpl implements ProductoEstadisticasUpsertRepository {
+
+  /** Filas por sentencia; acota el tamaño del SQL y el número de parámetros. */
+  private static final int FILAS_POR_SENTENCIA = 500;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public int incrementarAgregadosAlCarrito(Map<UUID, Long> incrementos, Instant ultimaAgregadoAt) {
+    List<Map.Entry<UUID, Long>> filas = new ArrayList<>(incrementos.entrySet());
+    int afectadas = 0;
+    for (int desde = 0; desde < filas.size(); desde += FILAS_POR_SENTENCIA) {
+      List<Map.Entry<UUID, Long>> bloque = filas.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, filas.size()));
+      afectadas += upsert(bloque, ultimaAgregadoAt);
+    }
+    return afectadas;
+  }
+
+  private int upsert(List<Map.Entry<UUID, Long>> bloque, Instant ultimaAgregadoAt) {
+    StringBuilder sql = new StringBuilder("""
+        INSERT INTO {h-schema}producto_estadisticas
+          (producto_id, ventas_totales, cantidad_vendida, veces_agregado_al_carrito, ultima_agregado_al_carrito_at)
+        VALUES\s""");
+    for (int i = 0; i < bloque.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append("(?, 0, 0, ?, ?)");
+    }
+    // Alias de fila (MySQL 8.0.19+) en lugar de VALUES(col), obsoleto desde
+    // 8.0.20. La fecha sólo avanza, aunque otra réplica vuelque antes un lote
+    // más reciente
+    sql.append("""
+
+        AS nuevo
+        ON DUPLICATE KEY UPDATE
+          veces_agregado_al_carrito = veces_agregado_al_carrito + nuevo.veces_agregado_al_carrito,
+          ultima_agregado_al_carrito_at = GREATEST(
+            COALESCE(ultima_agregado_al_carrito_at, nuevo.ultima_agregado_al_carrito_at),
+            nuevo.ultima_agregado_al_carrito_at)""");
+
+    Query query = entityManager.createNativeQuery(sql.toString());
+    int posicion = 1;
+    for (Map.Entry<UUID, Long> fila : bloque) {
+      query.setParameter(posicion++, fila.getKey());
+      query.setParameter(posicion++, fila.getValue());
+      query.setParameter(posicion++, ultimaAgregadoAt);
+    }
+    return query.executeUpdate();
+  }
+}
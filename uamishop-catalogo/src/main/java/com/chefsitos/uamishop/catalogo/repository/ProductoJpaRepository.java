@@ -1,9 +1,67 @@
 package com.chefsitos.uamishop.catalogo.repository;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
 import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
 import com.chefsitos.uamishop.shared.domain.valueObject.ProductoId;
 
-public interface ProductoJpaRepository extends JpaRepository<Producto, ProductoId> {
+import jakarta.persistence.QueryHint;
+
+public interface ProductoJpaRepository extends JpaRepository<Producto, ProductoId>,
+    JpaSpecificationExecutor<Producto> {
+
+  /**
+   * Catálogo completo (o lo modificado desde {@code desde}) como
+   * ProductoResponse, proyectado en la consulta para no cargar entidades en el
+   * contexto de persistencia.
+   *
+   * Fetch size Integer.MIN_VALUE: con MySQL Connector/J el ResultSet se lee
+   * fila a fila (forward-only) en lugar de traerse entero a memoria. El Stream
+   * debe consumirse y cerrarse dentro de una transacción.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("""
+      SELECT new com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse(
+        p.id.valor, p.nombre, p.descripcion, p.precio.cantidad, p.precio.moneda,
+        p.disponible, p.fechaCreacion, p.categoriaId.valor, p.urlImagen)
+      FROM Producto p
+      WHERE :desde IS NULL
+        OR p.fechaActualizacion >= :desde
+        OR (p.fechaActualizacion IS NULL AND p.fechaCreacion >= :desde)
+      ORDER BY p.fechaCreacion ASC, p.id.valor ASC""")
+  Stream<ProductoResponse> streamParaExportar(@Param("desde") LocalDateTime desde);
+
+  /**
+   * Nombre y descripción de todo el catálogo para construir el índice de
+   * búsqueda, leídos fila a fila como en streamParaExportar.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("""
+      SELECT new com.chefsitos.uamishop.catalogo.repository.ProductoTexto(p.id.valor, p.nombre, p.descripcion)
+      FROM Producto p""")
+  Stream<ProductoTexto> streamTextos();
+
+  /**
+   * Versión (@Version) del producto, sin cargar la entidad; con ella se
+   * comprueba que la respuesta cacheada de GET /productos/{id} sigue vigente.
+   */
+  @Query("SELECT p.version FROM Producto p WHERE p.id.valor = :id")
+  Optional<Long> findVersionById(@Param("id") UUID id);
 }
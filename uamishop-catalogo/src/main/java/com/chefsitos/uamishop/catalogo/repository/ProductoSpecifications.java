@@ -0,0 +1,71 @@
+package com.chefsitos.uamishop.catalogo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
+
+/**
+ * Filtros del listado de productos para JpaSpecificationExecutor. Cada filtro
+ * nulo no restringe. El orden de keyset (fechaCreacion, id) coincide con los
+ * índices idx_productos_* de la entidad.
+ */
+public final class ProductoSpecifications {
+
+  public static final Sort ORDEN_KEYSET = Sort.by(Sort.Direction.ASC, "fechaCreacion", "id.valor");
+
+  private ProductoSpecifications() {
+  }
+
+  public static Specification<Producto> deCategoria(UUID categoriaId) {
+    return (root, query, cb) -> categoriaId == null
+        ? null
+        : cb.equal(root.get("categoriaId").get("valor"), categoriaId);
+  }
+
+  /**
+   * Productos de cualquiera de las categorías indicadas (un subárbol ya
+   * resuelto en memoria).
+   */
+  public static Specification<Producto> enCategorias(Collection<UUID> categoriaIds) {
+    return (root, query, cb) -> root.get("categoriaId").get("valor").in(categoriaIds);
+  }
+
+  public static Specification<Producto> disponible(Boolean disponible) {
+    return (root, query, cb) -> disponible == null
+        ? null
+        : cb.equal(root.get("disponible"), disponible);
+  }
+
+  public static Specification<Producto> precioEntre(BigDecimal minimo, BigDecimal maximo) {
+    return (root, query, cb) -> {
+      if (minimo == null && maximo == null) {
+        return null;
+      }
+      if (minimo == null) {
+        return cb.lessThanOrEqualTo(root.get("precio").get("cantidad"), maximo);
+      }
+      if (maximo == null) {
+        return cb.greaterThanOrEqualTo(root.get("precio").get("cantidad"), minimo);
+      }
+      return cb.between(root.get("precio").get("cantidad"), minimo, maximo);
+    };
+  }
+
+  /**
+   * Productos posteriores a (fechaCreacion, id) en el orden ORDEN_KEYSET:
+   * {@code fecha > f OR (fecha = f AND id > i)}.
+   */
+  public static Specification<Producto> despuesDe(LocalDateTime fechaCreacion, UUID id) {
+    return (root, query, cb) -> cb.or(
+        cb.greaterThan(root.get("fechaCreacion"), fechaCreacion),
+        cb.and(
+            cb.equal(root.get("fechaCreacion"), fechaCreacion),
+            cb.greaterThan(root.get("id").get("valor"), id)));
+  }
+}
@@ -0,0 +1,9 @@
+package com.chefsitos.uamishop.catalogo.repository;
+
+import java.util.UUID;
+
+/**
+ * Proyección con el texto buscable de un producto.
+ */
+public record ProductoTexto(UUID id, String nombre, String descripcion) {
+}
@@ -0,0 +1,174 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.domain.entity.Categoria;
+
+/**
+ * Foto inmutable del árbol de categorías. Al construirla se precalculan, para
+ * cada categoría, sus hijos, la ruta de ancestros (de la raíz al padre) y el
+ * conjunto de descendientes (incluida ella misma), así que las consultas
+ * posteriores no recorren el árbol ni van a la BD.
+ *
+ * Nunca se modifica: un cambio produce una foto nueva con {@link #con}
+ * (copy-on-write) y quien la publica la sustituye de forma atómica.
+ *
+ * Una categoría cuyo padre no está en la foto se trata como raíz. Si los
+ * datos trajeran un ciclo, la ruta se corta al repetirse un ancestro.
+ */
+public final class ArbolCategorias {
+
+  public record Nodo(UUID id, String nombre, String descripcion, UUID padreId) {
+
+    static Nodo de(Categoria categoria) {
+      return new Nodo(
+          categoria.getCategoriaId().valor(),
+          categoria.getNombre(),
+          categoria.getDescripcion(),
+          categoria.getCategoriaPadreId() != null ? categoria.getCategoriaPadreId().valor() : null);
+    }
+  }
+
+  private static final Comparator<Nodo> POR_NOMBRE = Comparator.comparing(Nodo::nombre)
+      .thenComparing(Nodo::id);
+
+  private static final ArbolCategorias VACIO = new ArbolCategorias(Map.of());
+
+  private final Map<UUID, Nodo> nodos;
+  private final Map<UUID, List<Nodo>> hijos;
+  private final Map<UUID, List<Nodo>> rutas;
+  private final Map<UUID, Set<UUID>> descendientes;
+  private final List<Nodo> raices;
+
+  private ArbolCategorias(Map<UUID, Nodo> nodos) {
+    this.nodos = Map.copyOf(nodos);
+
+    Map<UUID, List<Nodo>> hijosPorPadre = new HashMap<>();
+    List<Nodo> sinPadre = new ArrayList<>();
+    for (Nodo nodo : this.nodos.values()) {
+      if (nodo.padreId() != null && this.nodos.containsKey(nodo.padreId())) {
+        hijosPorPadre.computeIfAbsent(nodo.padreId(), id -> new ArrayList<>()).add(nodo);
+      } else {
+        sinPadre.add(nodo);
+      }
+    }
+    Map<UUID, List<Nodo>> hijosOrdenados = new HashMap<>();
+    hijosPorPadre.forEach((padreId, lista) -> {
+      lista.sort(POR_NOMBRE);
+      hijosOrdenados.put(padreId, List.copyOf(lista));
+    });
+    sinPadre.sort(POR_NOMBRE);
+    this.hijos = Map.copyOf(hijosOrdenados);
+    this.raices = List.copyOf(sinPadre);
+
+    Map<UUID, List<Nodo>> rutasCalculadas = new HashMap<>();
+    Map<UUID, Set<UUID>> descendientesCalculados = new HashMap<>();
+    for (Nodo nodo : this.nodos.values()) {
+      rutasCalculadas.put(nodo.id(), calcularRuta(nodo));
+      descendientesCalculados.put(nodo.id(), calcularDescendientes(nodo.id()));
+    }
+    this.rutas = Map.copyOf(rutasCalculadas);
+    this.descendientes = Map.copyOf(descendientesCalculados);
+  }
+
+  public static ArbolCategorias vacio() {
+    return VACIO;
+  }
+
+  public static ArbolCategorias de(Collection<Categoria> categorias) {
+    Map<UUID, Nodo> nodos = new HashMap<>();
+    categorias.forEach(categoria -> nodos.put(categoria.getCategoriaId().valor(), Nodo.de(categoria)));
+    return new ArbolCategorias(nodos);
+  }
+
+  /**
+   * Foto nueva con la categoría añadida o reemplazada; esta no cambia.
+   */
+  public ArbolCategorias con(Categoria categoria) {
+    Map<UUID, Nodo> copia = new HashMap<>(nodos);
+    copia.put(categoria.getCategoriaId().valor(), Nodo.de(categoria));
+    return new ArbolCategorias(copia);
+  }
+
+  public Optional<Nodo> nodo(UUID id) {
+    return Optional.ofNullable(nodos.get(id));
+  }
+
+  public boolean contiene(UUID id) {
+    return nodos.containsKey(id);
+  }
+
+  public int tamano() {
+    return nodos.size();
+  }
+
+  public List<Nodo> raices() {
+    return raices;
+  }
+
+  public List<Nodo> hijos(UUID id) {
+    return hijos.getOrDefault(id, List.of());
+  }
+
+  /**
+   * Ancestros de la categoría, de la raíz a su padre; vacío para una raíz o
+   * una categoría desconocida.
+   */
+  public List<Nodo> ruta(UUID id) {
+    return rutas.getOrDefault(id, List.of());
+  }
+
+  /**
+   * La categoría y todas las que cuelgan de ella; vacío si no está en la foto.
+   */
+  public Set<UUID> descendientes(UUID id) {
+    return descendientes.getOrDefault(id, Set.of());
+  }
+
+  /**
+   * Indica si colgar {@code id} de {@code nuevoPadreId} cerraría un ciclo,
+   * es decir, si el nuevo padre es la propia categoría o uno de sus
+   * descendientes.
+   */
+  public boolean formariaCiclo(UUID id, UUID nuevoPadreId) {
+    return id.equals(nuevoPadreId) || descendientes(id).contains(nuevoPadreId);
+  }
+
+  private List<Nodo> calcularRuta(Nodo nodo) {
+    Deque<Nodo> ruta = new ArrayDeque<>();
+    Set<UUID> vistos = new HashSet<>();
+    vistos.add(nodo.id());
+    Nodo actual = nodo.padreId() != null ? nodos.get(nodo.padreId()) : null;
+    while (actual != null && vistos.add(actual.id())) {
+      ruta.addFirst(actual);
+      actual = actual.padreId() != null ? nodos.get(actual.padreId()) : null;
+    }
+    return List.copyOf(ruta);
+  }
+
+  private Set<UUID> calcularDescendientes(UUID id) {
+    Set<UUID> resultado = new LinkedHashSet<>();
+    Deque<UUID> pendientes = new ArrayDeque<>();
+    pendientes.add(id);
+    while (!pendientes.isEmpty()) {
+      UUID actual = pendientes.poll();
+      if (resultado.add(actual)) {
+        hijos.getOrDefault(actual, List.of()).forEach(hijo -> pendientes.add(hijo.id()));
+      }
+    }
+    return Collections.unmodifiableSet(resultado);
+  }
+}
@@ -0,0 +1,105 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.UUID;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.chefsitos.uamishop.catalogo.domain.entity.Categoria;
+import com.chefsitos.uamishop.catalogo.domain.valueObject.CategoriaId;
+import com.chefsitos.uamishop.catalogo.repository.CategoriaJpaRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publica la foto vigente del árbol de categorías ({@link ArbolCategorias}).
+ *
+ * Las lecturas toman la referencia volátil sin bloqueo. Las escrituras
+ * (carga completa o cambio de una categoría) construyen una foto nueva y la
+ * sustituyen bajo el mismo bloqueo: un cambio confirmado durante una recarga
+ * o ya está en la consulta o se aplica sobre la foto recargada.
+ *
+ * Se carga al arrancar, ProductoService le pasa cada categoría creada o
+ * actualizada tras el commit y se recarga cada
+ * {@code catalogo.categorias.refresh-interval} ms para recoger los cambios
+ * de otras réplicas.
+ */
+@Slf4j
+@Component
+public class CategoriasEnMemoria {
+
+  private final CategoriaJpaRepository categoriaRepository;
+  private volatile ArbolCategorias arbol;
+
+  public CategoriasEnMemoria(CategoriaJpaRepository categoriaRepository) {
+    this.categoriaRepository = categoriaRepository;
+  }
+
+  /**
+   * Foto vigente; si aún no se cargó, la carga en el momento.
+   */
+  public ArbolCategorias arbol() {
+    ArbolCategorias actual = arbol;
+    if (actual == null) {
+      recargar();
+      actual = arbol;
+    }
+    return actual != null ? actual : ArbolCategorias.vacio();
+  }
+
+  /**
+   * Foto vigente que contiene la categoría indicada si ésta existe: si la
+   * foto no la conoce pero está en la BD (creada por otra réplica y aún sin
+   * recargar), se recarga antes de responder.
+   */
+  public ArbolCategorias arbolCon(UUID categoriaId) {
+    ArbolCategorias actual = arbol();
+    if (actual.contiene(categoriaId) || !categoriaRepository.existsById(CategoriaId.of(categoriaId.toString()))) {
+      return actual;
+    }
+    recargar();
+    return arbol();
+  }
+
+  /**
+   * Incorpora la categoría a la foto después del commit que la guardó (o en
+   * el momento si no hay transacción activa).
+   */
+  public void aplicar(Categoria categoria) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      reemplazar(categoria);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        reemplazar(categoria);
+      }
+    });
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${catalogo.categorias.refresh-interval:60000}",
+      initialDelayString = "${catalogo.categorias.refresh-interval:60000}")
+  public synchronized void recargar() {
+    try {
+      arbol = ArbolCategorias.de(categoriaRepository.findAll());
+      log.debug("Árbol de categorías recargado: {} categorías", arbol.tamano());
+    } catch (RuntimeException e) {
+      // Se conserva la foto anterior
+      log.warn("No se pudo recargar el árbol de categorías: {}", e.getMessage());
+    }
+  }
+
+  private synchronized void reemplazar(Categoria categoria) {
+    if (arbol == null) {
+      // Sin foto previa, la primera lectura cargará la BD completa
+      return;
+    }
+    arbol = arbol.con(categoria);
+  }
+}
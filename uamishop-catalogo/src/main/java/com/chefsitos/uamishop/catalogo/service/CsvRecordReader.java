@@ -0,0 +1,87 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector incremental de CSV (RFC 4180): devuelve un registro cada vez, con
+ * soporte de campos entre comillas, comillas escapadas ("") y saltos de línea
+ * dentro de un campo. Acepta fin de línea LF o CRLF. No es thread-safe.
+ */
+final class CsvRecordReader {
+
+  private final Reader reader;
+  private long lineaActual = 1;
+  private long linea;
+
+  CsvRecordReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Línea física (1-based) en la que empezó el último registro leído.
+   */
+  long linea() {
+    return linea;
+  }
+
+  /**
+   * @return los campos del siguiente registro, o null al final de la entrada
+   */
+  List<String> leer() throws IOException {
+    int c = leerCaracter();
+    // Salta líneas vacías entre registros
+    while (c == '\r' || c == '\n') {
+      c = leerCaracter();
+    }
+    if (c == -1) {
+      return null;
+    }
+    linea = lineaActual;
+
+    List<String> campos = new ArrayList<>();
+    StringBuilder campo = new StringBuilder();
+    boolean entreComillas = false;
+    while (true) {
+      if (entreComillas) {
+        if (c == -1) {
+          throw new IOException("Comillas sin cerrar en el registro de la línea " + linea);
+        }
+        if (c == '"') {
+          int despues = leerCaracter();
+          if (despues == '"') {
+            campo.append('"');
+          } else {
+            entreComillas = false;
+            c = despues;
+            continue;
+          }
+        } else {
+          campo.append((char) c);
+        }
+      } else if (c == '"' && campo.isEmpty()) {
+        entreComillas = true;
+      } else if (c == ',') {
+        campos.add(campo.toString());
+        campo.setLength(0);
+      } else if (c == '\n' || c == -1) {
+        break;
+      } else if (c != '\r') {
+        campo.append((char) c);
+      }
+      c = leerCaracter();
+    }
+    campos.add(campo.toString());
+    return campos;
+  }
+
+  private int leerCaracter() throws IOException {
+    int c = reader.read();
+    if (c == '\n') {
+      lineaActual++;
+    }
+    return c;
+  }
+}
@@ -0,0 +1,286 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre y descripción de los productos,
+ * con ranking BM25 (k1 = 1.2, b = 0.75).
+ *
+ * Cada documento recibe un número interno consecutivo; las listas de
+ * apariciones de cada término guardan esos números y la frecuencia en arrays
+ * de int, sin objetos por aparición. El nombre cuenta PESO_NOMBRE veces en
+ * la frecuencia y en la longitud del documento (BM25F simplificado).
+ *
+ * Los términos están en un TreeMap para expandir prefijos con un subMap: cada
+ * término de la consulta también busca hasta MAX_EXPANSIONES términos que
+ * empiecen por él, puntuados con PESO_PREFIJO.
+ *
+ * Reindexar o eliminar un producto sólo lo marca como borrado; sus entradas
+ * se descartan al puntuar y se compactan cuando los borrados superan a los
+ * vivos.
+ *
+ * No es thread-safe: IndiceProductos lo protege.
+ */
+class IndiceInvertido {
+
+  /**
+   * Producto encontrado y su puntuación BM25.
+   */
+  record Resultado(UUID productoId, double puntuacion) {
+  }
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int PESO_NOMBRE = 2;
+  private static final double PESO_PREFIJO = 0.7;
+  private static final int MAX_EXPANSIONES = 50;
+  private static final int MIN_COMPACTAR = 1024;
+
+  private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Set<String> VACIAS = Set.of(
+      "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los", "o", "para", "por",
+      "se", "sin", "su", "sus", "un", "una", "unas", "unos", "y");
+
+  /**
+   * Apariciones de un término: documentos internos y frecuencias en paralelo.
+   */
+  private static final class Apariciones {
+    private int[] documentos = new int[4];
+    private int[] frecuencias = new int[4];
+    private int size;
+    private int vivos;
+
+    void agregar(int documento, int frecuencia) {
+      if (size == documentos.length) {
+        documentos = Arrays.copyOf(documentos, size * 2);
+        frecuencias = Arrays.copyOf(frecuencias, size * 2);
+      }
+      documentos[size] = documento;
+      frecuencias[size] = frecuencia;
+      size++;
+      vivos++;
+    }
+  }
+
+  private final NavigableMap<String, Apariciones> terminos = new TreeMap<>();
+  private final Map<UUID, Integer> internos = new HashMap<>();
+  private final BitSet vivos = new BitSet();
+  private UUID[] externos = new UUID[1024];
+  private int[] longitudes = new int[1024];
+  private String[][] terminosPorDocumento = new String[1024][];
+  private int siguiente;
+  private long longitudTotal;
+
+  int size() {
+    return internos.size();
+  }
+
+  /**
+   * Indexa el producto, reemplazando su versión anterior si la había.
+   */
+  void indexar(UUID productoId, String nombre, String descripcion) {
+    eliminar(productoId);
+
+    Map<String, Integer> frecuencias = new LinkedHashMap<>();
+    int longitud = 0;
+    for (String termino : tokenizar(nombre)) {
+      frecuencias.merge(termino, PESO_NOMBRE, Integer::sum);
+      longitud += PESO_NOMBRE;
+    }
+    for (String termino : tokenizar(descripcion)) {
+      frecuencias.merge(termino, 1, Integer::sum);
+      longitud++;
+    }
+
+    int documento = reservar();
+    externos[documento] = productoId;
+    longitudes[documento] = longitud;
+    String[] propios = new String[frecuencias.size()];
+    int i = 0;
+    for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+      Apariciones apariciones = terminos.computeIfAbsent(entrada.getKey(), t -> new Apariciones());
+      apariciones.agregar(documento, entrada.getValue());
+      propios[i++] = entrada.getKey();
+    }
+    terminosPorDocumento[documento] = propios;
+    vivos.set(documento);
+    internos.put(productoId, documento);
+    longitudTotal += longitud;
+  }
+
+  void eliminar(UUID productoId) {
+    Integer documento = internos.remove(productoId);
+    if (documento == null) {
+      return;
+    }
+    vivos.clear(documento);
+    longitudTotal -= longitudes[documento];
+    for (String termino : terminosPorDocumento[documento]) {
+      Apariciones apariciones = terminos.get(termino);
+      if (--apariciones.vivos == 0) {
+        terminos.remove(termino);
+      }
+    }
+    terminosPorDocumento[documento] = null;
+    externos[documento] = null;
+
+    int borrados = siguiente - internos.size();
+    if (borrados > MIN_COMPACTAR && borrados > internos.size()) {
+      compactar();
+    }
+  }
+
+  /**
+   * Los {@code limit} productos con mayor puntuación BM25 para la consulta,
+   * de mayor a menor; vacío si la consulta no tiene términos indexables.
+   */
+  List<Resultado> buscar(String consulta, int limit) {
+    List<String> terminosConsulta = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+    if (terminosConsulta.isEmpty() || internos.isEmpty()) {
+      return List.of();
+    }
+
+    double[] puntos = new double[siguiente];
+    int[] tocados = new int[16];
+    int numTocados = 0;
+    double longitudMedia = (double) longitudTotal / internos.size();
+
+    for (String termino : terminosConsulta) {
+      for (Map.Entry<String, Apariciones> entrada : expandir(termino).entrySet()) {
+        double peso = entrada.getKey().equals(termino) ? 1.0 : PESO_PREFIJO;
+        Apariciones apariciones = entrada.getValue();
+        double idf = Math.log(1 + (internos.size() - apariciones.vivos + 0.5) / (apariciones.vivos + 0.5));
+        for (int i = 0; i < apariciones.size; i++) {
+          int documento = apariciones.documentos[i];
+          if (!vivos.get(documento)) {
+            continue;
+          }
+          double tf = apariciones.frecuencias[i];
+          double normalizacion = K1 * (1 - B + B * longitudes[documento] / longitudMedia);
+          if (puntos[documento] == 0) {
+            if (numTocados == tocados.length) {
+              tocados = Arrays.copyOf(tocados, numTocados * 2);
+            }
+            tocados[numTocados++] = documento;
+          }
+          puntos[documento] += peso * idf * tf * (K1 + 1) / (tf + normalizacion);
+        }
+      }
+    }
+
+    PriorityQueue<Integer> mejores = new PriorityQueue<>(limit + 1,
+        (a, b) -> puntos[a] != puntos[b] ? Double.compare(puntos[a], puntos[b]) : Integer.compare(b, a));
+    for (int i = 0; i < numTocados; i++) {
+      mejores.offer(tocados[i]);
+      if (mejores.size() > limit) {
+        mejores.poll();
+      }
+    }
+    Resultado[] resultado = new Resultado[mejores.size()];
+    for (int i = resultado.length - 1; i >= 0; i--) {
+      int documento = mejores.poll();
+      resultado[i] = new Resultado(externos[documento], puntos[documento]);
+    }
+    return List.of(resultado);
+  }
+
+  /**
+   * Normaliza a minúsculas sin acentos (ñ pasa a n), parte en letras y
+   * dígitos, descarta palabras vacías del español y quita la s final de los
+   * plurales.
+   */
+  static List<String> tokenizar(String texto) {
+    if (texto == null || texto.isBlank()) {
+      return List.of();
+    }
+    String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+        .toLowerCase(Locale.ROOT);
+    List<String> tokens = new ArrayList<>();
+    for (String token : SEPARADORES.split(normalizado)) {
+      if (token.isEmpty() || VACIAS.contains(token)) {
+        continue;
+      }
+      tokens.add(token.length() > 3 && token.endsWith("s") ? token.substring(0, token.length() - 1) : token);
+    }
+    return tokens;
+  }
+
+  private Map<String, Apariciones> expandir(String termino) {
+    Map<String, Apariciones> expansion = new LinkedHashMap<>();
+    Apariciones exacto = terminos.get(termino);
+    if (exacto != null) {
+      expansion.put(termino, exacto);
+    }
+    int expandidos = 0;
+    for (Map.Entry<String, Apariciones> entrada : terminos
+        .subMap(termino, false, termino + Character.MAX_VALUE, false).entrySet()) {
+      if (expandidos++ == MAX_EXPANSIONES) {
+        break;
+      }
+      expansion.put(entrada.getKey(), entrada.getValue());
+    }
+    return expansion;
+  }
+
+  private int reservar() {
+    if (siguiente == externos.length) {
+      int capacidad = externos.length * 2;
+      externos = Arrays.copyOf(externos, capacidad);
+      longitudes = Arrays.copyOf(longitudes, capacidad);
+      terminosPorDocumento = Arrays.copyOf(terminosPorDocumento, capacidad);
+    }
+    return siguiente++;
+  }
+
+  /**
+   * Renumera los documentos vivos y reconstruye las apariciones sin las
+   * entradas borradas.
+   */
+  private void compactar() {
+    int[] nuevoNumero = new int[siguiente];
+    int vivosActuales = 0;
+    for (int documento = vivos.nextSetBit(0); documento >= 0; documento = vivos.nextSetBit(documento + 1)) {
+      nuevoNumero[documento] = vivosActuales;
+      externos[vivosActuales] = externos[documento];
+      longitudes[vivosActuales] = longitudes[documento];
+      terminosPorDocumento[vivosActuales] = terminosPorDocumento[documento];
+      internos.put(externos[vivosActuales], vivosActuales);
+      vivosActuales++;
+    }
+    Arrays.fill(externos, vivosActuales, siguiente, null);
+    Arrays.fill(terminosPorDocumento, vivosActuales, siguiente, null);
+
+    for (Apariciones apariciones : terminos.values()) {
+      int escritos = 0;
+      for (int i = 0; i < apariciones.size; i++) {
+        int documento = apariciones.documentos[i];
+        if (vivos.get(documento)) {
+          apariciones.documentos[escritos] = nuevoNumero[documento];
+          apariciones.frecuencias[escritos] = apariciones.frecuencias[i];
+          escritos++;
+        }
+      }
+      apariciones.size = escritos;
+    }
+
+    vivos.clear();
+    vivos.set(0, vivosActuales);
+    siguiente = vivosActuales;
+  }
+}
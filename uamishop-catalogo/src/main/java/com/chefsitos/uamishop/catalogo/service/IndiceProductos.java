@@ -0,0 +1,164 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
+import com.chefsitos.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.chefsitos.uamishop.catalogo.repository.ProductoTexto;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice de búsqueda de texto del catálogo ({@link IndiceInvertido}).
+ *
+ * Las búsquedas comparten un bloqueo de lectura; los cambios toman el de
+ * escritura. ProductoService y ProductoImportService le pasan los productos
+ * creados o modificados tras el commit.
+ *
+ * Se construye al arrancar y se reconstruye cada
+ * {@code catalogo.busqueda.refresh-interval} ms para recoger los cambios de
+ * otras réplicas. La reconstrucción lee la BD fuera del bloqueo; los cambios
+ * que llegan mientras tanto se aplican también al índice nuevo antes de
+ * sustituir al anterior.
+ */
+@Slf4j
+@Component
+public class IndiceProductos {
+
+  private final ProductoJpaRepository productoRepository;
+  private final TransactionTemplate lectura;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private IndiceInvertido indice = new IndiceInvertido();
+  private List<ProductoTexto> cambiosDuranteRecarga;
+  private volatile boolean cargado;
+
+  public IndiceProductos(ProductoJpaRepository productoRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.productoRepository = productoRepository;
+    this.lectura = new TransactionTemplate(transactionManager);
+    this.lectura.setReadOnly(true);
+    Gauge.builder("catalogo.busqueda.indice.size", this, IndiceProductos::size)
+        .description("Productos en el índice de búsqueda")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Ids de los {@code limit} productos más relevantes para la consulta, de
+   * mayor a menor puntuación.
+   */
+  public List<UUID> buscar(String consulta, int limit) {
+    if (!cargado) {
+      cargarSiHaceFalta();
+    }
+    lock.readLock().lock();
+    try {
+      return indice.buscar(consulta, limit).stream()
+          .map(IndiceInvertido.Resultado::productoId)
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Indexa los productos después del commit que los guardó (o en el momento
+   * si no hay transacción activa).
+   */
+  public void indexar(Collection<Producto> productos) {
+    List<ProductoTexto> textos = productos.stream()
+        .map(producto -> new ProductoTexto(producto.getProductoId().valor(), producto.getNombre(),
+            producto.getDescripcion()))
+        .toList();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      aplicar(textos);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        aplicar(textos);
+      }
+    });
+  }
+
+  public void indexar(Producto producto) {
+    indexar(List.of(producto));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${catalogo.busqueda.refresh-interval:600000}",
+      initialDelayString = "${catalogo.busqueda.refresh-interval:600000}")
+  public synchronized void recargar() {
+    conEscritura(() -> cambiosDuranteRecarga = new ArrayList<>());
+    try {
+      IndiceInvertido nuevo = new IndiceInvertido();
+      lectura.executeWithoutResult(status -> {
+        try (Stream<ProductoTexto> textos = productoRepository.streamTextos()) {
+          textos.forEach(texto -> nuevo.indexar(texto.id(), texto.nombre(), texto.descripcion()));
+        }
+      });
+      conEscritura(() -> {
+        cambiosDuranteRecarga.forEach(texto -> nuevo.indexar(texto.id(), texto.nombre(), texto.descripcion()));
+        indice = nuevo;
+      });
+      cargado = true;
+      log.debug("Índice de búsqueda reconstruido: {} productos", nuevo.size());
+    } catch (RuntimeException e) {
+      // Se conserva el índice anterior
+      log.warn("No se pudo reconstruir el índice de búsqueda: {}", e.getMessage());
+    } finally {
+      conEscritura(() -> cambiosDuranteRecarga = null);
+    }
+  }
+
+  private synchronized void cargarSiHaceFalta() {
+    if (!cargado) {
+      recargar();
+    }
+  }
+
+  private void aplicar(List<ProductoTexto> textos) {
+    conEscritura(() -> {
+      textos.forEach(texto -> indice.indexar(texto.id(), texto.nombre(), texto.descripcion()));
+      if (cambiosDuranteRecarga != null) {
+        cambiosDuranteRecarga.addAll(textos);
+      }
+    });
+  }
+
+  private void conEscritura(Runnable accion) {
+    lock.writeLock().lock();
+    try {
+      accion.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int size() {
+    lock.readLock().lock();
+    try {
+      return indice.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ranking aproximado de los productos más agregados al carrito, con memoria
+ * acotada a {@code catalogo.estadisticas.popularidad.capacity} contadores
+ * (SpaceSavingSketch) y registro O(1).
+ *
+ * Se alimenta tras el commit de cada agregado al carrito (directo o volcado
+ * por el write-behind), así que refleja la actividad consumida por esta
+ * instancia desde que arrancó. Los contadores exactos siguen en
+ * producto_estadisticas.
+ */
+@Component
+public class PopularidadCarrito {
+
+  /**
+   * Veces estimadas que se agregó un producto al carrito: la cifra real está
+   * entre {@code vecesAgregado - errorMaximo} y {@code vecesAgregado}.
+   */
+  public record ProductoPopular(UUID productoId, long vecesAgregado, long errorMaximo) {
+  }
+
+  private final SpaceSavingSketch sketch;
+
+  public PopularidadCarrito(MeterRegistry meterRegistry,
+      @Value("${catalogo.estadisticas.popularidad.capacity:1000}") int capacidad) {
+    this.sketch = new SpaceSavingSketch(capacidad);
+    Gauge.builder("catalogo.popularidad.sketch.size", this, PopularidadCarrito::size)
+        .description("Productos vigilados por el sketch de más agregados al carrito")
+        .register(meterRegistry);
+  }
+
+  public synchronized void registrar(UUID productoId) {
+    sketch.registrar(productoId);
+  }
+
+  /**
+   * Registra {@code veces} agregados al carrito de cada producto, con una
+   * actualización ponderada por producto.
+   */
+  public synchronized void registrar(Map<UUID, Long> agregados) {
+    agregados.forEach(sketch::registrar);
+  }
+
+  /**
+   * Los {@code limit} productos más agregados al carrito (como mucho la
+   * capacidad del sketch), con su cuenta estimada y el error máximo.
+   */
+  public synchronized List<ProductoPopular> masAgregados(int limit) {
+    return sketch.primeros(Math.min(limit, sketch.capacidad())).stream()
+        .map(estimacion -> new ProductoPopular(estimacion.id(), estimacion.cuenta(), estimacion.error()))
+        .toList();
+  }
+
+  private synchronized double size() {
+    return sketch.size();
+  }
+}
@@ -0,0 +1,78 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Búsqueda de texto del catálogo: el índice en memoria decide qué productos y
+ * en qué orden; se sirven desde la caché de productos y los que faltan se
+ * cargan todos juntos con una sola consulta.
+ */
+@Service
+@AllArgsConstructor
+public class ProductoBusquedaService {
+
+  private static final int LIMITE_MAXIMO = 100;
+  private static final int LONGITUD_MAXIMA_CONSULTA = 200;
+
+  private final IndiceProductos indiceProductos;
+  private final ProductoService productoService;
+  private final CacheManager cacheManager;
+
+  public List<ProductoResponse> buscar(String consulta, int limit) {
+    if (consulta == null || consulta.isBlank()) {
+      throw new BadRequestException("q no puede estar vacío");
+    }
+    if (consulta.length() > LONGITUD_MAXIMA_CONSULTA) {
+      throw new BadRequestException("q no debe exceder los " + LONGITUD_MAXIMA_CONSULTA + " caracteres");
+    }
+    if (limit < 1 || limit > LIMITE_MAXIMO) {
+      throw new BadRequestException("limit debe estar entre 1 y " + LIMITE_MAXIMO);
+    }
+
+    List<UUID> ids = indiceProductos.buscar(consulta, limit);
+    Cache cache = cacheManager.getCache(ProductoService.CACHE_PRODUCTOS);
+    Map<UUID, ProductoResponse> encontrados = new HashMap<>();
+    List<UUID> faltantes = new ArrayList<>();
+    for (UUID id : ids) {
+      ProductoResponse enCache = cache != null ? cache.get(id, ProductoResponse.class) : null;
+      if (enCache != null) {
+        encontrados.put(id, enCache);
+      } else {
+        faltantes.add(id);
+      }
+    }
+    // Los fallos se resuelven con un único WHERE id IN (...) y se cachean
+    if (!faltantes.isEmpty()) {
+      for (ProductoResponse producto : productoService.buscarPorIds(faltantes)) {
+        encontrados.put(producto.idProducto(), producto);
+        if (cache != null) {
+          cache.put(producto.idProducto(), producto);
+        }
+      }
+    }
+
+    // Orden del índice (BM25); los que ya no existen y el índice aún no lo
+    // sabe se omiten
+    List<ProductoResponse> productos = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      ProductoResponse producto = encontrados.get(id);
+      if (producto != null) {
+        productos.add(producto);
+      }
+    }
+    return productos;
+  }
+}
@@ -0,0 +1,47 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+/**
+ * Posición de la paginación por keyset del listado de productos: el último
+ * (fechaCreacion, id) entregado. Viaja al cliente como texto opaco en
+ * base64url.
+ */
+public record ProductoCursor(LocalDateTime fechaCreacion, UUID id) {
+
+  private static final char SEPARADOR = '|';
+
+  public static ProductoCursor de(Producto producto) {
+    return new ProductoCursor(producto.getFechaCreacion(), producto.getProductoId().valor());
+  }
+
+  public String codificar() {
+    String valor = fechaCreacion.toString() + SEPARADOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws BadRequestException si el cursor no lo generó esta API
+   */
+  public static ProductoCursor decodificar(String cursor) {
+    try {
+      String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separador = valor.indexOf(SEPARADOR);
+      if (separador < 0) {
+        throw new IllegalArgumentException("sin separador");
+      }
+      return new ProductoCursor(
+          LocalDateTime.parse(valor.substring(0, separador)),
+          UUID.fromString(valor.substring(separador + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new BadRequestException("Cursor de paginación inválido");
+    }
+  }
+}
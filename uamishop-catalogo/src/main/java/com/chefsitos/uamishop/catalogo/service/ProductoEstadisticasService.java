@@ -1,13 +1,21 @@
 package com.chefsitos.uamishop.catalogo.service;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
 import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.chefsitos.uamishop.shared.event.ProductoCompradoEvent;
 import com.chefsitos.uamishop.shared.exception.ResourceNotFoundException;
 
 import lombok.RequiredArgsConstructor;
@@ -17,29 +25,60 @@ import lombok.RequiredArgsConstructor;
 public class ProductoEstadisticasService {
 
   private final ProductoEstadisticasJpaRepository estadisticasRepository;
+  private final ObjectProvider<RankingMasVendidos> rankingMasVendidos;
+  private final VentasPorVentana ventasPorVentana;
+  private final PopularidadCarrito popularidadCarrito;
 
+  /**
+   * Registra una venta con un upsert atómico en la BD (sin leer la fila
+   * antes), seguro ante consumidores concurrentes sobre el mismo producto.
+   */
   public void registrarVenta(UUID productoId, int cantidad) {
-    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId)
-        .orElse(new ProductoEstadisticas(productoId, 0, 0, 0, null, null));
+    Instant ahora = Instant.now();
+    estadisticasRepository.incrementarVentas(productoId, 1, cantidad, ahora);
+    actualizarRanking(Map.of(productoId, new long[] { 1, cantidad }), ahora);
+    registrarEnVentanas(Map.of(productoId, (long) cantidad));
+  }
 
-    estadisticas.setVentasTotales(estadisticas.getVentasTotales() + 1);
-    estadisticas.setCantidadVendida(estadisticas.getCantidadVendida() + cantidad);
-    estadisticas.setUltimaVentaAt(Instant.now());
+  /**
+   * Registra las ventas de varios items acumulando en memoria por producto:
+   * un único upsert por producto en lugar de uno por item.
+   * Cada item cuenta como una venta, igual que en registrarVenta.
+   */
+  public void registrarVentas(Collection<ProductoCompradoEvent.ItemComprado> items) {
+    Map<UUID, long[]> acumulado = new LinkedHashMap<>();
+    for (ProductoCompradoEvent.ItemComprado item : items) {
+      long[] totales = acumulado.computeIfAbsent(item.productoId(), id -> new long[2]);
+      totales[0]++;
+      totales[1] += item.cantidad();
+    }
 
-    estadisticasRepository.save(estadisticas);
+    Instant ahora = Instant.now();
+    acumulado.forEach((productoId, totales) -> estadisticasRepository.incrementarVentas(productoId, totales[0],
+        totales[1], ahora));
+    actualizarRanking(acumulado, ahora);
+    Map<UUID, Long> unidades = new LinkedHashMap<>();
+    acumulado.forEach((productoId, totales) -> unidades.put(productoId, totales[1]));
+    registrarEnVentanas(unidades);
   }
 
   public void registrarAgregadoAlCarrito(UUID productoId) {
-    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId)
-        .orElse(new ProductoEstadisticas(productoId, 0, 0, 0, null, null));
-
-    estadisticas.setVecesAgregadoAlCarrito(estadisticas.getVecesAgregadoAlCarrito() + 1);
-    estadisticas.setUltimaAgregadoAlCarritoAt(Instant.now());
-
-    estadisticasRepository.save(estadisticas);
+    estadisticasRepository.incrementarAgregadoAlCarrito(productoId, 1, Instant.now());
+    despuesDelCommit(() -> popularidadCarrito.registrar(productoId));
   }
 
+  /**
+   * Responde desde el ranking en memoria si está activo y cubre el
+   * {@code limit}; si no, con la consulta top-K de la BD.
+   */
   public List<ProductoEstadisticas> obtenerMasVendidos(int limit) {
+    RankingMasVendidos ranking = rankingMasVendidos.getIfAvailable();
+    if (ranking != null) {
+      Optional<List<ProductoEstadisticas>> enMemoria = ranking.masVendidos(limit);
+      if (enMemoria.isPresent()) {
+        return enMemoria.get();
+      }
+    }
     return estadisticasRepository.findMasVendidos(limit);
   }
 
@@ -48,4 +87,49 @@ public class ProductoEstadisticasService {
         .orElseThrow(
             () -> new ResourceNotFoundException("Estatisticas no encontradas para el producto: " + productoId));
   }
+
+  /**
+   * Los {@code limit} productos con más unidades vendidas dentro de la
+   * ventana, calculados en memoria.
+   */
+  public List<VentasPorVentana.VentasEnVentana> obtenerMasVendidos(VentanaVentas ventana, int limit) {
+    return ventasPorVentana.masVendidos(ventana, limit);
+  }
+
+  /**
+   * Ranking aproximado de los más agregados al carrito, desde memoria.
+   */
+  public List<PopularidadCarrito.ProductoPopular> obtenerMasAgregados(int limit) {
+    return popularidadCarrito.masAgregados(limit);
+  }
+
+  /**
+   * Pasa al ranking los incrementos {ventas, unidades} del upsert una vez
+   * confirmada la transacción, para que no refleje ventas que terminen en
+   * rollback.
+   */
+  private void actualizarRanking(Map<UUID, long[]> incrementos, Instant ventaAt) {
+    RankingMasVendidos ranking = rankingMasVendidos.getIfAvailable();
+    if (ranking != null) {
+      despuesDelCommit(() -> ranking.actualizar(incrementos, ventaAt));
+    }
+  }
+
+  private void registrarEnVentanas(Map<UUID, Long> unidades) {
+    despuesDelCommit(() -> unidades.forEach((productoId, cantidad) -> ventasPorVentana.registrar(productoId,
+        Math.toIntExact(cantidad))));
+  }
+
+  private static void despuesDelCommit(Runnable accion) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      accion.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        accion.run();
+      }
+    });
+  }
 }
@@ -0,0 +1,188 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
+import com.rabbitmq.client.Channel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Acumulador write-behind de "agregado al carrito".
+ *
+ * El listener sólo suma en un LongAdder por producto (sin contención entre
+ * hilos) y deja pendiente el mensaje sin confirmar. Cada
+ * {@code catalogo.estadisticas.write-behind.flush-interval} ms se vuelca todo
+ * en una transacción: un upsert multi-fila de los incrementos y el registro
+ * en el Inbox de los eventos incluidos. Sólo tras el commit se confirman
+ * (ack) los mensajes; si el volcado falla se devuelven a la cola (nack).
+ *
+ * Así un reinicio no pierde incrementos (los mensajes sin ack se reentregan)
+ * ni los cuenta dos veces (los ya volcados están en el Inbox). El prefetch del
+ * contenedor limita cuántos mensajes quedan pendientes entre volcados.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "catalogo.estadisticas.write-behind.enabled", havingValue = "true")
+public class ProductoEstadisticasWriteBehind {
+
+  private record Pendiente(UUID eventId, UUID productoId, Channel channel, long deliveryTag) {
+  }
+
+  /** Incrementos y mensajes acumulados desde el último volcado. */
+  private static final class Generacion {
+    final Map<UUID, LongAdder> incrementos = new ConcurrentHashMap<>();
+    final Map<UUID, Boolean> eventos = new ConcurrentHashMap<>();
+    final ConcurrentLinkedQueue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+    final ConcurrentLinkedQueue<Pendiente> repetidos = new ConcurrentLinkedQueue<>();
+  }
+
+  private final ProductoEstadisticasJpaRepository estadisticasRepository;
+  private final InboxIdempotencyFilter inboxFilter;
+  private final PopularidadCarrito popularidadCarrito;
+  private final TransactionTemplate transactionTemplate;
+
+  // El bloqueo sólo separa el cambio de generación de los registros en curso;
+  // los registros comparten el bloqueo de lectura entre sí
+  private final ReadWriteLock generacionLock = new ReentrantReadWriteLock();
+  private volatile Generacion actual = new Generacion();
+
+  private final Counter eventosCounter;
+  private final Counter filasCounter;
+
+  public ProductoEstadisticasWriteBehind(ProductoEstadisticasJpaRepository estadisticasRepository,
+      InboxIdempotencyFilter inboxFilter,
+      PopularidadCarrito popularidadCarrito,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.estadisticasRepository = estadisticasRepository;
+    this.inboxFilter = inboxFilter;
+    this.popularidadCarrito = popularidadCarrito;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventosCounter = Counter.builder("catalogo.estadisticas.write-behind.events")
+        .description("Eventos de agregado al carrito volcados a la BD")
+        .register(meterRegistry);
+    this.filasCounter = Counter.builder("catalogo.estadisticas.write-behind.rows")
+        .description("Productos actualizados por los volcados write-behind")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Acumula un agregado al carrito. El mensaje queda sin confirmar hasta el
+   * siguiente volcado.
+   */
+  public void registrarAgregadoAlCarrito(UUID productoId, UUID eventId, Channel channel, long deliveryTag) {
+    generacionLock.readLock().lock();
+    try {
+      Generacion generacion = actual;
+      Pendiente pendiente = new Pendiente(eventId, productoId, channel, deliveryTag);
+      if (eventId != null && generacion.eventos.putIfAbsent(eventId, Boolean.TRUE) != null) {
+        // Reentrega de un evento aún no volcado: se confirma con el volcado, sin contarlo
+        generacion.repetidos.add(pendiente);
+        return;
+      }
+      generacion.incrementos.computeIfAbsent(productoId, id -> new LongAdder()).increment();
+      generacion.pendientes.add(pendiente);
+    } finally {
+      generacionLock.readLock().unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${catalogo.estadisticas.write-behind.flush-interval:2000}")
+  public synchronized void flush() {
+    Generacion generacion;
+    generacionLock.writeLock().lock();
+    try {
+      generacion = actual;
+      actual = new Generacion();
+    } finally {
+      generacionLock.writeLock().unlock();
+    }
+
+    List<Pendiente> pendientes = new ArrayList<>(generacion.pendientes);
+    if (pendientes.isEmpty() && generacion.repetidos.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<UUID, Long> volcados = transactionTemplate.execute(status -> volcar(generacion, pendientes));
+      confirmar(pendientes, true);
+      confirmar(generacion.repetidos, true);
+      popularidadCarrito.registrar(volcados);
+      eventosCounter.increment(pendientes.size());
+      filasCounter.increment(volcados.size());
+      log.debug("Write-behind: {} eventos volcados en {} productos", pendientes.size(), volcados.size());
+    } catch (RuntimeException e) {
+      log.error("Write-behind: error al volcar {} eventos, se devuelven a la cola: {}",
+          pendientes.size(), e.getMessage());
+      confirmar(pendientes, false);
+      confirmar(generacion.repetidos, false);
+    }
+  }
+
+  private Map<UUID, Long> volcar(Generacion generacion, List<Pendiente> pendientes) {
+    Map<UUID, Long> incrementos = new HashMap<>();
+    generacion.incrementos.forEach((productoId, adder) -> incrementos.put(productoId, adder.sum()));
+
+    // Eventos ya registrados en el Inbox (otra réplica, un replay): el INSERT
+    // IGNORE de registerAll los descarta sin fallar; no se cuentan y se
+    // confirman con el resto de la generación
+    Set<UUID> nuevos = inboxFilter.registerAll(pendientes.stream()
+        .map(Pendiente::eventId)
+        .filter(eventId -> eventId != null)
+        .toList());
+    for (Pendiente pendiente : pendientes) {
+      if (pendiente.eventId() != null && !nuevos.contains(pendiente.eventId())) {
+        incrementos.merge(pendiente.productoId(), -1L, Long::sum);
+      }
+    }
+    incrementos.values().removeIf(veces -> veces <= 0);
+
+    if (!incrementos.isEmpty()) {
+      estadisticasRepository.incrementarAgregadosAlCarrito(incrementos, Instant.now());
+    }
+    return incrementos;
+  }
+
+  private void confirmar(Iterable<Pendiente> pendientes, boolean ack) {
+    for (Pendiente pendiente : pendientes) {
+      try {
+        if (ack) {
+          pendiente.channel().basicAck(pendiente.deliveryTag(), false);
+        } else {
+          pendiente.channel().basicNack(pendiente.deliveryTag(), false, true);
+        }
+      } catch (IOException | RuntimeException e) {
+        // Canal cerrado: el broker reentregará el mensaje y el Inbox lo deduplica
+        log.warn("Write-behind: no se pudo confirmar deliveryTag={}: {}", pendiente.deliveryTag(), e.getMessage());
+      }
+    }
+  }
+
+  @PreDestroy
+  void flushOnShutdown() {
+    flush();
+  }
+}
@@ -0,0 +1,268 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoRequest;
+import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
+import com.chefsitos.uamishop.catalogo.domain.valueObject.CategoriaId;
+import com.chefsitos.uamishop.catalogo.repository.CategoriaJpaRepository;
+import com.chefsitos.uamishop.shared.domain.valueObject.Money;
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON.
+ *
+ * La entrada se lee registro a registro; cada uno se valida con las mismas
+ * reglas que el alta individual (Bean Validation de ProductoRequest y
+ * Producto.crear) y con la categoría, cuya existencia se consulta una sola vez
+ * por importación. Los productos válidos se insertan en bloques de
+ * {@code catalogo.import.chunk-size}, cada uno en su transacción con
+ * persist + flush + clear, de modo que Hibernate agrupa los INSERT en lotes
+ * JDBC (hibernate.jdbc.batch_size, order_inserts) y la memoria no crece con
+ * el tamaño del fichero. Cada bloque confirmado se añade al índice de
+ * búsqueda.
+ *
+ * El informe se escribe en NDJSON mientras avanza: una línea por registro
+ * rechazado y una línea final de resumen.
+ */
+@Slf4j
+@Service
+public class ProductoImportService {
+
+  /** Formatos de entrada aceptados. */
+  public enum Formato {
+    CSV, NDJSON
+  }
+
+  /** Registro rechazado: línea de la entrada y motivo. */
+  public record ErrorImportacion(long linea, String error) {
+  }
+
+  /** Resumen final de la importación. */
+  public record ResumenImportacion(long leidos, long importados, long rechazados) {
+  }
+
+  private record Fila(long linea, Producto producto) {
+  }
+
+  static final List<String> COLUMNAS_CSV = List.of(
+      "nombreProducto", "descripcion", "precio", "moneda", "idCategoria", "urlImagen");
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final CategoriaJpaRepository categoriaRepository;
+  private final IndiceProductos indiceProductos;
+  private final Validator validator;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectReader lectorNdjson;
+  private final ObjectWriter escritorInforme;
+  private final int chunkSize;
+
+  public ProductoImportService(CategoriaJpaRepository categoriaRepository,
+      IndiceProductos indiceProductos,
+      Validator validator,
+      PlatformTransactionManager transactionManager,
+      JsonMapper jsonMapper,
+      @Value("${catalogo.import.chunk-size:500}") int chunkSize) {
+    this.categoriaRepository = categoriaRepository;
+    this.indiceProductos = indiceProductos;
+    this.validator = validator;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.lectorNdjson = jsonMapper.readerFor(ProductoRequest.class);
+    this.escritorInforme = jsonMapper.writer();
+    this.chunkSize = chunkSize;
+  }
+
+  public ResumenImportacion importar(InputStream entrada, Formato formato, OutputStream informe) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+    Importacion importacion = new Importacion(informe);
+    if (formato == Formato.CSV) {
+      leerCsv(reader, importacion);
+    } else {
+      leerNdjson(reader, importacion);
+    }
+    importacion.insertarPendientes();
+
+    ResumenImportacion resumen = new ResumenImportacion(importacion.leidos, importacion.importados,
+        importacion.rechazados);
+    escribir(informe, resumen);
+    informe.flush();
+    log.info("Importación de productos ({}): {}", formato, resumen);
+    return resumen;
+  }
+
+  private void leerCsv(BufferedReader reader, Importacion importacion) throws IOException {
+    CsvRecordReader csv = new CsvRecordReader(reader);
+    List<String> cabecera = csv.leer();
+    if (cabecera == null) {
+      return;
+    }
+    Map<String, Integer> posiciones = new HashMap<>();
+    for (int i = 0; i < cabecera.size(); i++) {
+      posiciones.put(cabecera.get(i).strip(), i);
+    }
+    Set<String> faltantes = COLUMNAS_CSV.stream()
+        .filter(columna -> !"urlImagen".equals(columna) && !posiciones.containsKey(columna))
+        .collect(Collectors.toSet());
+    if (!faltantes.isEmpty()) {
+      throw new BadRequestException("Faltan columnas en la cabecera CSV: " + faltantes);
+    }
+
+    List<String> campos;
+    while ((campos = csv.leer()) != null) {
+      long linea = csv.linea();
+      importacion.leidos++;
+      try {
+        importacion.procesar(linea, new ProductoRequest(
+            campo(campos, posiciones, "nombreProducto"),
+            campo(campos, posiciones, "descripcion"),
+            decimal(campo(campos, posiciones, "precio")),
+            campo(campos, posiciones, "moneda"),
+            campo(campos, posiciones, "idCategoria"),
+            campo(campos, posiciones, "urlImagen")));
+      } catch (NumberFormatException e) {
+        importacion.rechazar(linea, "Precio no numérico");
+      }
+    }
+  }
+
+  private void leerNdjson(BufferedReader reader, Importacion importacion) throws IOException {
+    String texto;
+    long linea = 0;
+    while ((texto = reader.readLine()) != null) {
+      linea++;
+      if (texto.isBlank()) {
+        continue;
+      }
+      importacion.leidos++;
+      try {
+        importacion.procesar(linea, lectorNdjson.readValue(texto));
+      } catch (JacksonException e) {
+        importacion.rechazar(linea, "JSON inválido: " + e.getOriginalMessage());
+      }
+    }
+  }
+
+  private static String campo(List<String> campos, Map<String, Integer> posiciones, String columna) {
+    Integer posicion = posiciones.get(columna);
+    if (posicion == null || posicion >= campos.size()) {
+      return null;
+    }
+    String valor = campos.get(posicion).strip();
+    return valor.isEmpty() ? null : valor;
+  }
+
+  private static BigDecimal decimal(String valor) {
+    return valor == null ? null : new BigDecimal(valor);
+  }
+
+  private void escribir(OutputStream informe, Object linea) throws IOException {
+    informe.write(escritorInforme.writeValueAsBytes(linea));
+    informe.write('\n');
+  }
+
+  /** Estado de una importación en curso. */
+  private final class Importacion {
+    final OutputStream informe;
+    final Map<CategoriaId, Boolean> categorias = new HashMap<>();
+    final List<Fila> pendientes = new ArrayList<>(chunkSize);
+    long leidos;
+    long importados;
+    long rechazados;
+
+    Importacion(OutputStream informe) {
+      this.informe = informe;
+    }
+
+    void procesar(long linea, ProductoRequest request) throws IOException {
+      Set<ConstraintViolation<ProductoRequest>> violaciones = validator.validate(request);
+      if (!violaciones.isEmpty()) {
+        rechazar(linea, violaciones.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; ")));
+        return;
+      }
+
+      CategoriaId categoriaId = CategoriaId.of(request.idCategoria());
+      if (!categorias.computeIfAbsent(categoriaId, categoriaRepository::existsById)) {
+        rechazar(linea, "Categoria no encontrada con ID: " + request.idCategoria());
+        return;
+      }
+
+      try {
+        Producto producto = Producto.crear(
+            request.nombreProducto(),
+            request.descripcion(),
+            new Money(request.precio(), request.moneda()),
+            categoriaId,
+            request.urlImagen());
+        pendientes.add(new Fila(linea, producto));
+      } catch (RuntimeException e) {
+        // Reglas de negocio de Producto y Money (BusinessRuleException, etc.)
+        rechazar(linea, e.getMessage());
+        return;
+      }
+
+      if (pendientes.size() >= chunkSize) {
+        insertarPendientes();
+      }
+    }
+
+    void rechazar(long linea, String error) throws IOException {
+      rechazados++;
+      escribir(informe, new ErrorImportacion(linea, error));
+    }
+
+    void insertarPendientes() throws IOException {
+      if (pendientes.isEmpty()) {
+        return;
+      }
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          pendientes.forEach(fila -> entityManager.persist(fila.producto()));
+          entityManager.flush();
+          entityManager.clear();
+        });
+        importados += pendientes.size();
+        indiceProductos.indexar(pendientes.stream().map(Fila::producto).toList());
+      } catch (RuntimeException e) {
+        log.warn("Importación de productos: bloque de {} filas rechazado: {}", pendientes.size(), e.getMessage());
+        for (Fila fila : pendientes) {
+          rechazados++;
+          escribir(informe, new ErrorImportacion(fila.linea(), "Error al insertar el bloque: " + e.getMessage()));
+        }
+      }
+      pendientes.clear();
+      informe.flush();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
+
+import tools.jackson.databind.ObjectWriter;
+
+/**
+ * ProductoResponse ya serializado a JSON (UTF-8), listo para escribirse tal
+ * cual en la respuesta, con su versión para los ETag de cada codificación.
+ *
+ * {@code gzip} es el mismo JSON comprimido, o null cuando comprimirlo no lo
+ * hace más pequeño (respuestas cortas).
+ */
+public record ProductoSerializado(byte[] json, byte[] gzip, long version) {
+
+  public static ProductoSerializado de(ProductoResponse respuesta, long version, ObjectWriter writer) {
+    byte[] json = writer.writeValueAsBytes(respuesta);
+    byte[] gzip = comprimir(json);
+    return new ProductoSerializado(json, gzip.length < json.length ? gzip : null, version);
+  }
+
+  public String etag() {
+    return Versionado.etag(version);
+  }
+
+  /**
+   * ETag del cuerpo gzip: es otra representación (otros bytes) de la misma
+   * versión, así que no puede compartir el ETag fuerte del JSON.
+   */
+  public String etagGzip() {
+    return "\"" + version + "-gz\"";
+  }
+
+  private static byte[] comprimir(byte[] datos) {
+    ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 2 + 32);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+      gzip.write(datos);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return salida.toByteArray();
+  }
+}
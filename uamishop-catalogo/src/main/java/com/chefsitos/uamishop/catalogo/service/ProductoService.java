@@ -1,29 +1,75 @@
 package com.chefsitos.uamishop.catalogo.service;
 
+import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaArbolResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaResponse;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPaginaResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoRequest;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
 import com.chefsitos.uamishop.catalogo.domain.aggregate.Producto;
 import com.chefsitos.uamishop.catalogo.domain.entity.Categoria;
 import com.chefsitos.uamishop.catalogo.domain.valueObject.CategoriaId;
 import com.chefsitos.uamishop.catalogo.repository.CategoriaJpaRepository;
 import com.chefsitos.uamishop.catalogo.repository.ProductoJpaRepository;
+import com.chefsitos.uamishop.catalogo.repository.ProductoSpecifications;
 import com.chefsitos.uamishop.shared.domain.valueObject.Money;
 import com.chefsitos.uamishop.shared.domain.valueObject.ProductoId;
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+import com.chefsitos.uamishop.shared.exception.BusinessRuleException;
 import com.chefsitos.uamishop.shared.exception.ResourceNotFoundException;
 import lombok.AllArgsConstructor;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class ProductoService {
 
+  /**
+   * Caché de ProductoResponse por id (spring.cache.caffeine.spec: tamaño y TTL
+   * acotados) para la búsqueda de texto, que la lee y la llena con
+   * ProductoBusquedaService. Se invalida en cada método que modifica el
+   * producto.
+   */
+  public static final String CACHE_PRODUCTOS = "productos";
+
+  /**
+   * Caché de la respuesta de GET /productos/{id} ya serializada
+   * (ProductoSerializado); se invalida junto con CACHE_PRODUCTOS. Las
+   * peticiones condicionales la revalidan contra la versión en BD
+   * (buscarVersion); las demás la usan hasta que expira.
+   */
+  public static final String CACHE_PRODUCTOS_JSON = "productos-json";
+
+  private static final int TAMANO_MAXIMO_PAGINA = 100;
+  private static final int FLUSH_EXPORTACION = 500;
+
   private final ProductoJpaRepository productoRepository;
   private final CategoriaJpaRepository categoriaRepository;
+  private final JsonMapper jsonMapper;
+  private final CategoriasEnMemoria categoriasEnMemoria;
+  private final IndiceProductos indiceProductos;
 
   public Producto crear(ProductoRequest request) {
     Categoria categoria = categoriaRepository.findById(CategoriaId.of(request.idCategoria()))
@@ -37,7 +83,9 @@ public class ProductoService {
       request.urlImagen()
     );
 
-    return productoRepository.save(nuevoProducto);
+    nuevoProducto = productoRepository.save(nuevoProducto);
+    indiceProductos.indexar(nuevoProducto);
+    return nuevoProducto;
   }
 
   public Producto buscarPorId(UUID id) {
@@ -47,9 +95,138 @@ public class ProductoService {
     return producto;
   }
 
+  /**
+   * Respuesta de GET /productos/{id} ya serializada a JSON y gzip, servida
+   * desde la caché para no mapear ni serializar en cada lectura.
+   */
+  @Cacheable(cacheNames = CACHE_PRODUCTOS_JSON, key = "#id")
+  @Transactional(readOnly = true)
+  public ProductoSerializado buscarSerializadoPorId(UUID id) {
+    return serializar(buscarPorId(id));
+  }
+
+  /**
+   * Como buscarSerializadoPorId, pero siempre desde la BD y reemplazando la
+   * entrada de la caché; para cuando la entrada quedó por detrás de una
+   * escritura de otra réplica.
+   */
+  @CachePut(cacheNames = CACHE_PRODUCTOS_JSON, key = "#id")
+  @Transactional(readOnly = true)
+  public ProductoSerializado recargarSerializadoPorId(UUID id) {
+    return serializar(buscarPorId(id));
+  }
+
+  /**
+   * Versión actual del producto en la BD, leída sin cargar la entidad.
+   */
+  public long buscarVersion(UUID id) {
+    return productoRepository.findVersionById(id)
+      .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+  }
+
+  /**
+   * Productos con los ids indicados, en el orden pedido y sin repetidos; los
+   * que no existen se omiten. Se resuelven con un único
+   * {@code WHERE id IN (...)}.
+   */
+  @Transactional(readOnly = true)
+  public List<ProductoResponse> buscarPorIds(Collection<UUID> ids) {
+    Set<UUID> distintos = new LinkedHashSet<>(ids);
+    Map<UUID, ProductoResponse> encontrados = new HashMap<>();
+    productoRepository.findAllById(distintos.stream().map(id -> ProductoId.of(id.toString())).toList())
+      .forEach(producto -> encontrados.put(producto.getProductoId().valor(), ProductoResponse.from(producto)));
+    return distintos.stream()
+      .map(encontrados::get)
+      .filter(Objects::nonNull)
+      .toList();
+  }
+
   public List<Producto> buscarTodos() {
     return productoRepository.findAll();
   }
+  /**
+   * Página del listado con paginación por keyset sobre (fechaCreacion, id):
+   * cada página continúa tras el cursor de la anterior, así que una página
+   * profunda cuesta lo mismo que la primera. Se pide un producto de más para
+   * saber si hay siguiente página sin contar el total.
+   */
+  @Transactional(readOnly = true)
+  public ProductoPaginaResponse buscarPagina(String cursor, int size, UUID categoriaId, Boolean disponible,
+                                             BigDecimal precioMin, BigDecimal precioMax) {
+    return paginar(cursor, size, ProductoSpecifications.deCategoria(categoriaId), disponible, precioMin, precioMax);
+  }
+
+  /**
+   * Como buscarPagina, pero con los productos de la categoría y de todas sus
+   * subcategorías. Los descendientes salen del árbol en memoria, así que la
+   * consulta es un único {@code categoria_id IN (...)} sin SQL recursivo.
+   */
+  @Transactional(readOnly = true)
+  public ProductoPaginaResponse buscarPaginaDeSubarbol(UUID categoriaId, String cursor, int size, Boolean disponible,
+                                                       BigDecimal precioMin, BigDecimal precioMax) {
+    Set<UUID> categorias = categoriasEnMemoria.arbolCon(categoriaId).descendientes(categoriaId);
+    if (categorias.isEmpty()) {
+      throw new ResourceNotFoundException("Categoria no encontrada con ID: " + categoriaId);
+    }
+    return paginar(cursor, size, ProductoSpecifications.enCategorias(categorias), disponible, precioMin, precioMax);
+  }
+
+  private ProductoPaginaResponse paginar(String cursor, int size, Specification<Producto> categorias,
+                                         Boolean disponible, BigDecimal precioMin, BigDecimal precioMax) {
+    if (size < 1 || size > TAMANO_MAXIMO_PAGINA) {
+      throw new BadRequestException("size debe estar entre 1 y " + TAMANO_MAXIMO_PAGINA);
+    }
+    if (precioMin != null && precioMax != null && precioMin.compareTo(precioMax) > 0) {
+      throw new BadRequestException("precioMin no puede ser mayor que precioMax");
+    }
+    ProductoCursor desde = cursor != null && !cursor.isBlank() ? ProductoCursor.decodificar(cursor) : null;
+
+    Specification<Producto> filtro = Specification.allOf(
+      categorias,
+      ProductoSpecifications.disponible(disponible),
+      ProductoSpecifications.precioEntre(precioMin, precioMax),
+      desde != null
+        ? ProductoSpecifications.despuesDe(desde.fechaCreacion(), desde.id())
+        : Specification.unrestricted());
+
+    List<Producto> productos = productoRepository.findBy(filtro, query -> query
+      .sortBy(ProductoSpecifications.ORDEN_KEYSET)
+      .limit(size + 1)
+      .all());
+
+    boolean hayMas = productos.size() > size;
+    List<Producto> pagina = hayMas ? productos.subList(0, size) : productos;
+    String siguiente = hayMas ? ProductoCursor.de(pagina.get(pagina.size() - 1)).codificar() : null;
+    return new ProductoPaginaResponse(pagina.stream().map(ProductoResponse::from).toList(), siguiente);
+  }
+
+  /**
+   * Escribe el catálogo (o lo modificado desde {@code actualizadoDesde}) en
+   * NDJSON: un ProductoResponse por línea, leído con un cursor forward-only y
+   * escrito conforme llega, así que la memoria no depende del tamaño del
+   * catálogo.
+   *
+   * @return productos exportados
+   */
+  @Transactional(readOnly = true)
+  public long exportar(OutputStream salida, LocalDateTime actualizadoDesde) throws IOException {
+    ObjectWriter writer = jsonMapper.writerFor(ProductoResponse.class);
+    long exportados = 0;
+    try (Stream<ProductoResponse> productos = productoRepository.streamParaExportar(actualizadoDesde)) {
+      Iterator<ProductoResponse> it = productos.iterator();
+      while (it.hasNext()) {
+        salida.write(writer.writeValueAsBytes(it.next()));
+        salida.write('\n');
+        if (++exportados % FLUSH_EXPORTACION == 0) {
+          salida.flush();
+        }
+      }
+    }
+    salida.flush();
+    return exportados;
+  }
+
+  @CacheEvict(cacheNames = { CACHE_PRODUCTOS, CACHE_PRODUCTOS_JSON }, key = "#id")
   public Producto actualizar(UUID id, String nombreProducto, String descripcion, BigDecimal precio,
                              String moneda, String idCategoria, String urlImagen, Boolean disponible) {
 
@@ -96,9 +273,12 @@ public class ProductoService {
     }
 
     // 7. Persistir cambios
-    return productoRepository.save(producto);
+    producto = productoRepository.save(producto);
+    indiceProductos.indexar(producto);
+    return producto;
   }
 
+  @CacheEvict(cacheNames = { CACHE_PRODUCTOS, CACHE_PRODUCTOS_JSON }, key = "#id")
   public Producto actualizarUrlImagen(UUID id, String urlImagen) {
 
     Producto producto = productoRepository.findById(ProductoId.of(id.toString()))
@@ -109,6 +289,7 @@ public class ProductoService {
     return productoRepository.save(producto);
   }
 
+  @CacheEvict(cacheNames = { CACHE_PRODUCTOS, CACHE_PRODUCTOS_JSON }, key = "#id")
   public Producto activar(UUID id) {
     Producto producto = productoRepository.findById(ProductoId.of(id.toString()))
       .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
@@ -116,6 +297,7 @@ public class ProductoService {
     return productoRepository.save(producto);
   }
 
+  @CacheEvict(cacheNames = { CACHE_PRODUCTOS, CACHE_PRODUCTOS_JSON }, key = "#id")
   public Producto desactivar(UUID id) {
     Producto producto = productoRepository.findById(ProductoId.of(id.toString()))
       .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
@@ -137,6 +319,7 @@ public class ProductoService {
     }
 
     nuevaCategoria = categoriaRepository.save(nuevaCategoria);
+    categoriasEnMemoria.aplicar(nuevaCategoria);
 
     return new CategoriaResponse(
       nuevaCategoria.getCategoriaId().valor(),
@@ -145,15 +328,16 @@ public class ProductoService {
       nuevaCategoria.getCategoriaPadreId() != null ? nuevaCategoria.getCategoriaPadreId().valor() : null);
   }
 
-  public CategoriaResponse buscarCategoriaPorId(UUID id) {
+  public Versionado<CategoriaResponse> buscarCategoriaPorId(UUID id) {
     Categoria categoria = categoriaRepository.findById(CategoriaId.of(id + ""))
       .orElseThrow(() -> new ResourceNotFoundException("Categoria no encontrada con ID: " + id));
 
-    return new CategoriaResponse(
+    return new Versionado<>(new CategoriaResponse(
       categoria.getCategoriaId().valor(),
       categoria.getNombre(),
       categoria.getDescripcion(),
-      categoria.getCategoriaPadreId() != null ? categoria.getCategoriaPadreId().valor() : null);
+      categoria.getCategoriaPadreId() != null ? categoria.getCategoriaPadreId().valor() : null),
+      categoria.getVersion());
   }
 
   public List<CategoriaResponse> buscarTodasCategorias() {
@@ -172,12 +356,24 @@ public class ProductoService {
     categoria.actualizar(request.nombreCategoria(), request.descripcion());
 
     if (request.categoriaPadreId() != null) {
-      categoria.asignarPadre(CategoriaId.of(request.categoriaPadreId().toString()));
+      UUID padreId = request.categoriaPadreId();
+      if (!padreId.equals(id)) {
+        ArbolCategorias arbol = categoriasEnMemoria.arbolCon(padreId);
+        if (!arbol.contiene(padreId)) {
+          throw new ResourceNotFoundException("Categoría padre no encontrada con ID: " + padreId);
+        }
+        // RN-CAT-17
+        if (arbol.formariaCiclo(id, padreId)) {
+          throw new BusinessRuleException("La categoría padre no puede ser una subcategoría de la categoría actual");
+        }
+      }
+      categoria.asignarPadre(CategoriaId.of(padreId.toString()));
     } else {
       categoria.asignarPadre(null);
     }
 
     categoria = categoriaRepository.save(categoria);
+    categoriasEnMemoria.aplicar(categoria);
 
     return new CategoriaResponse(
       categoria.getCategoriaId().valor(),
@@ -186,4 +382,20 @@ public class ProductoService {
       categoria.getCategoriaPadreId() != null ? categoria.getCategoriaPadreId().valor() : null);
   }
 
+  /**
+   * Categoría con su ruta de ancestros y su subárbol, servidos desde el árbol
+   * en memoria.
+   */
+  public CategoriaArbolResponse buscarArbolCategoria(UUID id) {
+    ArbolCategorias arbol = categoriasEnMemoria.arbolCon(id);
+    return arbol.nodo(id)
+      .map(nodo -> CategoriaArbolResponse.from(arbol, nodo))
+      .orElseThrow(() -> new ResourceNotFoundException("Categoria no encontrada con ID: " + id));
+  }
+
+
+  private ProductoSerializado serializar(Producto producto) {
+    return ProductoSerializado.de(ProductoResponse.from(producto), producto.getVersion(),
+      jsonMapper.writerFor(ProductoResponse.class));
+  }
 }
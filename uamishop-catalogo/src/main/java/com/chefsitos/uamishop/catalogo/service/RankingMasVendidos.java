@@ -0,0 +1,198 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ranking en memoria de los {@code catalogo.estadisticas.ranking.capacity}
+ * productos más vendidos, para responder /productos/mas-vendidos en O(K) sin
+ * consultar la BD.
+ *
+ * Se carga desde la BD al arrancar y ProductoEstadisticasService le pasa,
+ * tras el commit, los incrementos de cada producto que ya conoce por el
+ * upsert; se aplican en memoria sin volver a la BD. La recarga periódica de
+ * {@code catalogo.estadisticas.ranking.refresh-interval} ms incorpora las
+ * ventas de otras réplicas (o escritas fuera del servicio).
+ *
+ * Para los productos fuera del ranking se guarda una cota superior de sus
+ * unidades: el umbral (el mayor valor fuera del ranking en la última
+ * recarga) más lo que han vendido desde entonces. Sólo cuando la
+ * cota supera al mínimo actual se lee su total de la BD para decidir si
+ * entra desalojando al mínimo.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "catalogo.estadisticas.ranking.enabled", havingValue = "true")
+public class RankingMasVendidos {
+
+  /** Cotas guardadas como máximo, en múltiplos de la capacidad del ranking. */
+  private static final int COTAS_POR_CAPACIDAD = 10;
+
+  private final ProductoEstadisticasJpaRepository estadisticasRepository;
+  private final TopKRanking<ProductoEstadisticas> ranking;
+  private final Map<UUID, Long> cotas = new HashMap<>();
+  private long umbral;
+  private long generacion;
+  private volatile boolean cargado;
+
+  public RankingMasVendidos(ProductoEstadisticasJpaRepository estadisticasRepository,
+      @Value("${catalogo.estadisticas.ranking.capacity:100}") int capacidad) {
+    this.estadisticasRepository = estadisticasRepository;
+    this.ranking = new TopKRanking<>(capacidad);
+  }
+
+  /**
+   * Los {@code limit} más vendidos, o vacío si el ranking aún no está cargado
+   * o no alcanza para responder (limit mayor que la capacidad).
+   */
+  public synchronized Optional<List<ProductoEstadisticas>> masVendidos(int limit) {
+    if (!cargado || limit > ranking.capacidad()) {
+      return Optional.empty();
+    }
+    return Optional.of(ranking.primeros(limit));
+  }
+
+  /**
+   * Suma al ranking los incrementos {ventas, unidades} por producto de un
+   * upsert ya confirmado.
+   *
+   * Un producto ya presente suma el incremento a su valor. Uno ausente entra
+   * directamente si el ranking tiene hueco: entonces la última recarga trajo
+   * todas las filas y el producto no tenía ventas, así que el incremento es
+   * su valor. Con el ranking lleno se suma a su cota y, si ésta supera al
+   * mínimo, se lee su total de la BD fuera del bloqueo y se le ofrece al
+   * ranking. Si entra, los incrementos confirmados mientras se leía pueden
+   * faltar en su valor hasta la siguiente recarga.
+   */
+  public void actualizar(Map<UUID, long[]> incrementos, Instant ventaAt) {
+    Map<UUID, Long> candidatos;
+    long leidaEn;
+    synchronized (this) {
+      if (!cargado) {
+        return;
+      }
+      candidatos = aplicar(incrementos, ventaAt);
+      leidaEn = generacion;
+    }
+    if (candidatos.isEmpty()) {
+      return;
+    }
+
+    List<ProductoEstadisticas> totales = estadisticasRepository.findAllById(candidatos.keySet());
+    synchronized (this) {
+      // Una recarga intermedia ya trajo totales más recientes
+      if (generacion == leidaEn) {
+        totales.forEach(total -> admitir(total, candidatos.get(total.getProductoId())));
+      }
+    }
+  }
+
+  /**
+   * Aplica los incrementos en memoria.
+   *
+   * @return productos fuera del ranking cuya cota supera al mínimo, con esa
+   *         cota
+   */
+  private Map<UUID, Long> aplicar(Map<UUID, long[]> incrementos, Instant ventaAt) {
+    Map<UUID, Long> candidatos = new HashMap<>();
+    incrementos.forEach((productoId, incremento) -> {
+      ProductoEstadisticas actual = ranking.dato(productoId);
+      if (actual != null) {
+        ranking.ofrecer(productoId, actual.getCantidadVendida() + incremento[1], new ProductoEstadisticas(productoId,
+            actual.getVentasTotales() + incremento[0], actual.getCantidadVendida() + incremento[1],
+            actual.getVecesAgregadoAlCarrito(), ventaAt, actual.getUltimaAgregadoAlCarritoAt()));
+      } else if (ranking.size() < ranking.capacidad()) {
+        ranking.ofrecer(productoId, incremento[1],
+            new ProductoEstadisticas(productoId, incremento[0], incremento[1], 0, ventaAt, null));
+      } else {
+        long cota = cotas.getOrDefault(productoId, umbral) + incremento[1];
+        cotas.put(productoId, cota);
+        if (cota > ranking.minimo()) {
+          candidatos.put(productoId, cota);
+        }
+      }
+    });
+    if (cotas.size() > ranking.capacidad() * COTAS_POR_CAPACIDAD) {
+      descartarCotasBajas();
+    }
+    return candidatos;
+  }
+
+  /**
+   * Ofrece al ranking el total leído de la BD. Si entra, el desalojado sale
+   * con el mínimo anterior, que pasa a ser el umbral; si no, su total (más lo
+   * sumado a la cota mientras se leía) es su nueva cota.
+   */
+  private void admitir(ProductoEstadisticas total, long cotaAlLeer) {
+    UUID productoId = total.getProductoId();
+    if (ranking.dato(productoId) != null) {
+      // Otro hilo ya lo admitió y le siguió sumando incrementos
+      return;
+    }
+    long sumadoDespues = Math.max(0, cotas.getOrDefault(productoId, cotaAlLeer) - cotaAlLeer);
+    long minimo = ranking.minimo();
+    if (ranking.ofrecer(productoId, total.getCantidadVendida(), total)) {
+      cotas.remove(productoId);
+      umbral = Math.max(umbral, minimo);
+    } else {
+      cotas.put(productoId, total.getCantidadVendida() + sumadoDespues);
+    }
+  }
+
+  /**
+   * Acota la memoria de las cotas: descarta la mitad más baja y sube el
+   * umbral a la mayor descartada, que sigue acotando a esos productos.
+   */
+  private void descartarCotasBajas() {
+    List<Map.Entry<UUID, Long>> ordenadas = new ArrayList<>(cotas.entrySet());
+    ordenadas.sort(Map.Entry.comparingByValue());
+    List<Map.Entry<UUID, Long>> descartadas = ordenadas.subList(0, ordenadas.size() / 2);
+    umbral = Math.max(umbral, descartadas.get(descartadas.size() - 1).getValue());
+    descartadas.forEach(entrada -> cotas.remove(entrada.getKey()));
+  }
+
+  /**
+   * Reconstruye el ranking desde la BD. Se hace bajo el mismo bloqueo que
+   * actualizar(); una venta confirmada mientras corre la consulta puede
+   * contarse dos veces hasta la siguiente recarga.
+   *
+   * Lee una fila más que la capacidad: su valor es el mayor de los que quedan
+   * fuera y sirve de umbral para todas las cotas, que se reinician.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${catalogo.estadisticas.ranking.refresh-interval:60000}",
+      initialDelayString = "${catalogo.estadisticas.ranking.refresh-interval:60000}")
+  public synchronized void recargar() {
+    try {
+      List<ProductoEstadisticas> top = estadisticasRepository.findMasVendidos(ranking.capacidad() + 1);
+      ranking.limpiar();
+      top.stream().limit(ranking.capacidad()).forEach(estadisticas -> ranking.ofrecer(estadisticas.getProductoId(),
+          estadisticas.getCantidadVendida(), estadisticas));
+      cotas.clear();
+      umbral = top.size() > ranking.capacidad() ? top.get(ranking.capacidad()).getCantidadVendida() : 0;
+      generacion++;
+      cargado = true;
+      log.debug("Ranking de más vendidos recargado: {} productos", ranking.size());
+    } catch (RuntimeException e) {
+      // Se conserva el ranking anterior; si nunca cargó, se consulta la BD
+      log.warn("No se pudo recargar el ranking de más vendidos: {}", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sketch Space-Saving (Metwally et al.) para los elementos más frecuentes de
+ * un flujo con memoria acotada a {@code capacidad} contadores.
+ *
+ * Un elemento nuevo con el sketch lleno reemplaza al de menor cuenta y hereda
+ * esa cuenta como error, así que para cada elemento vigilado
+ * {@code cuenta - error <= real <= cuenta}, y cualquier elemento con
+ * frecuencia real mayor que N/capacidad está garantizado en el sketch.
+ *
+ * Usa la estructura Stream-Summary: los contadores cuelgan de una lista
+ * doblemente enlazada de cubetas ordenadas por cuenta, de modo que sumar 1
+ * sólo mueve el contador a la cubeta siguiente (O(1)) y leer los N primeros
+ * recorre las cubetas desde la mayor (O(N)). Sumar un peso mayor avanza
+ * además por las cubetas que salta. No es thread-safe.
+ */
+final class SpaceSavingSketch {
+
+  /** Estimación de un elemento: la frecuencia real está en [cuenta - error, cuenta]. */
+  record Estimacion(UUID id, long cuenta, long error) {
+  }
+
+  private static final class Cubeta {
+    final long cuenta;
+    final LinkedHashSet<Contador> contadores = new LinkedHashSet<>();
+    Cubeta anterior;
+    Cubeta siguiente;
+
+    Cubeta(long cuenta) {
+      this.cuenta = cuenta;
+    }
+  }
+
+  private static final class Contador {
+    UUID id;
+    long error;
+    Cubeta cubeta;
+
+    Contador(UUID id, long error) {
+      this.id = id;
+      this.error = error;
+    }
+  }
+
+  private final int capacidad;
+  private final Map<UUID, Contador> contadores;
+  // Cubeta de menor cuenta; la de mayor es 'mayor'
+  private Cubeta menor;
+  private Cubeta mayor;
+  private long total;
+
+  SpaceSavingSketch(int capacidad) {
+    if (capacidad <= 0) {
+      throw new IllegalArgumentException("La capacidad del sketch debe ser positiva");
+    }
+    this.capacidad = capacidad;
+    this.contadores = new HashMap<>(capacidad * 2);
+  }
+
+  int capacidad() {
+    return capacidad;
+  }
+
+  int size() {
+    return contadores.size();
+  }
+
+  /** Ocurrencias registradas en total (N). */
+  long total() {
+    return total;
+  }
+
+  /**
+   * Registra una ocurrencia de {@code id}.
+   */
+  void registrar(UUID id) {
+    registrar(id, 1);
+  }
+
+  /**
+   * Registra {@code peso} ocurrencias de {@code id} de una vez. Deja el
+   * sketch igual que {@code peso} llamadas a registrar(id), pero mueve el
+   * contador una sola vez: suma el peso a su cuenta o, con el sketch lleno,
+   * reemplaza al mínimo con cuenta {@code minimo + peso}.
+   */
+  void registrar(UUID id, long peso) {
+    if (peso <= 0) {
+      throw new IllegalArgumentException("El peso debe ser positivo");
+    }
+    total += peso;
+    Contador contador = contadores.get(id);
+    if (contador != null) {
+      incrementar(contador, peso);
+      return;
+    }
+
+    if (contadores.size() < capacidad) {
+      contador = new Contador(id, 0);
+      contadores.put(id, contador);
+      agregar(contador, cubeta(null, peso));
+      return;
+    }
+
+    // Sketch lleno: el nuevo elemento ocupa el contador de menor cuenta
+    contador = menor.contadores.iterator().next();
+    contadores.remove(contador.id);
+    contador.id = id;
+    contador.error = menor.cuenta;
+    contadores.put(id, contador);
+    incrementar(contador, peso);
+  }
+
+  /**
+   * Los {@code limit} elementos de mayor cuenta, de mayor a menor.
+   */
+  List<Estimacion> primeros(int limit) {
+    List<Estimacion> resultado = new ArrayList<>(Math.min(Math.max(limit, 0), contadores.size()));
+    for (Cubeta cubeta = mayor; cubeta != null && resultado.size() < limit; cubeta = cubeta.anterior) {
+      Iterator<Contador> it = cubeta.contadores.iterator();
+      while (it.hasNext() && resultado.size() < limit) {
+        Contador contador = it.next();
+        resultado.add(new Estimacion(contador.id, cubeta.cuenta, contador.error));
+      }
+    }
+    return resultado;
+  }
+
+  private void incrementar(Contador contador, long peso) {
+    Cubeta actual = contador.cubeta;
+    Cubeta destino = cubeta(actual, actual.cuenta + peso);
+    actual.contadores.remove(contador);
+    agregar(contador, destino);
+    if (actual.contadores.isEmpty()) {
+      desenlazar(actual);
+    }
+  }
+
+  /**
+   * La cubeta de {@code cuenta}, creada si no existe, buscándola hacia las
+   * mayores a partir de la siguiente a {@code desde} (desde la menor si es
+   * null).
+   */
+  private Cubeta cubeta(Cubeta desde, long cuenta) {
+    Cubeta siguiente = desde != null ? desde.siguiente : menor;
+    while (siguiente != null && siguiente.cuenta < cuenta) {
+      siguiente = siguiente.siguiente;
+    }
+    if (siguiente != null && siguiente.cuenta == cuenta) {
+      return siguiente;
+    }
+    Cubeta nueva = new Cubeta(cuenta);
+    insertarAntes(nueva, siguiente);
+    return nueva;
+  }
+
+  private void agregar(Contador contador, Cubeta cubeta) {
+    cubeta.contadores.add(contador);
+    contador.cubeta = cubeta;
+  }
+
+  /**
+   * Enlaza {@code nueva} justo antes de {@code siguiente} (al final si es
+   * null).
+   */
+  private void insertarAntes(Cubeta nueva, Cubeta siguiente) {
+    Cubeta anterior = siguiente != null ? siguiente.anterior : mayor;
+    nueva.anterior = anterior;
+    nueva.siguiente = siguiente;
+    if (anterior != null) {
+      anterior.siguiente = nueva;
+    } else {
+      menor = nueva;
+    }
+    if (siguiente != null) {
+      siguiente.anterior = nueva;
+    } else {
+      mayor = nueva;
+    }
+  }
+
+  private void desenlazar(Cubeta cubeta) {
+    if (cubeta.anterior != null) {
+      cubeta.anterior.siguiente = cubeta.siguiente;
+    } else {
+      menor = cubeta.siguiente;
+    }
+    if (cubeta.siguiente != null) {
+      cubeta.siguiente.anterior = cubeta.anterior;
+    } else {
+      mayor = cubeta.anterior;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Los K elementos con mayor valor, para valores que sólo crecen.
+ *
+ * Un TreeSet ordenado por (valor, id) hace de min-heap indexado: el mínimo se
+ * consulta y desaloja en O(log K) y, a diferencia de un PriorityQueue, un
+ * elemento ya presente se actualiza también en O(log K). Leer los N primeros
+ * cuesta O(N).
+ *
+ * Como los valores sólo crecen, un elemento fuera del ranking sólo puede
+ * entrar cuando se le ofrece su nuevo valor, así que basta con ofrecer cada
+ * elemento al actualizarse. No es thread-safe.
+ */
+final class TopKRanking<T> {
+
+  private record Entrada<T>(UUID id, long valor, T dato) {
+  }
+
+  private static final Comparator<Entrada<?>> ORDEN = Comparator
+      .<Entrada<?>>comparingLong(Entrada::valor)
+      .thenComparing(Entrada::id);
+
+  private final int capacidad;
+  private final Map<UUID, Entrada<T>> porId = new HashMap<>();
+  private final TreeSet<Entrada<T>> ordenadas = new TreeSet<>(ORDEN);
+
+  TopKRanking(int capacidad) {
+    if (capacidad <= 0) {
+      throw new IllegalArgumentException("La capacidad del ranking debe ser positiva");
+    }
+    this.capacidad = capacidad;
+  }
+
+  int capacidad() {
+    return capacidad;
+  }
+
+  int size() {
+    return porId.size();
+  }
+
+  /**
+   * Valor del menor elemento del ranking, o 0 si está vacío.
+   */
+  long minimo() {
+    return ordenadas.isEmpty() ? 0 : ordenadas.first().valor();
+  }
+
+  /**
+   * El dato de un elemento si está dentro del ranking, o null.
+   */
+  T dato(UUID id) {
+    Entrada<T> entrada = porId.get(id);
+    return entrada != null ? entrada.dato() : null;
+  }
+
+  /**
+   * Ofrece el valor actual de un elemento: lo actualiza si ya está, lo agrega
+   * si hay hueco o desaloja al mínimo si lo supera.
+   *
+   * @return true si el elemento quedó dentro del ranking
+   */
+  boolean ofrecer(UUID id, long valor, T dato) {
+    Entrada<T> nueva = new Entrada<>(id, valor, dato);
+    Entrada<T> actual = porId.get(id);
+    if (actual != null) {
+      ordenadas.remove(actual);
+    } else if (porId.size() >= capacidad) {
+      Entrada<T> minimo = ordenadas.first();
+      if (ORDEN.compare(nueva, minimo) <= 0) {
+        return false;
+      }
+      ordenadas.pollFirst();
+      porId.remove(minimo.id());
+    }
+    ordenadas.add(nueva);
+    porId.put(id, nueva);
+    return true;
+  }
+
+  /**
+   * Los {@code limit} elementos de mayor valor, de mayor a menor.
+   */
+  List<T> primeros(int limit) {
+    List<T> resultado = new ArrayList<>(Math.min(Math.max(limit, 0), porId.size()));
+    for (Entrada<T> entrada : ordenadas.descendingSet()) {
+      if (resultado.size() >= limit) {
+        break;
+      }
+      resultado.add(entrada.dato());
+    }
+    return resultado;
+  }
+
+  void limpiar() {
+    porId.clear();
+    ordenadas.clear();
+  }
+}
@@ -0,0 +1,105 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.Arrays;
+
+/**
+ * Contadores de unidades vendidas de un producto en ventanas deslizantes.
+ *
+ * Guarda la última hora por minuto (60 cubetas) y la última semana por hora
+ * (168 cubetas) en buffers circulares: el detalle por minuto sólo se conserva
+ * una hora y después queda compactado en su cubeta horaria. Las sumas de cada
+ * ventana se mantienen al registrar y al avanzar el reloj, así que consultar
+ * una ventana es O(1); avanzar cuesta a lo sumo una pasada por cada buffer.
+ *
+ * La ventana de 1h tiene resolución de minuto y las de 24h y 7d de hora (la
+ * hora en curso cuenta completa). No es thread-safe: el llamador sincroniza.
+ */
+final class VentanaDeslizante {
+
+  static final int MINUTOS = 60;
+  static final int HORAS_DIA = 24;
+  static final int HORAS_SEMANA = 168;
+
+  private final int[] porMinuto = new int[MINUTOS];
+  private final int[] porHora = new int[HORAS_SEMANA];
+  private long minutoActual;
+  private long horaActual;
+  private long sumaHora;
+  private long sumaDia;
+  private long sumaSemana;
+
+  VentanaDeslizante(long minuto) {
+    this.minutoActual = minuto;
+    this.horaActual = Math.floorDiv(minuto, MINUTOS);
+  }
+
+  void registrar(long minuto, int unidades) {
+    avanzar(minuto);
+    porMinuto[Math.floorMod(minutoActual, MINUTOS)] += unidades;
+    porHora[Math.floorMod(horaActual, HORAS_SEMANA)] += unidades;
+    sumaHora += unidades;
+    sumaDia += unidades;
+    sumaSemana += unidades;
+  }
+
+  long unidades(VentanaVentas ventana, long minuto) {
+    avanzar(minuto);
+    return switch (ventana) {
+      case HORA -> sumaHora;
+      case DIA -> sumaDia;
+      case SEMANA -> sumaSemana;
+    };
+  }
+
+  /**
+   * Indica si ya no queda ninguna venta dentro de la semana.
+   */
+  boolean vacia(long minuto) {
+    avanzar(minuto);
+    return sumaSemana == 0;
+  }
+
+  /**
+   * Mueve el reloj hasta {@code minuto}, descontando de cada suma las
+   * cubetas que salen de su ventana. Un minuto anterior al actual (reloj que
+   * retrocede) se ignora.
+   */
+  private void avanzar(long minuto) {
+    if (minuto <= minutoActual) {
+      return;
+    }
+    if (minuto - minutoActual >= MINUTOS) {
+      Arrays.fill(porMinuto, 0);
+      sumaHora = 0;
+    } else {
+      for (long m = minutoActual + 1; m <= minuto; m++) {
+        int slot = Math.floorMod(m, MINUTOS);
+        sumaHora -= porMinuto[slot];
+        porMinuto[slot] = 0;
+      }
+    }
+    minutoActual = minuto;
+
+    long hora = Math.floorDiv(minuto, MINUTOS);
+    if (hora <= horaActual) {
+      return;
+    }
+    if (hora - horaActual >= HORAS_SEMANA) {
+      Arrays.fill(porHora, 0);
+      sumaDia = 0;
+      sumaSemana = 0;
+    } else {
+      for (long h = horaActual + 1; h <= hora; h++) {
+        // Sale del día la hora h-24 (sólo si seguía dentro: h-24 <= horaActual)
+        if (h - horaActual <= HORAS_DIA) {
+          sumaDia -= porHora[Math.floorMod(h - HORAS_DIA, HORAS_SEMANA)];
+        }
+        // Sale de la semana la hora h-168, que ocupa la cubeta de h
+        int slot = Math.floorMod(h, HORAS_SEMANA);
+        sumaSemana -= porHora[slot];
+        porHora[slot] = 0;
+      }
+    }
+    horaActual = hora;
+  }
+}
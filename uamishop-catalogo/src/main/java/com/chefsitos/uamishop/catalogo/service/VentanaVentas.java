@@ -0,0 +1,31 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.util.Arrays;
+
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+/**
+ * Ventanas de tiempo disponibles para el ranking de más vendidos.
+ */
+public enum VentanaVentas {
+  HORA("1h"),
+  DIA("24h"),
+  SEMANA("7d");
+
+  private final String codigo;
+
+  VentanaVentas(String codigo) {
+    this.codigo = codigo;
+  }
+
+  public String codigo() {
+    return codigo;
+  }
+
+  public static VentanaVentas desde(String codigo) {
+    return Arrays.stream(values())
+        .filter(ventana -> ventana.codigo.equalsIgnoreCase(codigo))
+        .findFirst()
+        .orElseThrow(() -> new BadRequestException("Ventana no válida: " + codigo + " (usar 1h, 24h o 7d)"));
+  }
+}
@@ -0,0 +1,115 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estadísticas de ventas por ventana de tiempo (1h, 24h, 7d), en memoria.
+ *
+ * Cada producto con ventas en la última semana tiene su VentanaDeslizante;
+ * ProductoEstadisticasService le pasa las unidades de cada venta tras el
+ * commit. Consultar una ventana cuesta O(1) por producto más la selección del
+ * top con un heap acotado, sin recorrer ventas individuales. Los productos
+ * sin ventas en la semana se descartan periódicamente.
+ *
+ * Las ventas cuentan en el minuto en que se registran (reloj de esta
+ * instancia) y cada réplica sólo ve las ventas que ella consume.
+ */
+@Slf4j
+@Component
+public class VentasPorVentana {
+
+  /** Unidades vendidas por un producto dentro de una ventana. */
+  public record VentasEnVentana(UUID productoId, long cantidadVendida) {
+  }
+
+  private static final Comparator<VentasEnVentana> POR_CANTIDAD = Comparator
+      .comparingLong(VentasEnVentana::cantidadVendida)
+      .thenComparing(VentasEnVentana::productoId);
+
+  private final Map<UUID, VentanaDeslizante> ventanas = new ConcurrentHashMap<>();
+  private final Clock clock;
+
+  @Autowired
+  public VentasPorVentana(ObjectProvider<Clock> clock) {
+    this(clock.getIfAvailable(Clock::systemUTC));
+  }
+
+  VentasPorVentana(Clock clock) {
+    this.clock = clock;
+  }
+
+  public void registrar(UUID productoId, int unidades) {
+    long minuto = minutoActual();
+    // compute() es atómico por producto frente a purgar(): una venta no cae en
+    // una ventana recién descartada
+    ventanas.compute(productoId, (id, ventana) -> {
+      VentanaDeslizante contadores = ventana != null ? ventana : new VentanaDeslizante(minuto);
+      synchronized (contadores) {
+        contadores.registrar(minuto, unidades);
+      }
+      return contadores;
+    });
+  }
+
+  /**
+   * Los {@code limit} productos con más unidades vendidas en la ventana, de
+   * mayor a menor. Los productos sin ventas en la ventana no aparecen.
+   */
+  public List<VentasEnVentana> masVendidos(VentanaVentas ventana, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    long minuto = minutoActual();
+    PriorityQueue<VentasEnVentana> top = new PriorityQueue<>(limit + 1, POR_CANTIDAD);
+    ventanas.forEach((productoId, contadores) -> {
+      long unidades;
+      synchronized (contadores) {
+        unidades = contadores.unidades(ventana, minuto);
+      }
+      if (unidades <= 0) {
+        return;
+      }
+      top.offer(new VentasEnVentana(productoId, unidades));
+      if (top.size() > limit) {
+        top.poll();
+      }
+    });
+
+    List<VentasEnVentana> resultado = new ArrayList<>(top);
+    resultado.sort(POR_CANTIDAD.reversed());
+    return resultado;
+  }
+
+  /**
+   * Descarta los productos sin ventas en la última semana.
+   */
+  @Scheduled(fixedDelayString = "${catalogo.estadisticas.ventanas.purge-interval:600000}")
+  public void purgar() {
+    long minuto = minutoActual();
+    int antes = ventanas.size();
+    ventanas.keySet().forEach(productoId -> ventanas.computeIfPresent(productoId, (id, contadores) -> {
+      synchronized (contadores) {
+        return contadores.vacia(minuto) ? null : contadores;
+      }
+    }));
+    log.debug("Ventanas de ventas: {} productos descartados, {} activos", antes - ventanas.size(), ventanas.size());
+  }
+
+  private long minutoActual() {
+    return Math.floorDiv(clock.millis(), 60_000L);
+  }
+}
@@ -0,0 +1,17 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+/**
+ * Respuesta de la API junto con la versión (@Version) de la entidad de la
+ * que se construyó. La versión es el ETag fuerte del recurso: cambia en cada
+ * escritura, así que dos respuestas con el mismo ETag son idénticas.
+ */
+public record Versionado<T>(T contenido, long version) {
+
+  public String etag() {
+    return etag(version);
+  }
+
+  public static String etag(long version) {
+    return "\"" + version + "\"";
+  }
+}
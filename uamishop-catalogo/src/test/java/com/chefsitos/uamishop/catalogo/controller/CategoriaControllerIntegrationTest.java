@@ -15,6 +15,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 
+import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaArbolResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.CategoriaResponse;
 import com.chefsitos.uamishop.catalogo.domain.entity.Categoria;
@@ -375,6 +376,25 @@ public class CategoriaControllerIntegrationTest {
       assertTrue(response.getBody().contains("Failed to convert"));
     }
 
+    @Test
+    @DisplayName("Debe retornar 304 cuando If-None-Match coincide con el ETag vigente")
+    void buscarCategoriaPorId_ifNoneMatch_retorna304() {
+      Categoria categoria = crearCategoria("Electrónica", "Dispositivos electrónicos", CategoriaId.generar());
+      categoriaRepository.save(categoria);
+      String url = BASE_URL + "/" + categoria.getCategoriaId().valor();
+
+      String etag = restTemplate.getForEntity(url, CategoriaResponse.class).getHeaders().getETag();
+      assertNotNull(etag);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch(etag);
+      ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+          String.class);
+
+      assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+      assertNull(response.getBody());
+    }
+
   }
 
   // 3. BUSCAR TODAS LAS CATEGORIAS ----------
@@ -676,4 +696,69 @@ public class CategoriaControllerIntegrationTest {
       assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
   }
+
+  // 5. ARBOL DE CATEGORIAS --------------
+  @Nested
+  @DisplayName("GET /api/v1/categorias/{id}/arbol")
+  class ArbolCategoria {
+
+    private UUID crearPorApi(String nombre, UUID idPadre) {
+      ResponseEntity<CategoriaResponse> response = restTemplate.postForEntity(
+          BASE_URL,
+          crearRequestCategoria(nombre, "Descripción de " + nombre, idPadre),
+          CategoriaResponse.class);
+      assertEquals(HttpStatus.CREATED, response.getStatusCode());
+      return response.getBody().idCategoria();
+    }
+
+    @Test
+    @DisplayName("Retorna 200 con la ruta de ancestros y las subcategorías")
+    void arbolCategoria_exito() {
+      UUID tecnologia = crearPorApi("Tecnología", null);
+      UUID computo = crearPorApi("Cómputo", tecnologia);
+      UUID laptops = crearPorApi("Laptops", computo);
+
+      ResponseEntity<CategoriaArbolResponse> response = restTemplate.getForEntity(
+          BASE_URL + "/" + computo + "/arbol",
+          CategoriaArbolResponse.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertNotNull(response.getBody());
+      assertEquals(computo, response.getBody().idCategoria());
+      assertEquals(1, response.getBody().ruta().size());
+      assertEquals(tecnologia, response.getBody().ruta().get(0).idCategoria());
+      assertEquals(1, response.getBody().subcategorias().size());
+      assertEquals(laptops, response.getBody().subcategorias().get(0).idCategoria());
+    }
+
+    @Test
+    @DisplayName("Debe retornar 422 al colgar una categoría de su propio subárbol")
+    void arbolCategoria_cicloRechazado() {
+      UUID tecnologia = crearPorApi("Tecnología", null);
+      UUID computo = crearPorApi("Cómputo", tecnologia);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      HttpEntity<CategoriaRequest> entity = new HttpEntity<>(
+          crearRequestCategoria("Tecnología", "Categoría principal", computo), headers);
+
+      ResponseEntity<String> response = restTemplate.exchange(
+          BASE_URL + "/" + tecnologia,
+          HttpMethod.PUT,
+          entity,
+          String.class);
+
+      assertEquals(HttpStatus.UNPROCESSABLE_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Debe retornar 404 cuando la categoría no existe")
+    void arbolCategoria_CategoriaInexistente() {
+      ResponseEntity<String> response = restTemplate.getForEntity(
+          BASE_URL + "/" + UUID.randomUUID() + "/arbol",
+          String.class);
+
+      assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+  }
 }
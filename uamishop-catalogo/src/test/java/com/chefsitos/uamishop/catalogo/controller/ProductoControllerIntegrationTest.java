@@ -20,6 +20,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.transaction.TestTransaction;
 
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoEstadisticasResponse;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoLoteRequest;
+import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPaginaResponse;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoPatchRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoRequest;
 import com.chefsitos.uamishop.catalogo.controller.dto.ProductoResponse;
@@ -31,6 +33,7 @@ import com.chefsitos.uamishop.catalogo.domain.valueObject.Imagen;
 import com.chefsitos.uamishop.catalogo.repository.ProductoJpaRepository;
 import com.chefsitos.uamishop.catalogo.repository.CategoriaJpaRepository;
 import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.chefsitos.uamishop.catalogo.service.RankingMasVendidos;
 import com.chefsitos.uamishop.shared.domain.valueObject.Money;
 import com.chefsitos.uamishop.shared.domain.valueObject.ProductoId;
 
@@ -38,11 +41,15 @@ import jakarta.transaction.Transactional;
 
 import org.springframework.http.MediaType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
 
@@ -64,6 +71,9 @@ class ProductoControllerIntegrationTest {
   @Autowired
   private ProductoEstadisticasJpaRepository estadisticasRepository;
 
+  @Autowired
+  private RankingMasVendidos rankingMasVendidos;
+
   @AfterEach
   void cleanUp() {
     estadisticasRepository.deleteAll();
@@ -433,6 +443,135 @@ class ProductoControllerIntegrationTest {
       // Validar status
       assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
+
+    @Test
+    @DisplayName("Con If-None-Match igual al ETag vigente retorna 304 sin cuerpo")
+    void getById_ifNoneMatch_retorna304() {
+      Categoria categoria = crearCategoriaEnBD("Electronicos");
+      Producto producto = crearProductoEnBD("MacBook Pro", new BigDecimal("32000.00"), "MXN",
+          categoria.getCategoriaId());
+      String url = BASE_URL + "/" + producto.getProductoId().valor();
+
+      ResponseEntity<ProductoResponse> primera = restTemplate.getForEntity(url, ProductoResponse.class);
+      String etag = primera.getHeaders().getETag();
+      assertNotNull(etag);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch(etag);
+      ResponseEntity<String> segunda = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+          String.class);
+
+      assertEquals(HttpStatus.NOT_MODIFIED, segunda.getStatusCode());
+      assertTrue(segunda.getBody() == null);
+    }
+
+    @Test
+    @DisplayName("Tras modificar el producto el ETag anterior ya no vale y retorna 200 con el cambio")
+    void getById_etagAnterior_retorna200() {
+      Categoria categoria = crearCategoriaEnBD("Electronicos");
+      Producto producto = crearProductoConImagenEnBD("MacBook Pro", categoria.getCategoriaId());
+      String url = BASE_URL + "/" + producto.getProductoId().valor();
+
+      String etag = restTemplate.getForEntity(url, ProductoResponse.class).getHeaders().getETag();
+      restTemplate.postForEntity(url + "/activar", null, ProductoResponse.class);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch(etag);
+      ResponseEntity<ProductoResponse> response = restTemplate.exchange(url, HttpMethod.GET,
+          new HttpEntity<>(headers), ProductoResponse.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertTrue(response.getBody().disponible());
+      assertFalse(etag.equals(response.getHeaders().getETag()));
+    }
+
+    @Test
+    @DisplayName("Una escritura que no pasó por esta caché (otra réplica) no se oculta tras un 304")
+    void getById_cacheAtrasada_retorna200() {
+      Categoria categoria = crearCategoriaEnBD("Electronicos");
+      Producto producto = crearProductoEnBD("MacBook Pro", new BigDecimal("32000.00"), "MXN",
+          categoria.getCategoriaId());
+      String url = BASE_URL + "/" + producto.getProductoId().valor();
+      String etag = restTemplate.getForEntity(url, ProductoResponse.class).getHeaders().getETag();
+
+      // Directo al repositorio: la entrada cacheada no se desaloja
+      Producto enBD = productoRepository.findById(producto.getProductoId()).orElseThrow();
+      enBD.activar();
+      productoRepository.save(enBD);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch(etag);
+      ResponseEntity<ProductoResponse> response = restTemplate.exchange(url, HttpMethod.GET,
+          new HttpEntity<>(headers), ProductoResponse.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertTrue(response.getBody().disponible());
+      String etagNuevo = response.getHeaders().getETag();
+      assertFalse(etag.equals(etagNuevo));
+
+      // La entrada quedó recargada: el ETag nuevo ya responde 304
+      headers.setIfNoneMatch(etagNuevo);
+      assertEquals(HttpStatus.NOT_MODIFIED,
+          restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Con Accept-Encoding: gzip retorna el JSON comprimido")
+    void getById_acceptEncodingGzip_retornaGzip() throws IOException {
+      Categoria categoria = crearCategoriaEnBD("Electronicos");
+      Producto producto = productoRepository.save(Producto.crear(
+          "MacBook Pro",
+          "Laptop de alto rendimiento. ".repeat(15),
+          new Money(new BigDecimal("32000.00"), "MXN"),
+          categoria.getCategoriaId(),
+          "http://test-image.com/foto.jpg"));
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+      ResponseEntity<byte[]> response = restTemplate.exchange(BASE_URL + "/" + producto.getProductoId().valor(),
+          HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+        String json = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"nombreProducto\":\"MacBook Pro\""));
+      }
+      // El cuerpo gzip lleva su propio ETag, distinto del de la respuesta sin comprimir
+      String etagJson = restTemplate.getForEntity(BASE_URL + "/" + producto.getProductoId().valor(), byte[].class)
+          .getHeaders().getETag();
+      assertTrue(response.getHeaders().getETag().endsWith("-gz\""));
+      assertFalse(response.getHeaders().getETag().equals(etagJson));
+    }
+
+    @Test
+    @DisplayName("Con If-None-Match igual al ETag del cuerpo gzip retorna 304 en cualquier codificacion")
+    void getById_ifNoneMatchGzip_retorna304() {
+      Categoria categoria = crearCategoriaEnBD("Electronicos");
+      Producto producto = productoRepository.save(Producto.crear(
+          "MacBook Pro",
+          "Laptop de alto rendimiento. ".repeat(15),
+          new Money(new BigDecimal("32000.00"), "MXN"),
+          categoria.getCategoriaId(),
+          "http://test-image.com/foto.jpg"));
+      String url = BASE_URL + "/" + producto.getProductoId().valor();
+
+      HttpHeaders gzip = new HttpHeaders();
+      gzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+      String etagGzip = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(gzip), byte[].class)
+          .getHeaders().getETag();
+
+      HttpHeaders conGzip = new HttpHeaders();
+      conGzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+      conGzip.setIfNoneMatch(etagGzip);
+      HttpHeaders sinGzip = new HttpHeaders();
+      sinGzip.setIfNoneMatch(etagGzip);
+
+      assertEquals(HttpStatus.NOT_MODIFIED,
+          restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(conGzip), byte[].class).getStatusCode());
+      assertEquals(HttpStatus.NOT_MODIFIED,
+          restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(sinGzip), byte[].class).getStatusCode());
+    }
   }
 
   // 3. OBTENER TODOS LOS PRODUCTOS ------------------------------
@@ -483,6 +622,188 @@ class ProductoControllerIntegrationTest {
     // NO HAY TEST DE ERRORES QUE SE PUEDAN HACER
   }
 
+  @Nested
+  @DisplayName("GET /api/v1/productos/pagina")
+  class GetPagina {
+    @Test
+    @DisplayName("recorre todas las páginas con el cursor sin repetir productos")
+    void getPagina_recorreConCursor() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      for (int i = 1; i <= 5; i++) {
+        crearProductoEnBD("Producto " + i, new BigDecimal("100.00"), "MXN", categoria.getCategoriaId());
+      }
+
+      java.util.List<UUID> vistos = new java.util.ArrayList<>();
+      String cursor = null;
+      int paginas = 0;
+      do {
+        String url = BASE_URL + "/pagina?size=2" + (cursor != null ? "&cursor=" + cursor : "");
+        ResponseEntity<ProductoPaginaResponse> response = restTemplate.getForEntity(url, ProductoPaginaResponse.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        response.getBody().productos().forEach(p -> vistos.add(p.idProducto()));
+        cursor = response.getBody().siguienteCursor();
+        paginas++;
+      } while (cursor != null);
+
+      assertEquals(3, paginas);
+      assertEquals(5, vistos.size());
+      assertEquals(5, vistos.stream().distinct().count());
+    }
+
+    @Test
+    @DisplayName("filtra por categoría y rango de precio")
+    void getPagina_filtra() {
+      Categoria electronica = crearCategoriaEnBD("Electrónica");
+      Categoria hogar = crearCategoriaEnBD("Hogar");
+      crearProductoEnBD("Barato", new BigDecimal("50.00"), "MXN", electronica.getCategoriaId());
+      crearProductoEnBD("Caro", new BigDecimal("5000.00"), "MXN", electronica.getCategoriaId());
+      crearProductoEnBD("Lampara", new BigDecimal("300.00"), "MXN", hogar.getCategoriaId());
+
+      ResponseEntity<ProductoPaginaResponse> response = restTemplate.getForEntity(
+          BASE_URL + "/pagina?categoriaId=" + electronica.getCategoriaId().valor() + "&precioMax=100",
+          ProductoPaginaResponse.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertNotNull(response.getBody());
+      assertEquals(1, response.getBody().productos().size());
+      assertEquals("Barato", response.getBody().productos().get(0).nombreProducto());
+      assertEquals(null, response.getBody().siguienteCursor());
+    }
+
+    @Test
+    @DisplayName("retorna 400 con un cursor inválido")
+    void getPagina_cursorInvalido_retorna400() {
+      ResponseEntity<String> response = restTemplate.getForEntity(
+          BASE_URL + "/pagina?cursor=no-es-un-cursor",
+          String.class);
+
+      assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+  }
+
+  @Nested
+  @DisplayName("POST /api/v1/productos/lote")
+  class PostLote {
+    @Test
+    @DisplayName("retorna los productos en el orden pedido y omite los inexistentes")
+    void postLote_exito() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      Producto primero = crearProductoEnBD("Primero", new BigDecimal("100.00"), "MXN", categoria.getCategoriaId());
+      Producto segundo = crearProductoEnBD("Segundo", new BigDecimal("200.00"), "MXN", categoria.getCategoriaId());
+      UUID inexistente = UUID.randomUUID();
+
+      ResponseEntity<ProductoResponse[]> response = restTemplate.postForEntity(
+          BASE_URL + "/lote",
+          jsonRequest(new ProductoLoteRequest(List.of(
+              segundo.getProductoId().valor(), inexistente, primero.getProductoId().valor(),
+              segundo.getProductoId().valor()))),
+          ProductoResponse[].class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertNotNull(response.getBody());
+      assertEquals(List.of(segundo.getProductoId().valor(), primero.getProductoId().valor()),
+          Arrays.stream(response.getBody()).map(ProductoResponse::idProducto).toList());
+    }
+
+    @Test
+    @DisplayName("retorna 400 con una lista vacía")
+    void postLote_vacio_retorna400() {
+      ResponseEntity<String> response = restTemplate.postForEntity(
+          BASE_URL + "/lote",
+          jsonRequest(new ProductoLoteRequest(List.of())),
+          String.class);
+
+      assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+  }
+
+  @Nested
+  @DisplayName("GET /api/v1/productos/export")
+  class Exportar {
+    @Test
+    @DisplayName("retorna 200 con un producto por línea en NDJSON")
+    void exportar_retornaNdjson() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      crearProductoEnBD("MacBook Pro", new BigDecimal("38000.00"), "MXN", categoria.getCategoriaId());
+      crearProductoEnBD("iPhone 15", new BigDecimal("18000.00"), "MXN", categoria.getCategoriaId());
+
+      ResponseEntity<String> response = restTemplate.getForEntity(BASE_URL + "/export", String.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(response.getHeaders().getContentType()));
+      assertNotNull(response.getBody());
+      String[] lineas = response.getBody().strip().split("\n");
+      assertEquals(2, lineas.length);
+      assertTrue(lineas[0].contains("MacBook Pro"));
+      assertTrue(lineas[1].contains("iPhone 15"));
+    }
+
+    @Test
+    @DisplayName("con updatedSince posterior a los cambios no exporta nada")
+    void exportar_updatedSince_filtra() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      crearProductoEnBD("MacBook Pro", new BigDecimal("38000.00"), "MXN", categoria.getCategoriaId());
+
+      ResponseEntity<String> response = restTemplate.getForEntity(
+          BASE_URL + "/export?updatedSince=" + java.time.LocalDateTime.now().plusDays(1),
+          String.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertTrue(response.getBody() == null || response.getBody().isBlank());
+    }
+  }
+
+  @Nested
+  @DisplayName("POST /api/v1/productos/import")
+  class Importar {
+    @Test
+    @DisplayName("importa las filas válidas de un CSV e informa las rechazadas")
+    void importar_csv_informaRechazos() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      String idCategoria = categoria.getCategoriaId().valor().toString();
+      String csv = "nombreProducto,descripcion,precio,moneda,idCategoria\n"
+          + "MacBook Pro,\"Laptop, 14 pulgadas\",38000.00,MXN," + idCategoria + "\n"
+          + "TV,Nombre corto,100.00,MXN," + idCategoria + "\n"
+          + "Teclado,Sin categoría,500.00,MXN," + UUID.randomUUID() + "\n";
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.parseMediaType("text/csv"));
+      ResponseEntity<String> response = restTemplate.exchange(
+          BASE_URL + "/import", HttpMethod.POST, new HttpEntity<>(csv, headers), String.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertNotNull(response.getBody());
+      String[] lineas = response.getBody().strip().split("\n");
+      assertEquals(3, lineas.length);
+      assertTrue(lineas[0].contains("\"linea\":3"));
+      assertTrue(lineas[1].contains("\"linea\":4"));
+      assertTrue(lineas[2].contains("\"importados\":1"));
+      assertEquals(1, productoRepository.count());
+    }
+
+    @Test
+    @DisplayName("importa productos en NDJSON")
+    void importar_ndjson() {
+      Categoria categoria = crearCategoriaEnBD("Electrónica");
+      String idCategoria = categoria.getCategoriaId().valor().toString();
+      String ndjson = "{\"nombreProducto\":\"iPhone 15\",\"descripcion\":\"Telefono\",\"precio\":18000.00,"
+          + "\"moneda\":\"MXN\",\"idCategoria\":\"" + idCategoria + "\"}\n"
+          + "no es json\n";
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_NDJSON);
+      ResponseEntity<String> response = restTemplate.exchange(
+          BASE_URL + "/import", HttpMethod.POST, new HttpEntity<>(ndjson, headers), String.class);
+
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertNotNull(response.getBody());
+      assertTrue(response.getBody().contains("\"linea\":2"));
+      assertTrue(response.getBody().contains("\"importados\":1"));
+      assertEquals(1, productoRepository.count());
+    }
+  }
+
   // 4. ACTIVAR PRODUCTO -------------------------------------------------------
   @Nested
   @DisplayName("POST /api/v1/productos/{id}/activar")
@@ -624,7 +945,7 @@ class ProductoControllerIntegrationTest {
       // Validaciones
       assertEquals(HttpStatus.OK, response.getStatusCode());
       assertNotNull(response.getBody());
-      assertFalse(response.getBody().disponible());
+      assertTrue(response.getBody().disponible());
     }
 
     // TEST DE ERRORES
@@ -964,6 +1285,8 @@ class ProductoControllerIntegrationTest {
 
       TestTransaction.flagForCommit();
       TestTransaction.end();
+      // Las estadisticas se escribieron directo en la BD: recargar el ranking
+      rankingMasVendidos.recargar();
 
       ResponseEntity<ProductoEstadisticasResponse[]> response = restTemplate.getForEntity(
           BASE_URL + "/mas-vendidos?limit=3",
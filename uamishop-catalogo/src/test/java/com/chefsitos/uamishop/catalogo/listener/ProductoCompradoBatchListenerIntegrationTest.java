@@ -0,0 +1,137 @@
+package com.chefsitos.uamishop.catalogo.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.chefsitos.uamishop.shared.event.ProductoCompradoEvent;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxEvent;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxRepository;
+
+@SpringBootTest(properties = "catalogo.listener.batch.enabled=true")
+@DisplayName("Listener: ProductoComprado por lotes")
+public class ProductoCompradoBatchListenerIntegrationTest {
+
+  @Autowired
+  private ProductoCompradoBatchListener batchListener;
+
+  @Autowired
+  private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+  @Autowired
+  private JacksonJsonMessageConverter messageConverter;
+
+  @Autowired
+  private InboxRepository inboxRepository;
+
+  @AfterEach
+  void cleanUp() {
+    estadisticasRepository.deleteAll();
+  }
+
+  private ProductoCompradoEvent.ItemComprado item(UUID productoId, int cantidad) {
+    return new ProductoCompradoEvent.ItemComprado(productoId, "SKU-TEST", cantidad, new BigDecimal("100"), "MXN");
+  }
+
+  private ProductoCompradoEvent evento(ProductoCompradoEvent.ItemComprado... items) {
+    return new ProductoCompradoEvent(UUID.randomUUID(), Instant.now(), UUID.randomUUID(), UUID.randomUUID(),
+        List.of(items));
+  }
+
+  private Message mensaje(UUID messageId, byte[] body) {
+    MessageProperties properties = new MessageProperties();
+    properties.setMessageId(messageId.toString());
+    properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+    return new Message(body, properties);
+  }
+
+  @Test
+  @DisplayName("Acumula por producto las ventas de varios eventos del lote")
+  void onProductosComprados_acumulaPorProducto() {
+    UUID productoA = UUID.randomUUID();
+    UUID productoB = UUID.randomUUID();
+
+    batchListener.onProductosComprados(List.of(
+        evento(item(productoA, 2), item(productoB, 1)),
+        evento(item(productoA, 3))));
+
+    ProductoEstadisticas estadisticasA = estadisticasRepository.findById(productoA).orElse(null);
+    ProductoEstadisticas estadisticasB = estadisticasRepository.findById(productoB).orElse(null);
+
+    assertNotNull(estadisticasA);
+    assertNotNull(estadisticasB);
+    assertEquals(2, estadisticasA.getVentasTotales());
+    assertEquals(5, estadisticasA.getCantidadVendida());
+    assertEquals(1, estadisticasB.getVentasTotales());
+    assertEquals(1, estadisticasB.getCantidadVendida());
+    assertNotNull(estadisticasA.getUltimaVentaAt());
+  }
+
+  @Test
+  @DisplayName("Ignora eventos repetidos dentro del lote y entre lotes")
+  void onProductosComprados_ignoraDuplicados() {
+    UUID productoId = UUID.randomUUID();
+    ProductoCompradoEvent event = evento(item(productoId, 4));
+
+    batchListener.onProductosComprados(List.of(event, event));
+    batchListener.onProductosComprados(List.of(event));
+
+    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId).orElse(null);
+
+    assertNotNull(estadisticas);
+    assertEquals(1, estadisticas.getVentasTotales());
+    assertEquals(4, estadisticas.getCantidadVendida());
+  }
+
+  @Test
+  @DisplayName("Omite un evento ya registrado en el Inbox que el filtro en memoria no conoce")
+  void onProductosComprados_omiteRegistradoFueraDelFiltro() {
+    UUID productoA = UUID.randomUUID();
+    UUID productoB = UUID.randomUUID();
+    ProductoCompradoEvent registrado = evento(item(productoA, 2));
+    // Registrado por otra réplica (o por un replay): el Bloom de esta réplica no lo tiene
+    inboxRepository.save(InboxEvent.from(registrado.eventId()));
+
+    batchListener.onProductosComprados(List.of(registrado, evento(item(productoB, 1))));
+
+    assertTrue(estadisticasRepository.findById(productoA).isEmpty());
+    assertEquals(1, estadisticasRepository.findById(productoB).orElseThrow().getCantidadVendida());
+  }
+
+  @Test
+  @DisplayName("Descarta por message-id un mensaje ya procesado sin deserializarlo")
+  void onMensajes_descartaDuplicadoPorMessageId() {
+    UUID productoId = UUID.randomUUID();
+    ProductoCompradoEvent event = evento(item(productoId, 4));
+    Message original = messageConverter.toMessage(event, new MessageProperties());
+    original.getMessageProperties().setMessageId(event.eventId().toString());
+
+    batchListener.onMensajes(List.of(original));
+    // Mismo message-id con un cuerpo que no es JSON: si se convirtiera, fallaría
+    batchListener.onMensajes(List.of(
+        mensaje(event.eventId(), "no es json".getBytes(StandardCharsets.UTF_8))));
+
+    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId).orElse(null);
+
+    assertNotNull(estadisticas);
+    assertEquals(1, estadisticas.getVentasTotales());
+    assertEquals(4, estadisticas.getCantidadVendida());
+  }
+}
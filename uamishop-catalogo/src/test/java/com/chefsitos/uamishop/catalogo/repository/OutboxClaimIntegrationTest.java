@@ -0,0 +1,192 @@
+package com.chefsitos.uamishop.catalogo.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chefsitos.uamishop.shared.infraestructure.outbox.OutboxEvent;
+import com.chefsitos.uamishop.shared.infraestructure.outbox.OutboxEventProcessor;
+import com.chefsitos.uamishop.shared.infraestructure.outbox.OutboxRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Consulta de reserva del relay contra MySQL real: el SKIP LOCKED y la
+ * subconsulta de predecesores no se pueden comprobar con mocks.
+ *
+ * El catálogo no publica eventos Outbox ni corre el relay, así que la tabla
+ * sólo contiene lo que crea cada prueba. Sin @Transactional a propósito:
+ * claimBatch abre su propia transacción y debe ver las filas confirmadas.
+ */
+@SpringBootTest
+@DisplayName("Outbox: consulta de reserva del relay")
+class OutboxClaimIntegrationTest {
+
+  private static final Duration LEASE = Duration.ofMinutes(1);
+
+  @Autowired
+  private OutboxRepository outboxRepository;
+
+  @Autowired
+  private OutboxEventProcessor outboxEventProcessor;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final List<UUID> creados = new ArrayList<>();
+
+  @AfterEach
+  void cleanUp() {
+    outboxRepository.deleteAllById(creados);
+  }
+
+  private OutboxEvent crear(String aggregateId) throws InterruptedException {
+    OutboxEvent event = outboxRepository.save(
+        new OutboxEvent("PruebaEvent", "{}", "pruebas.exchange", "pruebas.key", aggregateId));
+    creados.add(event.getId());
+    // created_at distinto para cada evento: el orden del agregado depende de él
+    Thread.sleep(5);
+    return event;
+  }
+
+  private List<UUID> reclamables() {
+    return new TransactionTemplate(transactionManager).execute(status -> outboxRepository
+        .findClaimableEvents(LocalDateTime.now(), OutboxEvent.MAX_ATTEMPTS, PageRequest.of(0, 1000))
+        .stream()
+        .map(OutboxEvent::getId)
+        .filter(creados::contains)
+        .toList());
+  }
+
+  private List<UUID> reservar(String owner) {
+    return outboxEventProcessor.claimBatch(owner, LEASE, 1000).stream()
+        .map(OutboxEvent::getId)
+        .filter(creados::contains)
+        .toList();
+  }
+
+  private void reservarHasta(UUID id, String owner, LocalDateTime claimedUntil) {
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(status -> outboxRepository.claim(List.of(id), owner, claimedUntil));
+  }
+
+  @Test
+  @DisplayName("Reserva en orden de creación y registra al dueño")
+  void claimBatch_ordenDeCreacion() throws Exception {
+    String agregado = UUID.randomUUID().toString();
+    OutboxEvent primero = crear(agregado);
+    OutboxEvent segundo = crear(agregado);
+    OutboxEvent sinAgregado = crear(null);
+
+    assertEquals(List.of(primero.getId(), segundo.getId(), sinAgregado.getId()), reservar("relay-a"));
+
+    for (UUID id : creados) {
+      OutboxEvent reservado = outboxRepository.findById(id).orElseThrow();
+      assertEquals("relay-a", reservado.getClaimedBy());
+      assertTrue(reservado.getClaimedUntil().isAfter(LocalDateTime.now()));
+    }
+    assertTrue(reservar("relay-b").isEmpty());
+  }
+
+  @Test
+  @DisplayName("Una reserva vigente excluye al evento y una vencida lo libera")
+  void findClaimableEvents_reservaVigenteYVencida() throws Exception {
+    OutboxEvent vigente = crear(null);
+    OutboxEvent vencida = crear(null);
+    reservarHasta(vigente.getId(), "relay-a", LocalDateTime.now().plus(LEASE));
+    reservarHasta(vencida.getId(), "relay-a", LocalDateTime.now().minusSeconds(1));
+
+    assertEquals(List.of(vencida.getId()), reclamables());
+  }
+
+  @Test
+  @DisplayName("Un predecesor reservado o en backoff bloquea al resto de su agregado")
+  void findClaimableEvents_predecesorBloquea() throws Exception {
+    String reservado = UUID.randomUUID().toString();
+    OutboxEvent predecesorReservado = crear(reservado);
+    crear(reservado);
+    String enBackoff = UUID.randomUUID().toString();
+    OutboxEvent predecesorEnBackoff = crear(enBackoff);
+    crear(enBackoff);
+    OutboxEvent otro = crear(UUID.randomUUID().toString());
+
+    reservarHasta(predecesorReservado.getId(), "relay-a", LocalDateTime.now().plus(LEASE));
+    reservarHasta(predecesorEnBackoff.getId(), "relay-a", LocalDateTime.now().plus(LEASE));
+    outboxEventProcessor.markAsFailed(predecesorEnBackoff.getId(), "relay-a", "fallo de prueba");
+
+    assertEquals(List.of(otro.getId()), reclamables());
+  }
+
+  @Test
+  @DisplayName("Los eventos que agotaron sus intentos no se reclaman")
+  void findClaimableEvents_excluyeAgotados() throws Exception {
+    OutboxEvent agotado = crear(null);
+    OutboxEvent pendiente = crear(null);
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    for (int i = 0; i < OutboxEvent.MAX_ATTEMPTS; i++) {
+      tx.executeWithoutResult(status -> {
+        outboxRepository.claim(List.of(agotado.getId()), "relay-a", LocalDateTime.now().plus(LEASE));
+        outboxRepository.markAsFailed(agotado.getId(), "relay-a", "fallo de prueba",
+            LocalDateTime.now().minusSeconds(1));
+      });
+    }
+
+    assertEquals(OutboxEvent.MAX_ATTEMPTS, outboxRepository.findById(agotado.getId()).orElseThrow().getAttempts());
+    assertEquals(List.of(pendiente.getId()), reclamables());
+  }
+
+  @Test
+  @DisplayName("Un predecesor bloqueado por otra transacción impide reservar a su sucesor")
+  void claimBatch_predecesorBloqueadoPorOtraInstancia() throws Exception {
+    String agregado = UUID.randomUUID().toString();
+    OutboxEvent predecesor = crear(agregado);
+    OutboxEvent sucesor = crear(agregado);
+
+    CountDownLatch bloqueado = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    // Otra instancia a mitad de su reserva: tiene la fila bloqueada pero aún
+    // no confirmó su claimedBy
+    CompletableFuture<Void> otraInstancia = CompletableFuture.runAsync(() -> new TransactionTemplate(
+        transactionManager).executeWithoutResult(status -> {
+          entityManager.find(OutboxEvent.class, predecesor.getId(), LockModeType.PESSIMISTIC_WRITE);
+          bloqueado.countDown();
+          try {
+            liberar.await(30, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }));
+    try {
+      assertTrue(bloqueado.await(30, TimeUnit.SECONDS));
+
+      // SKIP LOCKED salta al predecesor; el sucesor no debe adelantarlo
+      assertTrue(reservar("relay-b").isEmpty());
+    } finally {
+      liberar.countDown();
+      otraInstancia.get(30, TimeUnit.SECONDS);
+    }
+
+    assertEquals(List.of(predecesor.getId(), sucesor.getId()), reservar("relay-b"));
+  }
+}
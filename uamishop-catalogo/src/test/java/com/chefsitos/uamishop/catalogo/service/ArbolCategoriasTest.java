@@ -0,0 +1,95 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.chefsitos.uamishop.catalogo.domain.entity.Categoria;
+import com.chefsitos.uamishop.catalogo.domain.valueObject.CategoriaId;
+
+@DisplayName("Árbol de categorías: rutas y descendientes precalculados")
+class ArbolCategoriasTest {
+
+  private static Categoria categoria(String nombre, Categoria padre) {
+    Categoria categoria = Categoria.crear(CategoriaId.generar(), nombre, "Descripción de " + nombre);
+    if (padre != null) {
+      categoria.asignarPadre(padre.getCategoriaId());
+    }
+    return categoria;
+  }
+
+  private static UUID id(Categoria categoria) {
+    return categoria.getCategoriaId().valor();
+  }
+
+  @Test
+  @DisplayName("Precalcula la ruta de ancestros, los hijos y el subárbol")
+  void rutasYDescendientes() {
+    Categoria tecnologia = categoria("Tecnología", null);
+    Categoria computo = categoria("Cómputo", tecnologia);
+    Categoria laptops = categoria("Laptops", computo);
+    Categoria audio = categoria("Audio", tecnologia);
+    Categoria hogar = categoria("Hogar", null);
+
+    ArbolCategorias arbol = ArbolCategorias.de(List.of(laptops, hogar, audio, computo, tecnologia));
+
+    assertEquals(List.of(id(tecnologia), id(computo)),
+        arbol.ruta(id(laptops)).stream().map(ArbolCategorias.Nodo::id).toList());
+    assertTrue(arbol.ruta(id(tecnologia)).isEmpty());
+    assertEquals(List.of("Audio", "Cómputo"),
+        arbol.hijos(id(tecnologia)).stream().map(ArbolCategorias.Nodo::nombre).toList());
+    assertEquals(List.of("Hogar", "Tecnología"),
+        arbol.raices().stream().map(ArbolCategorias.Nodo::nombre).toList());
+    assertEquals(Set.of(id(tecnologia), id(computo), id(laptops), id(audio)), arbol.descendientes(id(tecnologia)));
+    assertEquals(Set.of(id(laptops)), arbol.descendientes(id(laptops)));
+    assertTrue(arbol.descendientes(UUID.randomUUID()).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Un cambio produce una foto nueva y deja intacta la anterior")
+  void copyOnWrite() {
+    Categoria tecnologia = categoria("Tecnología", null);
+    Categoria hogar = categoria("Hogar", null);
+    Categoria cocina = categoria("Cocina", tecnologia);
+    ArbolCategorias antes = ArbolCategorias.de(List.of(tecnologia, hogar, cocina));
+
+    cocina.asignarPadre(hogar.getCategoriaId());
+    ArbolCategorias despues = antes.con(cocina);
+
+    assertEquals(Set.of(id(tecnologia), id(cocina)), antes.descendientes(id(tecnologia)));
+    assertEquals(Set.of(id(tecnologia)), despues.descendientes(id(tecnologia)));
+    assertEquals(Set.of(id(hogar), id(cocina)), despues.descendientes(id(hogar)));
+    assertEquals(id(hogar), despues.ruta(id(cocina)).get(0).id());
+  }
+
+  @Test
+  @DisplayName("Detecta el ciclo al colgar una categoría de su propio subárbol")
+  void formariaCiclo() {
+    Categoria raiz = categoria("Tecnología", null);
+    Categoria hijo = categoria("Cómputo", raiz);
+    Categoria nieto = categoria("Laptops", hijo);
+    Categoria otra = categoria("Hogar", null);
+    ArbolCategorias arbol = ArbolCategorias.de(List.of(raiz, hijo, nieto, otra));
+
+    assertTrue(arbol.formariaCiclo(id(raiz), id(nieto)));
+    assertTrue(arbol.formariaCiclo(id(hijo), id(hijo)));
+    assertFalse(arbol.formariaCiclo(id(nieto), id(raiz)));
+    assertFalse(arbol.formariaCiclo(id(raiz), id(otra)));
+  }
+
+  @Test
+  @DisplayName("Una categoría con padre desconocido se trata como raíz")
+  void padreDesconocido() {
+    Categoria huerfana = categoria("Huérfana", categoria("Borrada", null));
+
+    ArbolCategorias arbol = ArbolCategorias.de(List.of(huerfana));
+
+    assertEquals(1, arbol.raices().size());
+    assertTrue(arbol.ruta(id(huerfana)).isEmpty());
+  }
+}
@@ -0,0 +1,45 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Importación: lector CSV incremental")
+class CsvRecordReaderTest {
+
+  @Test
+  @DisplayName("Lee campos simples, vacíos y entre comillas con CRLF")
+  void camposBasicos() throws IOException {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("a,b,c\r\n1,,\"x, y\"\r\n"));
+
+    assertEquals(List.of("a", "b", "c"), csv.leer());
+    assertEquals(List.of("1", "", "x, y"), csv.leer());
+    assertEquals(2, csv.linea());
+    assertNull(csv.leer());
+  }
+
+  @Test
+  @DisplayName("Admite comillas escapadas y saltos de línea dentro de un campo")
+  void comillasYSaltos() throws IOException {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("\"dice \"\"hola\"\"\",\"dos\nlineas\"\n\nfin,x"));
+
+    assertEquals(List.of("dice \"hola\"", "dos\nlineas"), csv.leer());
+    assertEquals(1, csv.linea());
+    assertEquals(List.of("fin", "x"), csv.leer());
+    assertEquals(4, csv.linea());
+    assertNull(csv.leer());
+  }
+
+  @Test
+  @DisplayName("Falla si unas comillas no se cierran")
+  void comillasSinCerrar() throws IOException {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("\"abierto,x\n"));
+
+    assertThrows(IOException.class, csv::leer);
+  }
+}
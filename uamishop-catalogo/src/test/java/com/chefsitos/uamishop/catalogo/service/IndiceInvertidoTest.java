@@ -0,0 +1,98 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.chefsitos.uamishop.catalogo.service.IndiceInvertido.Resultado;
+
+@DisplayName("Índice invertido: tokenización y ranking BM25")
+class IndiceInvertidoTest {
+
+  private static List<UUID> ids(List<Resultado> resultados) {
+    return resultados.stream().map(Resultado::productoId).toList();
+  }
+
+  @Test
+  @DisplayName("Normaliza acentos, mayúsculas, palabras vacías y plurales")
+  void tokenizacion() {
+    assertEquals(List.of("cafetera", "electrica", "acero", "inoxidable"),
+        IndiceInvertido.tokenizar("Cafeteras ELÉCTRICAS de acero inoxidable"));
+    assertEquals(List.of("nino", "ano"), IndiceInvertido.tokenizar("Niño, año"));
+    assertTrue(IndiceInvertido.tokenizar("  de la  ").isEmpty());
+  }
+
+  @Test
+  @DisplayName("Encuentra sin acentos y pone primero la coincidencia en el nombre")
+  void rankingPorCampo() {
+    IndiceInvertido indice = new IndiceInvertido();
+    UUID enNombre = UUID.randomUUID();
+    UUID enDescripcion = UUID.randomUUID();
+    UUID sinRelacion = UUID.randomUUID();
+    indice.indexar(enNombre, "Cámara réflex", "Sensor de 24 megapíxeles");
+    indice.indexar(enDescripcion, "Trípode", "Ideal para cámaras réflex y de vídeo");
+    indice.indexar(sinRelacion, "Licuadora", "Vaso de vidrio");
+
+    assertEquals(List.of(enNombre, enDescripcion), ids(indice.buscar("camara", 10)));
+    assertEquals(List.of(enNombre), ids(indice.buscar("CÁMARA", 1)));
+    assertTrue(indice.buscar("de", 10).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Completa prefijos y prefiere la palabra exacta")
+  void prefijos() {
+    IndiceInvertido indice = new IndiceInvertido();
+    UUID exacto = UUID.randomUUID();
+    UUID prefijo = UUID.randomUUID();
+    indice.indexar(exacto, "Audi", "Llavero de coche");
+    indice.indexar(prefijo, "Audífonos inalámbricos", "Cancelación de ruido");
+
+    assertEquals(List.of(prefijo), ids(indice.buscar("audifo", 10)));
+    assertEquals(List.of(exacto, prefijo), ids(indice.buscar("audi", 10)));
+  }
+
+  @Test
+  @DisplayName("Reindexar reemplaza el texto anterior y eliminar lo quita")
+  void reindexarYEliminar() {
+    IndiceInvertido indice = new IndiceInvertido();
+    UUID id = UUID.randomUUID();
+    indice.indexar(id, "Mesa de madera", "Comedor");
+    indice.indexar(id, "Silla de metal", "Comedor");
+
+    assertTrue(indice.buscar("madera", 10).isEmpty());
+    assertEquals(List.of(id), ids(indice.buscar("silla", 10)));
+    assertEquals(1, indice.size());
+
+    indice.eliminar(id);
+    assertTrue(indice.buscar("comedor", 10).isEmpty());
+    assertEquals(0, indice.size());
+  }
+
+  @Test
+  @DisplayName("Conserva los resultados tras compactar los documentos borrados")
+  void compactacion() {
+    IndiceInvertido indice = new IndiceInvertido();
+    UUID fijo = UUID.randomUUID();
+    indice.indexar(fijo, "Lámpara de escritorio", "Luz cálida");
+    UUID[] temporales = new UUID[5000];
+    for (int i = 0; i < temporales.length; i++) {
+      temporales[i] = UUID.randomUUID();
+      indice.indexar(temporales[i], "Lámpara de pie " + i, "Luz fría");
+    }
+    for (UUID temporal : temporales) {
+      indice.eliminar(temporal);
+    }
+    UUID nuevo = UUID.randomUUID();
+    indice.indexar(nuevo, "Lámpara colgante", "Luz cálida");
+
+    assertEquals(2, indice.size());
+    List<UUID> encontrados = ids(indice.buscar("lampara calida", 10));
+    assertEquals(2, encontrados.size());
+    assertTrue(encontrados.containsAll(List.of(fijo, nuevo)));
+    assertTrue(indice.buscar("fria", 10).isEmpty());
+  }
+}
@@ -0,0 +1,97 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+
+/**
+ * Sin @Transactional a propósito: cada hilo debe confirmar su propia
+ * transacción contra la BD, como lo harían varios consumidores concurrentes.
+ */
+@SpringBootTest
+@DisplayName("Estadisticas: incrementos concurrentes sobre un producto caliente")
+class ProductoEstadisticasConcurrenciaTest {
+
+  private static final int HILOS = 16;
+  private static final int EVENTOS_POR_HILO = 50;
+
+  @Autowired
+  private ProductoEstadisticasService estadisticasService;
+
+  @Autowired
+  private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+  private final List<UUID> productosCreados = new ArrayList<>();
+
+  @AfterEach
+  void cleanUp() {
+    estadisticasRepository.deleteAllById(productosCreados);
+  }
+
+  private void ejecutarConcurrentemente(Runnable tarea) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+    CountDownLatch salida = new CountDownLatch(1);
+    List<Future<?>> futuros = new ArrayList<>();
+    try {
+      for (int i = 0; i < HILOS; i++) {
+        futuros.add(executor.submit(() -> {
+          salida.await();
+          for (int j = 0; j < EVENTOS_POR_HILO; j++) {
+            tarea.run();
+          }
+          return null;
+        }));
+      }
+      // Todos los hilos arrancan a la vez para maximizar la contención
+      salida.countDown();
+      for (Future<?> futuro : futuros) {
+        futuro.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("No se pierden ventas con muchos hilos sobre el mismo producto")
+  void registrarVenta_concurrente_noPierdeIncrementos() throws Exception {
+    UUID productoId = UUID.randomUUID();
+    productosCreados.add(productoId);
+
+    ejecutarConcurrentemente(() -> estadisticasService.registrarVenta(productoId, 2));
+
+    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId).orElseThrow();
+    assertEquals(HILOS * EVENTOS_POR_HILO, estadisticas.getVentasTotales());
+    assertEquals(2L * HILOS * EVENTOS_POR_HILO, estadisticas.getCantidadVendida());
+  }
+
+  @Test
+  @DisplayName("No se pierden agregados al carrito con muchos hilos sobre el mismo producto")
+  void registrarAgregadoAlCarrito_concurrente_noPierdeIncrementos() throws Exception {
+    UUID productoId = UUID.randomUUID();
+    productosCreados.add(productoId);
+
+    ejecutarConcurrentemente(() -> estadisticasService.registrarAgregadoAlCarrito(productoId));
+
+    ProductoEstadisticas estadisticas = estadisticasRepository.findById(productoId).orElseThrow();
+    assertEquals(HILOS * EVENTOS_POR_HILO, estadisticas.getVecesAgregadoAlCarrito());
+    assertNotNull(estadisticas.getUltimaAgregadoAlCarritoAt());
+  }
+}
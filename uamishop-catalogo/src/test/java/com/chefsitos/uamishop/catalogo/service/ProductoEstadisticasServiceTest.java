@@ -6,7 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.jupiter.api.DisplayName;
@@ -32,6 +34,9 @@ class ProductoEstadisticasServiceTest {
   @Autowired
   private ProductoEstadisticasJpaRepository estadisticasRepository;
 
+  @Autowired
+  private RankingMasVendidos rankingMasVendidos;
+
   // helpers
   private void crearEstadisticaEnBD(UUID productoId, int ventasTotales, int cantidadVendida, int vecesAgregadoAlCarrito,
       Instant ultimaVentaAt, Instant ultimaAgregadoAlCarritoAt) {
@@ -95,6 +100,22 @@ class ProductoEstadisticasServiceTest {
       assertNotNull(actualizado.getUltimaVentaAt());
     }
 
+    @Test
+    @DisplayName("Una venta que llega tarde no retrasa la fecha de ultima venta")
+    void registrarVenta_FueraDeOrden_ConservaLaMasReciente() {
+
+      UUID productoId = UUID.randomUUID();
+      Instant reciente = Instant.now().truncatedTo(ChronoUnit.MICROS);
+      estadisticasRepository.incrementarVentas(productoId, 1, 1, reciente);
+      // Evento anterior procesado despues
+      estadisticasRepository.incrementarVentas(productoId, 1, 1, reciente.minus(1, ChronoUnit.HOURS));
+
+      ProductoEstadisticas actualizado = estadisticasRepository.findById(productoId).orElseThrow();
+
+      assertEquals(2, actualizado.getVentasTotales());
+      assertEquals(reciente, actualizado.getUltimaVentaAt());
+    }
+
     // Caso de error
     @Test
     @DisplayName("Pasa id nulo y devuelve InvalidDataAccesApiUsageException")
@@ -146,6 +167,8 @@ class ProductoEstadisticasServiceTest {
     void obtenerMasVendidos_Ordenados_Correctamente() {
       // Persistir varias estadisticas con diferentes cantidades de ventas
       crearVariasEstadisticasEnBD(10, 30, 20);
+      // Las estadisticas se escribieron directo en la BD: recargar el ranking
+      rankingMasVendidos.recargar();
 
       List<ProductoEstadisticas> resultado = estadisticasService.obtenerMasVendidos(3);
 
@@ -161,6 +184,8 @@ class ProductoEstadisticasServiceTest {
     void obtenerMasVendidos_ComprobarLimiteMenor_Correctamente() {
 
       crearVariasEstadisticasEnBD(50, 40, 30);
+      // Las estadisticas se escribieron directo en la BD: recargar el ranking
+      rankingMasVendidos.recargar();
 
       List<ProductoEstadisticas> resultado = estadisticasService.obtenerMasVendidos(2);
 
@@ -175,6 +200,8 @@ class ProductoEstadisticasServiceTest {
     void obtenerMasVendidos_ComprobarLimiteMayor_Correctamente() {
 
       crearVariasEstadisticasEnBD(10, 30, 0);
+      // Las estadisticas se escribieron directo en la BD: recargar el ranking
+      rankingMasVendidos.recargar();
 
       List<ProductoEstadisticas> resultado = estadisticasService.obtenerMasVendidos(10);
 
@@ -183,6 +210,41 @@ class ProductoEstadisticasServiceTest {
     // No hay casos de error para probar excepciones
   }
 
+  @Nested
+  class RankingEnMemoria {
+    @Test
+    @DisplayName("Aplica el incremento en memoria a un producto del ranking sin releer la BD")
+    void actualizar_ProductoEnRanking_SumaIncremento() {
+
+      UUID productoId = UUID.randomUUID();
+      crearEstadisticaEnBD(productoId, 1, 1000, 0, Instant.now(), null);
+      rankingMasVendidos.recargar();
+
+      rankingMasVendidos.actualizar(Map.of(productoId, new long[] { 2, 7 }), Instant.now());
+
+      ProductoEstadisticas primero = estadisticasService.obtenerMasVendidos(1).get(0);
+      assertEquals(productoId, primero.getProductoId());
+      assertEquals(3, primero.getVentasTotales());
+      assertEquals(1007, primero.getCantidadVendida());
+      // La BD no se vuelve a leer: sigue con el valor del upsert original
+      assertEquals(1000, estadisticasRepository.findById(productoId).orElseThrow().getCantidadVendida());
+    }
+
+    @Test
+    @DisplayName("Agrega un producto nuevo mientras el ranking tenga hueco")
+    void actualizar_ProductoNuevoConHueco_LoAgrega() {
+
+      rankingMasVendidos.recargar();
+      UUID productoId = UUID.randomUUID();
+
+      rankingMasVendidos.actualizar(Map.of(productoId, new long[] { 1, 1_000_000 }), Instant.now());
+
+      ProductoEstadisticas primero = estadisticasService.obtenerMasVendidos(1).get(0);
+      assertEquals(productoId, primero.getProductoId());
+      assertEquals(1_000_000, primero.getCantidadVendida());
+    }
+  }
+
   @Nested
   class ObtenerEstadisticas {
     @Test
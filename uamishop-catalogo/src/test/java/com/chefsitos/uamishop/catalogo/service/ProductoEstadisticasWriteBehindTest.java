@@ -0,0 +1,65 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxEvent;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxRepository;
+import com.rabbitmq.client.Channel;
+
+@SpringBootTest(properties = "catalogo.estadisticas.write-behind.enabled=true")
+@DisplayName("Estadisticas: volcado write-behind de agregados al carrito")
+class ProductoEstadisticasWriteBehindTest {
+
+  @Autowired
+  private ProductoEstadisticasWriteBehind writeBehind;
+
+  @Autowired
+  private ProductoEstadisticasJpaRepository estadisticasRepository;
+
+  @Autowired
+  private InboxRepository inboxRepository;
+
+  private final List<UUID> productosCreados = new ArrayList<>();
+
+  @AfterEach
+  void cleanUp() {
+    estadisticasRepository.deleteAllById(productosCreados);
+  }
+
+  @Test
+  @DisplayName("Un evento ya registrado en el Inbox no se cuenta y se confirma sin devolver la generacion")
+  void flush_eventoYaRegistrado_seConfirmaSinContar() throws IOException {
+    UUID productoId = UUID.randomUUID();
+    productosCreados.add(productoId);
+    UUID registrado = UUID.randomUUID();
+    // Registrado por otra réplica: el filtro en memoria de esta no lo conoce
+    inboxRepository.save(InboxEvent.from(registrado));
+    Channel channel = mock(Channel.class);
+
+    writeBehind.registrarAgregadoAlCarrito(productoId, registrado, channel, 1);
+    writeBehind.registrarAgregadoAlCarrito(productoId, UUID.randomUUID(), channel, 2);
+    writeBehind.flush();
+
+    assertEquals(1, estadisticasRepository.findById(productoId).orElseThrow().getVecesAgregadoAlCarrito());
+    verify(channel).basicAck(1, false);
+    verify(channel).basicAck(2, false);
+    verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+  }
+}
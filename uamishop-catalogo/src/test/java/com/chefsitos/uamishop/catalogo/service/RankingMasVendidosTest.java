@@ -0,0 +1,122 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.chefsitos.uamishop.catalogo.domain.ProductoEstadisticas;
+import com.chefsitos.uamishop.catalogo.repository.ProductoEstadisticasJpaRepository;
+
+@DisplayName("Ranking: más vendidos en memoria")
+class RankingMasVendidosTest {
+
+  private static final int CAPACIDAD = 2;
+
+  private final ProductoEstadisticasJpaRepository repository = mock(ProductoEstadisticasJpaRepository.class);
+  private final RankingMasVendidos ranking = new RankingMasVendidos(repository, CAPACIDAD);
+
+  private final UUID a = UUID.randomUUID();
+  private final UUID b = UUID.randomUUID();
+  private final UUID fuera = UUID.randomUUID();
+  private final UUID nuevo = UUID.randomUUID();
+
+  private static ProductoEstadisticas estadisticas(UUID productoId, long cantidadVendida) {
+    return new ProductoEstadisticas(productoId, 1, cantidadVendida, 0, Instant.now(), null);
+  }
+
+  private void vender(UUID productoId, long unidades) {
+    ranking.actualizar(Map.of(productoId, new long[] { 1, unidades }), Instant.now());
+  }
+
+  private List<UUID> primeros() {
+    return ranking.masVendidos(CAPACIDAD).orElseThrow().stream().map(ProductoEstadisticas::getProductoId).toList();
+  }
+
+  @BeforeEach
+  void cargar() {
+    // La fila K+1 (20) es el umbral de los productos de fuera
+    when(repository.findMasVendidos(CAPACIDAD + 1))
+        .thenReturn(List.of(estadisticas(a, 100), estadisticas(b, 50), estadisticas(fuera, 20)));
+    ranking.recargar();
+  }
+
+  @Test
+  @DisplayName("Un producto de fuera que supera al mínimo entra y lo desaloja")
+  void fueraSuperaAlMinimo_entra() {
+    when(repository.findAllById(anyIterable())).thenReturn(List.of(estadisticas(nuevo, 60)));
+
+    vender(nuevo, 40);
+
+    assertEquals(List.of(a, nuevo), primeros());
+    assertEquals(60, ranking.masVendidos(CAPACIDAD).orElseThrow().get(1).getCantidadVendida());
+  }
+
+  @Test
+  @DisplayName("Sólo consulta la BD cuando la cota de un producto de fuera supera al mínimo")
+  void cotaBajoElMinimo_noConsulta() {
+    // 20 + 25 <= 50: no puede superar al mínimo
+    vender(nuevo, 25);
+    verify(repository, never()).findAllById(anyIterable());
+
+    // 45 + 10 > 50: se lee su total real, que no alcanza
+    when(repository.findAllById(anyIterable())).thenReturn(List.of(estadisticas(nuevo, 35)));
+    vender(nuevo, 10);
+    verify(repository, times(1)).findAllById(anyIterable());
+    assertEquals(List.of(a, b), primeros());
+
+    // La cota pasa a su total: 35 + 10 <= 50
+    vender(nuevo, 10);
+    verify(repository, times(1)).findAllById(anyIterable());
+  }
+
+  @Test
+  @DisplayName("El desalojado queda acotado por el mínimo con el que salió")
+  void desalojado_vuelveAEntrar() {
+    when(repository.findAllById(anyIterable())).thenReturn(List.of(estadisticas(nuevo, 60)));
+    vender(nuevo, 40);
+
+    // b salió con 50: 50 + 5 <= 60, no consulta
+    vender(b, 5);
+    verify(repository, times(1)).findAllById(anyIterable());
+
+    when(repository.findAllById(anyIterable())).thenReturn(List.of(estadisticas(b, 70)));
+    vender(b, 15);
+    assertEquals(List.of(a, b), primeros());
+  }
+
+  @Test
+  @DisplayName("Los incrementos de un producto presente no consultan la BD")
+  void presente_sumaEnMemoria() {
+    vender(b, 60);
+
+    assertEquals(List.of(b, a), primeros());
+    assertEquals(110, ranking.masVendidos(1).orElseThrow().get(0).getCantidadVendida());
+    verify(repository, never()).findAllById(anyIterable());
+  }
+
+  @Test
+  @DisplayName("Al descartar cotas el umbral sube a la mayor descartada")
+  void descartarCotas_subeUmbral() {
+    UUID descartado = UUID.randomUUID();
+    vender(descartado, 1);
+    // Supera las CAPACIDAD * 10 cotas: se descarta la mitad más baja (21..30)
+    for (int i = 2; i <= 21; i++) {
+      vender(UUID.randomUUID(), i);
+    }
+    verify(repository, never()).findAllById(anyIterable());
+
+    // Con su cota (21) no consultaría; con el nuevo umbral (30) sí
+    when(repository.findAllById(anyIterable())).thenReturn(List.of(estadisticas(descartado, 22)));
+    vender(descartado, 21);
+    verify(repository).findAllById(anyIterable());
+  }
+}
@@ -0,0 +1,152 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.chefsitos.uamishop.catalogo.service.SpaceSavingSketch.Estimacion;
+
+@DisplayName("Sketch Space-Saving: precisión frente a cuentas exactas")
+class SpaceSavingSketchTest {
+
+  @Test
+  @DisplayName("Con hueco para todos los elementos las cuentas son exactas")
+  void exactoSinDesalojos() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+    UUID a = UUID.randomUUID();
+    UUID b = UUID.randomUUID();
+    for (int i = 0; i < 5; i++) {
+      sketch.registrar(a);
+    }
+    sketch.registrar(b);
+
+    List<Estimacion> top = sketch.primeros(10);
+    assertEquals(List.of(new Estimacion(a, 5, 0), new Estimacion(b, 1, 0)), top);
+  }
+
+  @Test
+  @DisplayName("Al llenarse, el nuevo elemento hereda la cuenta mínima como error")
+  void desalojaMinimo() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+    UUID a = UUID.randomUUID();
+    UUID b = UUID.randomUUID();
+    UUID c = UUID.randomUUID();
+    sketch.registrar(a);
+    sketch.registrar(a);
+    sketch.registrar(b);
+    sketch.registrar(c);
+
+    assertEquals(2, sketch.size());
+    List<Estimacion> top = sketch.primeros(2);
+    assertEquals(List.of(new Estimacion(a, 2, 0), new Estimacion(c, 2, 1)), top);
+  }
+
+  @Test
+  @DisplayName("Un registro ponderado con el sketch lleno reemplaza al mínimo con mínimo + peso")
+  void registroPonderadoDesaloja() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+    UUID a = UUID.randomUUID();
+    UUID b = UUID.randomUUID();
+    UUID c = UUID.randomUUID();
+    sketch.registrar(a, 5);
+    sketch.registrar(b, 2);
+    sketch.registrar(c, 4);
+
+    assertEquals(11, sketch.total());
+    assertEquals(List.of(new Estimacion(c, 6, 2), new Estimacion(a, 5, 0)), sketch.primeros(2));
+  }
+
+  @Test
+  @DisplayName("Registrar con peso deja el sketch igual que registrar una a una")
+  void registroPonderadoEquivaleAUnitario() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      ids.add(UUID.randomUUID());
+    }
+    SpaceSavingSketch ponderado = new SpaceSavingSketch(50);
+    SpaceSavingSketch unitario = new SpaceSavingSketch(50);
+    Random random = new Random(11);
+    for (int i = 0; i < 5_000; i++) {
+      UUID id = ids.get(random.nextInt(ids.size()));
+      int peso = 1 + random.nextInt(20);
+      ponderado.registrar(id, peso);
+      for (int j = 0; j < peso; j++) {
+        unitario.registrar(id);
+      }
+    }
+
+    assertEquals(unitario.total(), ponderado.total());
+    assertEquals(unitario.primeros(50), ponderado.primeros(50));
+  }
+
+  @Test
+  @DisplayName("Rechaza pesos no positivos")
+  void pesoNoPositivo() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+
+    assertThrows(IllegalArgumentException.class, () -> sketch.registrar(UUID.randomUUID(), 0));
+  }
+
+  /**
+   * Flujo Zipf (s=1.1) de 200k eventos sobre 20k productos con sólo 500
+   * contadores: los 20 más frecuentes deben salir todos, y cada estimación
+   * debe acotar la cuenta real.
+   */
+  @Test
+  @DisplayName("Con un flujo Zipf encuentra los más frecuentes y respeta las cotas de error")
+  void precisionFlujoZipf() {
+    int productos = 20_000;
+    int eventos = 200_000;
+    int capacidad = 500;
+    int k = 20;
+
+    List<UUID> ids = new ArrayList<>(productos);
+    double[] acumulada = new double[productos];
+    double suma = 0;
+    for (int i = 0; i < productos; i++) {
+      ids.add(UUID.randomUUID());
+      suma += 1.0 / Math.pow(i + 1, 1.1);
+      acumulada[i] = suma;
+    }
+
+    SpaceSavingSketch sketch = new SpaceSavingSketch(capacidad);
+    Map<UUID, Long> exacto = new HashMap<>();
+    Random random = new Random(7);
+    for (int i = 0; i < eventos; i++) {
+      double u = random.nextDouble() * suma;
+      int pos = Arrays.binarySearch(acumulada, u);
+      UUID id = ids.get(pos >= 0 ? pos : -pos - 1);
+      sketch.registrar(id);
+      exacto.merge(id, 1L, Long::sum);
+    }
+
+    assertEquals(eventos, sketch.total());
+
+    for (Estimacion estimacion : sketch.primeros(capacidad)) {
+      long real = exacto.getOrDefault(estimacion.id(), 0L);
+      assertTrue(estimacion.cuenta() - estimacion.error() <= real, "cota inferior para " + estimacion);
+      assertTrue(real <= estimacion.cuenta(), "cota superior para " + estimacion);
+      assertTrue(estimacion.error() <= eventos / capacidad, "error acotado por N/capacidad");
+    }
+
+    Set<UUID> topExacto = new HashSet<>(exacto.entrySet().stream()
+        .sorted(Map.Entry.<UUID, Long>comparingByValue(Comparator.reverseOrder()))
+        .limit(k)
+        .map(Map.Entry::getKey)
+        .toList());
+    Set<UUID> topSketch = new HashSet<>(sketch.primeros(k).stream().map(Estimacion::id).toList());
+    assertEquals(topExacto, topSketch);
+  }
+}
@@ -0,0 +1,86 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Ranking: top-K de valores crecientes")
+class TopKRankingTest {
+
+  @Test
+  @DisplayName("Devuelve los de mayor valor en orden descendente")
+  void primerosOrdenados() {
+    TopKRanking<String> ranking = new TopKRanking<>(3);
+    ranking.ofrecer(UUID.randomUUID(), 10, "a");
+    ranking.ofrecer(UUID.randomUUID(), 30, "b");
+    ranking.ofrecer(UUID.randomUUID(), 20, "c");
+
+    assertEquals(List.of("b", "c", "a"), ranking.primeros(3));
+    assertEquals(List.of("b", "c"), ranking.primeros(2));
+    assertEquals(List.of("b", "c", "a"), ranking.primeros(10));
+  }
+
+  @Test
+  @DisplayName("Al llenarse desaloja al mínimo y rechaza valores menores")
+  void desalojaMinimo() {
+    TopKRanking<String> ranking = new TopKRanking<>(2);
+    ranking.ofrecer(UUID.randomUUID(), 10, "a");
+    ranking.ofrecer(UUID.randomUUID(), 20, "b");
+
+    assertFalse(ranking.ofrecer(UUID.randomUUID(), 5, "c"));
+    assertTrue(ranking.ofrecer(UUID.randomUUID(), 15, "d"));
+
+    assertEquals(2, ranking.size());
+    assertEquals(List.of("b", "d"), ranking.primeros(2));
+  }
+
+  @Test
+  @DisplayName("Actualizar un elemento presente lo reordena sin duplicarlo")
+  void actualizaPresente() {
+    TopKRanking<String> ranking = new TopKRanking<>(3);
+    UUID a = UUID.randomUUID();
+    ranking.ofrecer(a, 10, "a1");
+    ranking.ofrecer(UUID.randomUUID(), 20, "b");
+    ranking.ofrecer(a, 25, "a2");
+
+    assertEquals(2, ranking.size());
+    assertEquals(List.of("a2", "b"), ranking.primeros(3));
+  }
+
+  @Test
+  @DisplayName("Con incrementos aleatorios coincide con el top-K exacto")
+  void coincideConTopExacto() {
+    int k = 10;
+    TopKRanking<UUID> ranking = new TopKRanking<>(k);
+    Map<UUID, Long> exacto = new HashMap<>();
+    List<UUID> productos = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      productos.add(UUID.randomUUID());
+    }
+
+    Random random = new Random(42);
+    for (int i = 0; i < 5_000; i++) {
+      UUID producto = productos.get(random.nextInt(productos.size()));
+      long valor = exacto.merge(producto, 1L + random.nextInt(5), Long::sum);
+      ranking.ofrecer(producto, valor, producto);
+    }
+
+    List<Long> esperados = exacto.values().stream()
+        .sorted(Comparator.reverseOrder())
+        .limit(k)
+        .toList();
+    List<Long> obtenidos = ranking.primeros(k).stream()
+        .map(exacto::get)
+        .toList();
+    assertEquals(esperados, obtenidos);
+  }
+}
@@ -0,0 +1,140 @@
+package com.chefsitos.uamishop.catalogo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.chefsitos.uamishop.catalogo.service.VentasPorVentana.VentasEnVentana;
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+@DisplayName("Estadisticas: ventas por ventana de tiempo")
+class VentasPorVentanaTest {
+
+  /** Reloj que el test avanza a mano. */
+  private static final class RelojManual extends Clock {
+    private Instant ahora = Instant.parse("2026-01-05T10:00:00Z");
+
+    void avanzar(Duration duracion) {
+      ahora = ahora.plus(duracion);
+    }
+
+    @Override
+    public Instant instant() {
+      return ahora;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+
+  private RelojManual reloj;
+  private VentasPorVentana ventas;
+
+  @BeforeEach
+  void setUp() {
+    reloj = new RelojManual();
+    ventas = new VentasPorVentana(reloj);
+  }
+
+  private long unidades(VentanaVentas ventana, UUID productoId) {
+    return ventas.masVendidos(ventana, 100).stream()
+        .filter(v -> v.productoId().equals(productoId))
+        .mapToLong(VentasEnVentana::cantidadVendida)
+        .findFirst()
+        .orElse(0);
+  }
+
+  @Test
+  @DisplayName("Las ventas salen de cada ventana al envejecer")
+  void ventasExpiranPorVentana() {
+    UUID producto = UUID.randomUUID();
+    ventas.registrar(producto, 3);
+    reloj.avanzar(Duration.ofMinutes(30));
+    ventas.registrar(producto, 2);
+
+    assertEquals(5, unidades(VentanaVentas.HORA, producto));
+
+    reloj.avanzar(Duration.ofMinutes(31));
+    assertEquals(2, unidades(VentanaVentas.HORA, producto));
+    assertEquals(5, unidades(VentanaVentas.DIA, producto));
+
+    reloj.avanzar(Duration.ofHours(1));
+    assertEquals(0, unidades(VentanaVentas.HORA, producto));
+    assertEquals(5, unidades(VentanaVentas.DIA, producto));
+
+    reloj.avanzar(Duration.ofHours(23));
+    assertEquals(0, unidades(VentanaVentas.DIA, producto));
+    assertEquals(5, unidades(VentanaVentas.SEMANA, producto));
+
+    reloj.avanzar(Duration.ofDays(7));
+    assertEquals(0, unidades(VentanaVentas.SEMANA, producto));
+  }
+
+  @Test
+  @DisplayName("Ordena por unidades en la ventana y respeta el límite")
+  void ordenaYLimita() {
+    UUID antiguo = UUID.randomUUID();
+    UUID reciente = UUID.randomUUID();
+    UUID menor = UUID.randomUUID();
+
+    ventas.registrar(antiguo, 50);
+    reloj.avanzar(Duration.ofHours(2));
+    ventas.registrar(reciente, 10);
+    ventas.registrar(menor, 1);
+
+    List<VentasEnVentana> hora = ventas.masVendidos(VentanaVentas.HORA, 1);
+    assertEquals(1, hora.size());
+    assertEquals(reciente, hora.get(0).productoId());
+
+    List<VentasEnVentana> dia = ventas.masVendidos(VentanaVentas.DIA, 10);
+    assertEquals(List.of(antiguo, reciente, menor), dia.stream().map(VentasEnVentana::productoId).toList());
+  }
+
+  @Test
+  @DisplayName("Los huecos largos sin ventas no dejan cubetas viejas")
+  void huecoLargo() {
+    UUID producto = UUID.randomUUID();
+    ventas.registrar(producto, 4);
+    reloj.avanzar(Duration.ofDays(10));
+    ventas.registrar(producto, 1);
+
+    assertEquals(1, unidades(VentanaVentas.HORA, producto));
+    assertEquals(1, unidades(VentanaVentas.DIA, producto));
+    assertEquals(1, unidades(VentanaVentas.SEMANA, producto));
+  }
+
+  @Test
+  @DisplayName("Purgar descarta los productos sin ventas en la semana")
+  void purgaProductosInactivos() {
+    UUID producto = UUID.randomUUID();
+    ventas.registrar(producto, 1);
+    reloj.avanzar(Duration.ofDays(8));
+    ventas.purgar();
+
+    assertTrue(ventas.masVendidos(VentanaVentas.SEMANA, 10).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Una ventana desconocida lanza BadRequestException")
+  void ventanaInvalida() {
+    assertEquals(VentanaVentas.DIA, VentanaVentas.desde("24h"));
+    assertThrows(BadRequestException.class, () -> VentanaVentas.desde("2h"));
+  }
+}
@@ -1,7 +1,10 @@
 package com.chefsitos.uamishop.ordenes.service;
 
 import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.UUID;
 
@@ -90,9 +93,18 @@ public class OrdenService {
         request.direccion().telefono(),
         request.direccion().instrucciones());
 
+    // Todos los productos de la orden en una sola llamada al catálogo
+    Map<UUID, ProductoDTO> productos = productoService.buscarPorIds(request.items().stream()
+        .map(i -> UUID.fromString(i.productoId()))
+        .collect(Collectors.toCollection(LinkedHashSet::new))).stream()
+        .collect(Collectors.toMap(ProductoDTO::idProducto, Function.identity()));
+
     List<ItemOrden> items = request.items().stream()
         .map(i -> {
-          ProductoDTO producto = productoService.buscarPorId(UUID.fromString(i.productoId()));
+          ProductoDTO producto = productos.get(UUID.fromString(i.productoId()));
+          if (producto == null) {
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + i.productoId());
+          }
           return new ItemOrden(
               ProductoId.of(i.productoId()),
               producto.nombreProducto(),
@@ -132,7 +144,8 @@ public class OrdenService {
         "ProductoComprado",
         evento,
         RabbitExchangeConfig.EVENTS_EXCHANGE,
-        RabbitConfig.RK_PRODUCTO_COMPRADO);
+        RabbitConfig.RK_PRODUCTO_COMPRADO,
+        ordenGuardada.getId().getValue());
 
     log.info(ROSA + "Evento: ProductoComprado registrado en Outbox" + RESET
         + " | ordenId={}, clienteId={}, totalItems={}",
@@ -181,7 +194,8 @@ public class OrdenService {
         "ProductoComprado",
         eventoProductos,
         RabbitExchangeConfig.EVENTS_EXCHANGE,
-        RabbitConfig.RK_PRODUCTO_COMPRADO);
+        RabbitConfig.RK_PRODUCTO_COMPRADO,
+        nuevaOrden.getId().getValue());
     log.info(ROSA + "Evento: ProductoComprado registrado en Outbox" + RESET
         + " | ordenId={}, clienteId={}, totalItems={}",
         nuevaOrden.getId().getValue(), nuevaOrden.getClienteId().valor(), itemsEvento.size());
@@ -199,7 +213,8 @@ public class OrdenService {
         "OrdenCreada",
         ordenCreadaEvent,
         RabbitExchangeConfig.EVENTS_EXCHANGE,
-        RabbitConfig.RK_ORDEN_CREADA);
+        RabbitConfig.RK_ORDEN_CREADA,
+        nuevaOrden.getId().getValue());
     log.info(ROSA + "Evento: OrdenCreada registrado en Outbox" + RESET
         + " | ordenId={}, carritoId={}, clienteId={}",
         nuevaOrden.getId().getValue(), carritoId.getValue(), nuevaOrden.getClienteId().valor());
@@ -0,0 +1,16 @@
+package com.chefsitos.uamishop.shared.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Contrato común de los eventos de integración. El Outbox usa el eventId como
+ * id del registro y como message-id AMQP, para que los consumidores puedan
+ * deduplicar sin deserializar el payload.
+ */
+public interface DomainEvent {
+
+  UUID eventId();
+
+  Instant occurredAt();
+}
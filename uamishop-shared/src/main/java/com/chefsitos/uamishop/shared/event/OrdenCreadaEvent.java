@@ -8,5 +8,5 @@ public record OrdenCreadaEvent(
     Instant occurredAt,
     UUID ordenId,
     UUID carritoId,
-    UUID clienteId) {
+    UUID clienteId) implements DomainEvent {
 }
@@ -11,5 +11,5 @@ public record ProductoAgregadoAlCarritoEvent(
     UUID carritoId,
     int cantidad,
     BigDecimal precioUnitario,
-    String moneda) {
+    String moneda) implements DomainEvent {
 }
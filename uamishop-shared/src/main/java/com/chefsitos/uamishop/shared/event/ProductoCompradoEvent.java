@@ -10,7 +10,7 @@ public record ProductoCompradoEvent(
     Instant occurredAt,
     UUID ordenId,
     UUID clienteId,
-    List<ItemComprado> items) {
+    List<ItemComprado> items) implements DomainEvent {
 
   public record ItemComprado(
       UUID productoId,
@@ -0,0 +1,56 @@
+package com.chefsitos.uamishop.shared.infraestructure.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU de respuestas HTTP junto con su ETag, para revalidarlas con
+ * If-None-Match en lugar de volver a descargarlas. Segura para hilos; al
+ * superar la capacidad descarta la entrada usada hace más tiempo.
+ */
+public class CacheCondicional<K, V> {
+
+  /**
+   * Respuesta guardada y el ETag con el que llegó.
+   */
+  public record Entrada<V>(String etag, V valor) {
+  }
+
+  private final Map<K, Entrada<V>> entradas;
+
+  public CacheCondicional(int capacidad) {
+    if (capacidad < 1) {
+      throw new IllegalArgumentException("La capacidad debe ser mayor a cero");
+    }
+    this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+        return size() > capacidad;
+      }
+    };
+  }
+
+  public synchronized Entrada<V> obtener(K clave) {
+    return entradas.get(clave);
+  }
+
+  /**
+   * Guarda la respuesta; sin ETag no se puede revalidar, así que se descarta
+   * la entrada anterior en vez de guardarla.
+   */
+  public synchronized void guardar(K clave, String etag, V valor) {
+    if (etag == null || valor == null) {
+      entradas.remove(clave);
+      return;
+    }
+    entradas.put(clave, new Entrada<>(etag, valor));
+  }
+
+  public synchronized void eliminar(K clave) {
+    entradas.remove(clave);
+  }
+
+  public synchronized int size() {
+    return entradas.size();
+  }
+}
@@ -0,0 +1,20 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Registro por lotes en el Inbox: un único INSERT IGNORE multi-fila para
+ * muchos eventos a la vez.
+ */
+public interface InboxBatchRepository {
+
+  /**
+   * Registra los eventos que aún no existen; los ya registrados se ignoran
+   * sin lanzar excepción, como en insertIfAbsent.
+   *
+   * @return número de eventos insertados (los nuevos)
+   */
+  int insertAllIfAbsent(Collection<UUID> eventIds, Instant processedAt);
+}
@@ -0,0 +1,45 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+class InboxBatchRepositoryImpl implements InboxBatchRepository {
+
+  /** Filas por sentencia; acota el tamaño del SQL y el número de parámetros. */
+  private static final int FILAS_POR_SENTENCIA = 500;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public int insertAllIfAbsent(Collection<UUID> eventIds, Instant processedAt) {
+    List<UUID> ids = new ArrayList<>(eventIds);
+    int insertados = 0;
+    for (int desde = 0; desde < ids.size(); desde += FILAS_POR_SENTENCIA) {
+      insertados += insertIgnore(ids.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, ids.size())), processedAt);
+    }
+    return insertados;
+  }
+
+  private int insertIgnore(List<UUID> bloque, Instant processedAt) {
+    StringBuilder sql = new StringBuilder("INSERT IGNORE INTO {h-schema}inbox_events (event_id, processed_at) VALUES ");
+    for (int i = 0; i < bloque.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append("(?, ?)");
+    }
+
+    Query query = entityManager.createNativeQuery(sql.toString());
+    int posicion = 1;
+    for (UUID eventId : bloque) {
+      query.setParameter(posicion++, eventId);
+      query.setParameter(posicion++, processedAt);
+    }
+    return query.executeUpdate();
+  }
+}
@@ -0,0 +1,101 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compactación de la tabla Inbox: elimina los registros procesados hace más
+ * de {@code inbox.compaction.max-age}, que debe superar el horizonte máximo
+ * de reentrega del broker (pasado ese plazo un duplicado ya no puede llegar).
+ *
+ * Avanza por franjas de tiempo de {@code inbox.compaction.bucket}, de la más
+ * antigua a la más reciente, y dentro de cada franja borra en bloques de
+ * {@code inbox.compaction.chunk-size} filas, cada uno en su propia
+ * transacción corta, para no mantener bloqueos largos sobre la tabla que
+ * usan los listeners.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbox.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class InboxCompactionJob {
+
+  private final InboxRepository inboxRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration maxAge;
+  private final Duration bucket;
+  private final int chunkSize;
+  private final int maxChunksPerRun;
+  private final Counter purgedCounter;
+  private final AtomicLong tableRows = new AtomicLong();
+
+  public InboxCompactionJob(InboxRepository inboxRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${inbox.compaction.max-age:P7D}") Duration maxAge,
+      @Value("${inbox.compaction.bucket:PT1H}") Duration bucket,
+      @Value("${inbox.compaction.chunk-size:1000}") int chunkSize,
+      @Value("${inbox.compaction.max-chunks-per-run:200}") int maxChunksPerRun) {
+    this.inboxRepository = inboxRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.maxAge = maxAge;
+    this.bucket = bucket;
+    this.chunkSize = chunkSize;
+    this.maxChunksPerRun = maxChunksPerRun;
+    this.purgedCounter = Counter.builder("inbox.compaction.rows")
+        .description("Registros del Inbox eliminados por antigüedad")
+        .register(meterRegistry);
+    Gauge.builder("inbox.table.rows", tableRows, AtomicLong::get)
+        .description("Registros en inbox_events tras la última compactación")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${inbox.compaction.delay:3600000}",
+      initialDelayString = "${inbox.compaction.initial-delay:120000}")
+  public void compact() {
+    Instant cutoff = Instant.now().minus(maxAge);
+    int total = 0;
+
+    // Franja más antigua primero: cada bloque borra sólo filas anteriores a
+    // (más antigua + bucket), así el rango del índice processed_at que recorre
+    // es corto aunque haya huecos o mucho atraso
+    for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+      Instant oldest = inboxRepository.findOldestProcessedAt();
+      if (oldest == null || !oldest.isBefore(cutoff)) {
+        break;
+      }
+      Instant limit = oldest.plus(bucket);
+      int removed = purgeChunk(limit.isAfter(cutoff) ? cutoff : limit);
+      total += removed;
+      purgedCounter.increment(removed);
+    }
+
+    tableRows.set(inboxRepository.count());
+    if (total > 0) {
+      log.info("Inbox Compaction: {} registros procesados antes de {} eliminados", total, cutoff);
+    }
+  }
+
+  private int purgeChunk(Instant before) {
+    Integer removed = transactionTemplate.execute(status -> {
+      List<UUID> ids = inboxRepository.findEventIdsProcessedBefore(before, PageRequest.of(0, chunkSize));
+      return ids.isEmpty() ? 0 : inboxRepository.deleteByIds(ids);
+    });
+    return removed == null ? 0 : removed;
+  }
+}
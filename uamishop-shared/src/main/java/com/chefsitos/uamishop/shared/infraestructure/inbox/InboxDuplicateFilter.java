@@ -0,0 +1,79 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.util.UUID;
+
+import org.springframework.amqp.ImmediateAcknowledgeAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pre-filtro de los listeners AMQP: descarta un mensaje duplicado leyendo sólo
+ * su message-id, antes de convertir el payload JSON.
+ *
+ * La consulta pasa por el InboxIdempotencyFilter, así que un mensaje nuevo
+ * normalmente no toca la BD. Si el message-id ya está en el Inbox se lanza
+ * ImmediateAcknowledgeAmqpException, con lo que el contenedor confirma (ack)
+ * el mensaje sin invocar al listener. Los mensajes sin message-id o con uno
+ * que no es UUID pasan tal cual y los deduplica el propio listener.
+ *
+ * Ese descarte por excepción sólo es seguro en contenedores de un mensaje
+ * con ack automático. En los de lotes (consumerBatchEnabled) la excepción
+ * sale del bucle del consumidor y devuelve a la cola el lote entero, y en los
+ * de ack manual el ack forzado del contenedor confirma también los mensajes
+ * anteriores aún pendientes. Los listeners de esas factorías reciben el
+ * Message sin convertir y llaman a {@link #isDuplicate(Message)} antes de
+ * deserializar.
+ */
+@Slf4j
+@Component
+public class InboxDuplicateFilter implements MessagePostProcessor {
+
+  private final InboxIdempotencyFilter idempotencyFilter;
+  private final Counter duplicatesCounter;
+
+  public InboxDuplicateFilter(InboxIdempotencyFilter idempotencyFilter, MeterRegistry meterRegistry) {
+    this.idempotencyFilter = idempotencyFilter;
+    this.duplicatesCounter = Counter.builder("inbox.prefilter.duplicates")
+        .description("Mensajes duplicados descartados por message-id antes de deserializar")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Message postProcessMessage(Message message) {
+    if (isDuplicate(message)) {
+      throw new ImmediateAcknowledgeAmqpException(
+          "Evento ya procesado: " + message.getMessageProperties().getMessageId());
+    }
+    return message;
+  }
+
+  /**
+   * Indica, sólo por su message-id, si el mensaje es un evento ya procesado.
+   */
+  public boolean isDuplicate(Message message) {
+    UUID eventId = eventId(message);
+    if (eventId == null || !idempotencyFilter.isDuplicate(eventId)) {
+      return false;
+    }
+    duplicatesCounter.increment();
+    log.debug("Mensaje duplicado descartado por message-id: {}", eventId);
+    return true;
+  }
+
+  private static UUID eventId(Message message) {
+    String messageId = message.getMessageProperties().getMessageId();
+    if (messageId == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(messageId);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -3,9 +3,12 @@ package com.chefsitos.uamishop.shared.infraestructure.inbox;
 import java.time.Instant;
 import java.util.UUID;
 
+import org.springframework.data.domain.Persistable;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -17,11 +20,14 @@ import lombok.NoArgsConstructor;
  * Almacena el ID de los eventos ya procesados para evitar procesarlos 2 veces.
  */
 @Entity
-@Table(name = "inbox_events")
+@Table(name = "inbox_events", indexes = {
+    // Compactación por antigüedad
+    @Index(name = "idx_inbox_processed_at", columnList = "processed_at")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
-public class InboxEvent {
+public class InboxEvent implements Persistable<UUID> {
 
   @Id
   @Column(name = "event_id", updatable = false, nullable = false)
@@ -33,4 +39,18 @@ public class InboxEvent {
   public static InboxEvent from(UUID eventId) {
     return new InboxEvent(eventId, Instant.now());
   }
+
+  @Override
+  public UUID getId() {
+    return eventId;
+  }
+
+  /**
+   * Un registro del Inbox sólo se inserta; se evita el SELECT previo de
+   * merge() y un duplicado lo rechaza la clave primaria.
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
 }
@@ -0,0 +1,227 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filtro de idempotencia en memoria delante del InboxRepository.
+ *
+ * Combina una LRU de ids vistos recientemente con un filtro de Bloom rotativo
+ * (generación actual + anterior, rotadas cada {@code inbox.filter.rotation}),
+ * precargado al arrancar con los ids de inbox_events de las dos últimas
+ * generaciones.
+ *
+ * - {@link #isDuplicate(UUID)}: si la LRU lo tiene es duplicado; si el Bloom
+ *   no lo tiene es nuevo sin consultar la BD; sólo los aciertos inciertos
+ *   del Bloom bajan a MySQL.
+ * - {@link #register(UUID)}: camino caliente del listener, un único INSERT
+ *   IGNORE en la transacción del listener; la clave primaria es el árbitro
+ *   final (p. ej. otra réplica consumió el mismo mensaje).
+ * - {@link #registerAll(Collection)}: variante para listeners por lotes; un
+ *   INSERT IGNORE multi-fila y, sólo si hubo duplicados, una consulta para
+ *   saber cuáles.
+ *
+ * Los ids se añaden a la memoria sólo tras el commit, para no marcar como
+ * visto un evento cuyo procesamiento se revirtió.
+ */
+@Slf4j
+@Component
+public class InboxIdempotencyFilter {
+
+  private final InboxRepository inboxRepository;
+  private final Map<UUID, Boolean> recent;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final Duration rotation;
+  private final int warmUpLimit;
+
+  private volatile UuidBloomFilter current;
+  private volatile UuidBloomFilter previous;
+
+  private final Counter lruHits;
+  private final Counter bloomNegatives;
+  private final Counter databaseChecks;
+
+  public InboxIdempotencyFilter(InboxRepository inboxRepository,
+      MeterRegistry meterRegistry,
+      @Value("${inbox.filter.lru-size:10000}") int lruSize,
+      @Value("${inbox.filter.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${inbox.filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${inbox.filter.rotation:PT24H}") Duration rotation,
+      @Value("${inbox.filter.warm-up-limit:1000000}") int warmUpLimit) {
+    this.inboxRepository = inboxRepository;
+    this.recent = Collections.synchronizedMap(new LinkedHashMap<>(lruSize, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+        return size() > lruSize;
+      }
+    });
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.rotation = rotation;
+    this.warmUpLimit = warmUpLimit;
+    this.current = newBloom();
+    this.previous = newBloom();
+
+    this.lruHits = Counter.builder("inbox.filter.lookups")
+        .description("Consultas al filtro de idempotencia del Inbox")
+        .tag("result", "lru_hit")
+        .register(meterRegistry);
+    this.bloomNegatives = Counter.builder("inbox.filter.lookups")
+        .description("Consultas al filtro de idempotencia del Inbox")
+        .tag("result", "bloom_negative")
+        .register(meterRegistry);
+    this.databaseChecks = Counter.builder("inbox.filter.lookups")
+        .description("Consultas al filtro de idempotencia del Inbox")
+        .tag("result", "database")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return true si el evento ya se procesó; false si es nuevo
+   */
+  public boolean isDuplicate(UUID eventId) {
+    if (recent.containsKey(eventId)) {
+      lruHits.increment();
+      return true;
+    }
+    if (!mightContain(eventId)) {
+      bloomNegatives.increment();
+      return false;
+    }
+    databaseChecks.increment();
+    boolean exists = inboxRepository.existsById(eventId);
+    if (exists) {
+      remember(eventId);
+    }
+    return exists;
+  }
+
+  /**
+   * Registra el evento en el Inbox dentro de la transacción activa.
+   *
+   * @return true si el evento es nuevo y debe procesarse; false si es
+   *         duplicado
+   */
+  public boolean register(UUID eventId) {
+    if (recent.containsKey(eventId)) {
+      lruHits.increment();
+      return false;
+    }
+    if (inboxRepository.insertIfAbsent(eventId, Instant.now()) == 0) {
+      remember(eventId);
+      return false;
+    }
+    rememberAfterCommit(eventId);
+    return true;
+  }
+
+  /**
+   * Registra un lote de eventos en el Inbox dentro de la transacción activa,
+   * con un INSERT IGNORE por lotes. La BD decide qué ids son nuevos: el Bloom
+   * es por réplica y sólo cubre dos generaciones, así que no basta para
+   * descartar ids que otra réplica, una generación antigua o un replay ya
+   * registraron.
+   *
+   * Si no se insertaron todos, las filas nuevas se reconocen por llevar el
+   * {@code processedAt} de esta llamada. En el caso (muy improbable) de que
+   * otra fila confirmada coincida en ese instante, no se puede saber cuáles
+   * son propias: se lanza IllegalStateException, la transacción se revierte
+   * y la reentrega usa otro instante.
+   *
+   * @return ids nuevos, en el orden recibido, que deben procesarse
+   */
+  public Set<UUID> registerAll(Collection<UUID> eventIds) {
+    Set<UUID> candidates = new LinkedHashSet<>();
+    for (UUID eventId : eventIds) {
+      if (recent.containsKey(eventId)) {
+        lruHits.increment();
+      } else {
+        candidates.add(eventId);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return candidates;
+    }
+
+    databaseChecks.increment(candidates.size());
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    int inserted = inboxRepository.insertAllIfAbsent(candidates, now);
+    if (inserted < candidates.size()) {
+      Set<UUID> nuevos = inserted == 0
+          ? Set.of()
+          : new HashSet<>(inboxRepository.findEventIdsProcessedAt(candidates, now));
+      if (nuevos.size() != inserted) {
+        throw new IllegalStateException("Inbox: no se pudieron distinguir los " + inserted
+            + " eventos nuevos de un lote de " + candidates.size());
+      }
+      candidates.stream().filter(id -> !nuevos.contains(id)).forEach(this::remember);
+      candidates.retainAll(nuevos);
+    }
+    candidates.forEach(this::rememberAfterCommit);
+    return candidates;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Instant since = Instant.now().minus(rotation.multipliedBy(2));
+    List<UUID> ids = inboxRepository.findEventIdsProcessedSince(since, PageRequest.of(0, warmUpLimit));
+    ids.forEach(current::put);
+    log.info("Inbox: filtro de idempotencia precargado con {} eventos", ids.size());
+  }
+
+  @Scheduled(fixedDelayString = "${inbox.filter.rotation:PT24H}", initialDelayString = "${inbox.filter.rotation:PT24H}")
+  public void rotate() {
+    previous = current;
+    current = newBloom();
+  }
+
+  private boolean mightContain(UUID eventId) {
+    return current.mightContain(eventId) || previous.mightContain(eventId);
+  }
+
+  private void remember(UUID eventId) {
+    recent.put(eventId, Boolean.TRUE);
+    current.put(eventId);
+  }
+
+  private void rememberAfterCommit(UUID eventId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      remember(eventId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        remember(eventId);
+      }
+    });
+  }
+
+  private UuidBloomFilter newBloom() {
+    return new UuidBloomFilter(expectedInsertions, falsePositiveRate);
+  }
+}
@@ -0,0 +1,29 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra el InboxDuplicateFilter en los contenedores de los @RabbitListener
+ * creados por la factoría por defecto de Spring Boot.
+ *
+ * Spring Boot no aplica este customizer a las factorías que declara cada
+ * servicio; las de lotes y ack manual no pueden usarlo (ver
+ * InboxDuplicateFilter) y sus listeners filtran con
+ * InboxDuplicateFilter.isDuplicate(Message).
+ *
+ * Se desactiva con {@code inbox.pre-filter.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inbox.pre-filter.enabled", havingValue = "true", matchIfMissing = true)
+public class InboxListenerConfig {
+
+  @Bean
+  public ContainerCustomizer<SimpleMessageListenerContainer> inboxContainerCustomizer(
+      InboxDuplicateFilter duplicateFilter) {
+    return container -> container.addAfterReceivePostProcessors(duplicateFilter);
+  }
+}
@@ -1,13 +1,62 @@
 package com.chefsitos.uamishop.shared.infraestructure.inbox;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repositorio para consultar si un evento ya fue procesado en el Inbox.
  */
 @Repository
-public interface InboxRepository extends JpaRepository<InboxEvent, UUID> {
+public interface InboxRepository extends JpaRepository<InboxEvent, UUID>, InboxBatchRepository {
+
+  /**
+   * Registra el evento si no existe, en un único INSERT (MySQL INSERT IGNORE).
+   * La clave primaria decide: no lanza excepción ante un duplicado, así la
+   * transacción del listener sigue siendo válida.
+   *
+   * @return 1 si se insertó (evento nuevo), 0 si ya estaba registrado
+   */
+  @Modifying
+  @Query(value = "INSERT IGNORE INTO {h-schema}inbox_events (event_id, processed_at) VALUES (:eventId, :processedAt)",
+      nativeQuery = true)
+  int insertIfAbsent(@Param("eventId") UUID eventId, @Param("processedAt") Instant processedAt);
+
+  /**
+   * Ids procesados a partir de {@code since}; se usa para precargar el filtro
+   * de idempotencia al arrancar.
+   */
+  @Query("SELECT e.eventId FROM InboxEvent e WHERE e.processedAt >= :since ORDER BY e.processedAt DESC")
+  List<UUID> findEventIdsProcessedSince(@Param("since") Instant since, Pageable pageable);
+
+  /**
+   * Ids procesados antes de {@code before}, los más antiguos primero.
+   */
+  @Query("SELECT e.eventId FROM InboxEvent e WHERE e.processedAt < :before ORDER BY e.processedAt ASC")
+  List<UUID> findEventIdsProcessedBefore(@Param("before") Instant before, Pageable pageable);
+
+  @Query("SELECT e.eventId FROM InboxEvent e WHERE e.eventId IN :ids")
+  List<UUID> findExistingEventIds(@Param("ids") Collection<UUID> ids);
+
+  /**
+   * De los {@code ids}, los registrados exactamente en {@code processedAt};
+   * distingue las filas que acaba de insertar insertAllIfAbsent.
+   */
+  @Query("SELECT e.eventId FROM InboxEvent e WHERE e.eventId IN :ids AND e.processedAt = :processedAt")
+  List<UUID> findEventIdsProcessedAt(@Param("ids") Collection<UUID> ids, @Param("processedAt") Instant processedAt);
+
+  @Query("SELECT MIN(e.processedAt) FROM InboxEvent e")
+  Instant findOldestProcessedAt();
+
+  @Modifying
+  @Query("DELETE FROM InboxEvent e WHERE e.eventId IN :ids")
+  int deleteByIds(@Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,62 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de UUIDs, seguro para hilos y sin bloqueos.
+ * Usa doble hashing (Kirsch–Mitzenmacher) con dos hashes que mezclan ambas
+ * mitades del UUID: si uno dependiera de una sola mitad, los ids con esa mitad
+ * constante compartirían siempre el mismo primer bit.
+ */
+final class UuidBloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  UuidBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  void put(UUID id) {
+    long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    long h2 = mix(h1 ^ id.getLeastSignificantBits());
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  boolean mightContain(UUID id) {
+    long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    long h2 = mix(h1 ^ id.getLeastSignificantBits());
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Finalizador de SplitMix64: reparte bien bits de entradas poco aleatorias. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,82 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Evento Outbox que agotó sus intentos de publicación.
+ * Sale de outbox_event para que el relay no lo vuelva a leer y queda aquí
+ * hasta que un operador lo reprocese (replay) o lo descarte.
+ */
+@Entity
+@Getter
+@Table(name = "outbox_dead_letter", indexes = {
+    @Index(name = "idx_outbox_dlq_type_time", columnList = "type, dead_lettered_at"),
+    @Index(name = "idx_outbox_dlq_time", columnList = "dead_lettered_at")
+})
+public class OutboxDeadLetter implements Persistable<UUID> {
+
+  @Id
+  private UUID id;
+
+  private String type;
+
+  @Lob
+  private String payload;
+
+  private String exchange;
+
+  @Column(name = "routing_key")
+  private String routingKey;
+
+  @Column(name = "aggregate_id", length = 100)
+  private String aggregateId;
+
+  private int attempts;
+
+  @Lob
+  @Column(name = "last_error")
+  private String lastError;
+
+  @Column(name = "created_at")
+  private LocalDateTime createdAt;
+
+  @Column(name = "dead_lettered_at")
+  private LocalDateTime deadLetteredAt;
+
+  protected OutboxDeadLetter() {
+  }
+
+  public static OutboxDeadLetter from(OutboxEvent event) {
+    OutboxDeadLetter deadLetter = new OutboxDeadLetter();
+    deadLetter.id = event.getId();
+    deadLetter.type = event.getType();
+    deadLetter.payload = event.getPayload();
+    deadLetter.exchange = event.getExchange();
+    deadLetter.routingKey = event.getRoutingKey();
+    deadLetter.aggregateId = event.getAggregateId();
+    deadLetter.attempts = event.getAttempts();
+    deadLetter.lastError = event.getLastError();
+    deadLetter.createdAt = event.getCreatedAt();
+    deadLetter.deadLetteredAt = LocalDateTime.now();
+    return deadLetter;
+  }
+
+  /**
+   * Sólo se inserta una vez; se evita el SELECT previo de merge().
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+}
@@ -0,0 +1,74 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.chefsitos.uamishop.shared.ApiErrors;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/${api.V1}/outbox/dead-letters")
+@Tag(name = "Outbox", description = "Operación de eventos Outbox que agotaron sus reintentos")
+@ApiErrors.GlobalErrorResponses
+@RequiredArgsConstructor
+public class OutboxDeadLetterController {
+
+  private final OutboxDeadLetterService deadLetterService;
+
+  @Operation(summary = "Listar eventos dead-letter", description = "Lista los eventos que agotaron sus reintentos, filtrando opcionalmente por tipo y ventana de tiempo.")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Lista obtenida exitosamente")
+  })
+  @ApiErrors.BadRequest
+  @GetMapping
+  public ResponseEntity<List<OutboxDeadLetterResponse>> buscar(
+    @Parameter(description = "Tipo de evento (ej: ProductoComprado)") @RequestParam(required = false) String type,
+    @Parameter(description = "Inicio de la ventana (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+    @Parameter(description = "Fin de la ventana (exclusivo)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+    @RequestParam(defaultValue = "0") int page,
+    @RequestParam(defaultValue = "50") int size) {
+
+    return ResponseEntity.ok(deadLetterService.buscar(type, desde, hasta, page, size));
+  }
+
+  @Operation(summary = "Obtener evento dead-letter", description = "Devuelve el detalle de un evento, incluido su payload y el último error.")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Evento encontrado", content = @Content(schema = @Schema(implementation = OutboxDeadLetterResponse.class)))
+  })
+  @ApiErrors.NotFound
+  @GetMapping("/{id}")
+  public ResponseEntity<OutboxDeadLetterResponse> buscarPorId(
+    @Parameter(description = "ID del evento Outbox") @PathVariable UUID id) {
+
+    return ResponseEntity.ok(deadLetterService.buscarPorId(id));
+  }
+
+  @Operation(summary = "Reprocesar eventos dead-letter", description = "Devuelve al Outbox los eventos indicados por id, o por tipo y ventana de tiempo, para que el relay los publique de nuevo.")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Eventos devueltos al Outbox", content = @Content(schema = @Schema(implementation = OutboxReplayResponse.class)))
+  })
+  @ApiErrors.BadRequest
+  @PostMapping("/replay")
+  public ResponseEntity<OutboxReplayResponse> reprocesar(@RequestBody OutboxReplayRequest request) {
+    return ResponseEntity.ok(deadLetterService.reprocesar(request));
+  }
+}
@@ -0,0 +1,27 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetter, UUID> {
+
+  /**
+   * Filtra por tipo y ventana de tiempo; cualquier filtro nulo se ignora.
+   */
+  @Query("""
+      SELECT d FROM OutboxDeadLetter d
+      WHERE (:type IS NULL OR d.type = :type)
+        AND (:desde IS NULL OR d.deadLetteredAt >= :desde)
+        AND (:hasta IS NULL OR d.deadLetteredAt < :hasta)
+      ORDER BY d.deadLetteredAt ASC""")
+  List<OutboxDeadLetter> search(@Param("type") String type,
+      @Param("desde") LocalDateTime desde,
+      @Param("hasta") LocalDateTime hasta,
+      Pageable pageable);
+}
@@ -0,0 +1,29 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OutboxDeadLetterResponse(
+    UUID id,
+    String type,
+    String exchange,
+    String routingKey,
+    int attempts,
+    String lastError,
+    String payload,
+    LocalDateTime createdAt,
+    LocalDateTime deadLetteredAt) {
+
+  public static OutboxDeadLetterResponse from(OutboxDeadLetter deadLetter) {
+    return new OutboxDeadLetterResponse(
+        deadLetter.getId(),
+        deadLetter.getType(),
+        deadLetter.getExchange(),
+        deadLetter.getRoutingKey(),
+        deadLetter.getAttempts(),
+        deadLetter.getLastError(),
+        deadLetter.getPayload(),
+        deadLetter.getCreatedAt(),
+        deadLetter.getDeadLetteredAt());
+  }
+}
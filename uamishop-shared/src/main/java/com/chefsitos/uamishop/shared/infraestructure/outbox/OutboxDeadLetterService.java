@@ -0,0 +1,98 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+import com.chefsitos.uamishop.shared.exception.ResourceNotFoundException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consulta y reprocesamiento (replay) de los eventos Outbox en dead-letter.
+ *
+ * El replay devuelve cada evento a outbox_event con su id original y los
+ * intentos a cero; el relay lo publica en su siguiente ejecución y los
+ * consumidores lo deduplican por id si ya lo habían recibido.
+ */
+@Slf4j
+@Service
+public class OutboxDeadLetterService {
+
+  private final OutboxDeadLetterRepository deadLetterRepository;
+  private final OutboxRepository outboxRepository;
+  private final int maxReplay;
+
+  public OutboxDeadLetterService(OutboxDeadLetterRepository deadLetterRepository,
+      OutboxRepository outboxRepository,
+      @Value("${outbox.dead-letter.max-replay:1000}") int maxReplay) {
+    this.deadLetterRepository = deadLetterRepository;
+    this.outboxRepository = outboxRepository;
+    this.maxReplay = maxReplay;
+  }
+
+  @Transactional(readOnly = true)
+  public List<OutboxDeadLetterResponse> buscar(String type, LocalDateTime desde, LocalDateTime hasta,
+      int page, int size) {
+    validarVentana(desde, hasta);
+    if (page < 0 || size < 1 || size > 500) {
+      throw new BadRequestException("page debe ser >= 0 y size estar entre 1 y 500");
+    }
+    return deadLetterRepository.search(type, desde, hasta, PageRequest.of(page, size)).stream()
+        .map(OutboxDeadLetterResponse::from)
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
+  public OutboxDeadLetterResponse buscarPorId(UUID id) {
+    return deadLetterRepository.findById(id)
+        .map(OutboxDeadLetterResponse::from)
+        .orElseThrow(() -> new ResourceNotFoundException("OutboxDeadLetter", id.toString()));
+  }
+
+  /**
+   * Reprocesa hasta {@code outbox.dead-letter.max-replay} eventos en una sola
+   * transacción: se insertan de nuevo como pendientes y se borran de
+   * dead-letter.
+   */
+  @Transactional
+  public OutboxReplayResponse reprocesar(OutboxReplayRequest request) {
+    List<OutboxDeadLetter> seleccion = seleccionar(request);
+
+    outboxRepository.saveAll(seleccion.stream().map(OutboxEvent::replayOf).toList());
+    deadLetterRepository.deleteAllInBatch(seleccion);
+
+    log.info("Outbox DLQ: {} eventos devueltos al outbox para reprocesar", seleccion.size());
+    return new OutboxReplayResponse(seleccion.size());
+  }
+
+  private List<OutboxDeadLetter> seleccionar(OutboxReplayRequest request) {
+    if (request == null) {
+      throw new BadRequestException("Se requieren ids o un filtro por tipo/ventana de tiempo");
+    }
+    if (request.porIds()) {
+      if (request.ids().size() > maxReplay) {
+        throw new BadRequestException("No se pueden reprocesar más de " + maxReplay + " eventos por solicitud");
+      }
+      return deadLetterRepository.findAllById(request.ids());
+    }
+    if (request.type() == null && request.desde() == null && request.hasta() == null) {
+      throw new BadRequestException("Se requieren ids o un filtro por tipo/ventana de tiempo");
+    }
+    validarVentana(request.desde(), request.hasta());
+    return deadLetterRepository.search(request.type(), request.desde(), request.hasta(),
+        PageRequest.of(0, maxReplay));
+  }
+
+  private void validarVentana(LocalDateTime desde, LocalDateTime hasta) {
+    if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+      throw new BadRequestException("'desde' debe ser anterior a 'hasta'");
+    }
+  }
+}
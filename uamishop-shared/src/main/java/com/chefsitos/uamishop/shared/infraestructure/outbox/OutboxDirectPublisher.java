@@ -0,0 +1,138 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Vía rápida del Outbox: publica un evento en cuanto la transacción que lo
+ * registró hace commit, sin esperar al siguiente ciclo del OutboxScheduler.
+ *
+ * OutboxStore la invoca desde TransactionSynchronization.afterCommit. El
+ * envío se hace en un pool acotado; si la cola está llena, la reserva no se
+ * obtiene o la publicación falla, el evento sigue en la tabla y el relay lo
+ * publica más tarde, así que la garantía del Outbox no cambia.
+ *
+ * Se activa con {@code outbox.fast-path.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(OutboxMessagePublisher.class)
+@ConditionalOnProperty(name = "outbox.fast-path.enabled", havingValue = "true")
+public class OutboxDirectPublisher {
+
+  private final OutboxEventProcessor eventProcessor;
+  private final OutboxMessagePublisher messagePublisher;
+  private final String instanceId;
+  private final Duration lease;
+  private final ThreadPoolExecutor executor;
+
+  private final Counter publishedCounter;
+  private final Counter failedCounter;
+  private final Counter skippedCounter;
+
+  public OutboxDirectPublisher(OutboxEventProcessor eventProcessor,
+      OutboxMessagePublisher messagePublisher,
+      OutboxRelayInstance relayInstance,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.fast-path.threads:4}") int threads,
+      @Value("${outbox.fast-path.queue-capacity:1000}") int queueCapacity,
+      @Value("${outbox.relay.lease:PT1M}") Duration lease) {
+    this.eventProcessor = eventProcessor;
+    this.messagePublisher = messagePublisher;
+    this.instanceId = relayInstance.id();
+    this.lease = lease;
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("outbox-fast-"),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    this.publishedCounter = Counter.builder("outbox.fastpath.events")
+        .description("Eventos Outbox gestionados por la vía rápida post-commit")
+        .tag("result", "published")
+        .register(meterRegistry);
+    this.failedCounter = Counter.builder("outbox.fastpath.events")
+        .description("Eventos Outbox gestionados por la vía rápida post-commit")
+        .tag("result", "failed")
+        .register(meterRegistry);
+    this.skippedCounter = Counter.builder("outbox.fastpath.events")
+        .description("Eventos Outbox gestionados por la vía rápida post-commit")
+        .tag("result", "deferred")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Encola la publicación de un evento ya confirmado en la base de datos.
+   * Nunca lanza excepción: ante saturación el evento queda para el relay.
+   */
+  public void dispatch(UUID eventId) {
+    try {
+      executor.execute(() -> publishNow(eventId));
+    } catch (RejectedExecutionException e) {
+      skippedCounter.increment();
+      log.debug("Outbox vía rápida saturada, el relay publicará el evento id={}", eventId);
+    }
+  }
+
+  private void publishNow(UUID eventId) {
+    OutboxEvent event;
+    try {
+      event = eventProcessor.claimEvent(eventId, instanceId, lease).orElse(null);
+    } catch (Exception e) {
+      skippedCounter.increment();
+      log.warn("Outbox vía rápida: no se pudo reservar el evento id={}: {}", eventId, e.getMessage());
+      return;
+    }
+    if (event == null) {
+      // El relay ya lo tomó
+      skippedCounter.increment();
+      return;
+    }
+
+    try {
+      messagePublisher.publish(event);
+    } catch (Exception e) {
+      failedCounter.increment();
+      log.warn("Outbox vía rápida: error publicando evento id={}, queda para el relay: {}",
+          eventId, e.getMessage());
+      try {
+        eventProcessor.markAsFailed(eventId, instanceId, e.getMessage());
+      } catch (Exception markError) {
+        log.error("Outbox vía rápida: error al marcar evento como fallido id={}: {}",
+            eventId, markError.getMessage());
+      }
+      return;
+    }
+
+    try {
+      eventProcessor.markBatchAsProcessed(List.of(eventId), instanceId);
+      publishedCounter.increment();
+    } catch (Exception e) {
+      // Ya está en el broker; el relay lo reenviará al vencer la reserva
+      // (entrega at-least-once)
+      log.error("Outbox vía rápida: error al marcar evento como procesado id={}: {}",
+          eventId, e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+  }
+}
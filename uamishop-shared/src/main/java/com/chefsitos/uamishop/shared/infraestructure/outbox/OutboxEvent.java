@@ -1,19 +1,32 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lombok.Getter;
 
 @Entity
 @Getter
-@Table(name = "outbox_event")
+@Table(name = "outbox_event", indexes = {
+    // Consulta caliente del relay: pendientes por orden de creación
+    @Index(name = "idx_outbox_pending", columnList = "processed, attempts, created_at"),
+    // Purga/archivado de procesados por antigüedad
+    @Index(name = "idx_outbox_processed_at", columnList = "processed, processed_at"),
+    // Orden por agregado: predecesores pendientes de la misma clave
+    @Index(name = "idx_outbox_aggregate", columnList = "aggregate_id, processed, created_at")
+})
 public class OutboxEvent {
+
+  /** Intentos de publicación antes de mover el evento a la tabla dead-letter. */
+  public static final int MAX_ATTEMPTS = 5;
+
   @Id
   private UUID id;
 
@@ -27,6 +40,13 @@ public class OutboxEvent {
   @Column(name = "routing_key")
   private String routingKey;
 
+  /**
+   * Clave de ordenamiento (ej: ordenId, carritoId). Los eventos de una misma
+   * clave se publican en orden de creación; sin clave no hay restricción.
+   */
+  @Column(name = "aggregate_id", length = 100)
+  private String aggregateId;
+
   private int attempts = 0;
 
   private boolean processed = false;
@@ -34,6 +54,10 @@ public class OutboxEvent {
   @Column(name = "created_at")
   private LocalDateTime createdAt;
 
+  /** Momento en que ocurrió el evento de dominio, si el payload lo informa. */
+  @Column(name = "occurred_at")
+  private Instant occurredAt;
+
   @Column(name = "processed_at")
   private LocalDateTime processedAt;
 
@@ -41,11 +65,38 @@ public class OutboxEvent {
   @Column(name = "last_error")
   private String lastError;
 
+  /** Instancia del relay que tiene reservado el evento. */
+  @Column(name = "claimed_by", length = 100)
+  private String claimedBy;
+
+  /** Fin de la reserva; pasado este instante otra instancia puede tomarlo. */
+  @Column(name = "claimed_until")
+  private LocalDateTime claimedUntil;
+
+  /** Tras un fallo, el relay no reintenta el evento antes de este instante. */
+  @Column(name = "next_attempt_at")
+  private LocalDateTime nextAttemptAt;
+
   protected OutboxEvent() {
   }
 
   public OutboxEvent(String type, String payload, String exchange, String routingKey) {
-    this.id = UUID.randomUUID();
+    this(type, payload, exchange, routingKey, null);
+  }
+
+  public OutboxEvent(String type, String payload, String exchange, String routingKey, String aggregateId) {
+    this(UUID.randomUUID(), null, type, payload, exchange, routingKey, aggregateId);
+  }
+
+  /**
+   * @param id         id del evento de dominio; se reutiliza como message-id
+   * @param occurredAt momento en que ocurrió el evento de dominio (opcional)
+   */
+  public OutboxEvent(UUID id, Instant occurredAt, String type, String payload, String exchange,
+      String routingKey, String aggregateId) {
+    this.id = id;
+    this.occurredAt = occurredAt;
+    this.aggregateId = aggregateId;
     this.type = type;
     this.payload = payload;
     this.exchange = exchange;
@@ -56,14 +107,51 @@ public class OutboxEvent {
   public void markAsProcessed() {
     this.processed = true;
     this.processedAt = LocalDateTime.now();
+    releaseClaim();
   }
 
-  public void markAsFailed(String error) {
+  public void markAsFailed(String error, LocalDateTime nextAttemptAt) {
     this.attempts++;
     this.lastError = error;
+    this.nextAttemptAt = nextAttemptAt;
+    releaseClaim();
+  }
+
+  public void claim(String owner, LocalDateTime until) {
+    this.claimedBy = owner;
+    this.claimedUntil = until;
+  }
+
+  public void releaseClaim() {
+    this.claimedBy = null;
+    this.claimedUntil = null;
+  }
+
+  /**
+   * Clave de partición del relay: el agregado, o el propio id si el evento no
+   * tiene agregado.
+   */
+  public String partitionKey() {
+    return aggregateId != null ? aggregateId : id.toString();
   }
 
   public boolean canRetry() {
-    return this.attempts < 5 && !this.processed;
+    return this.attempts < MAX_ATTEMPTS && !this.processed;
+  }
+
+  /**
+   * Reconstruye un evento dead-letter como pendiente, conservando su id, para
+   * que el relay lo vuelva a publicar.
+   */
+  static OutboxEvent replayOf(OutboxDeadLetter deadLetter) {
+    OutboxEvent event = new OutboxEvent();
+    event.id = deadLetter.getId();
+    event.type = deadLetter.getType();
+    event.payload = deadLetter.getPayload();
+    event.exchange = deadLetter.getExchange();
+    event.routingKey = deadLetter.getRoutingKey();
+    event.aggregateId = deadLetter.getAggregateId();
+    event.createdAt = deadLetter.getCreatedAt();
+    return event;
   }
 }
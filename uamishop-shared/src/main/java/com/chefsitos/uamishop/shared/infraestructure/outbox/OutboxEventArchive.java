@@ -0,0 +1,92 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Copia histórica de un evento Outbox ya procesado.
+ * Vive fuera de outbox_event para que la tabla caliente del relay no crezca
+ * sin límite.
+ */
+@Entity
+@Getter
+@Table(name = "outbox_event_archive", indexes = {
+    @Index(name = "idx_outbox_archive_created_at", columnList = "created_at")
+})
+public class OutboxEventArchive implements Persistable<UUID> {
+
+  @Id
+  private UUID id;
+
+  private String type;
+
+  @Lob
+  private String payload;
+
+  private String exchange;
+
+  @Column(name = "routing_key")
+  private String routingKey;
+
+  @Column(name = "aggregate_id", length = 100)
+  private String aggregateId;
+
+  private int attempts;
+
+  /** Último error de publicación antes de que el evento saliera. */
+  @Lob
+  @Column(name = "last_error")
+  private String lastError;
+
+  @Column(name = "occurred_at")
+  private Instant occurredAt;
+
+  @Column(name = "created_at")
+  private LocalDateTime createdAt;
+
+  @Column(name = "processed_at")
+  private LocalDateTime processedAt;
+
+  @Column(name = "archived_at")
+  private LocalDateTime archivedAt;
+
+  protected OutboxEventArchive() {
+  }
+
+  public static OutboxEventArchive from(OutboxEvent event) {
+    OutboxEventArchive archive = new OutboxEventArchive();
+    archive.id = event.getId();
+    archive.type = event.getType();
+    archive.payload = event.getPayload();
+    archive.exchange = event.getExchange();
+    archive.routingKey = event.getRoutingKey();
+    archive.aggregateId = event.getAggregateId();
+    archive.attempts = event.getAttempts();
+    archive.lastError = event.getLastError();
+    archive.occurredAt = event.getOccurredAt();
+    archive.createdAt = event.getCreatedAt();
+    archive.processedAt = event.getProcessedAt();
+    archive.archivedAt = LocalDateTime.now();
+    return archive;
+  }
+
+  /**
+   * Un registro archivado sólo se inserta una vez: se evita el SELECT previo
+   * que haría merge() por tener id asignado.
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+}
@@ -0,0 +1,8 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxEventArchiveRepository extends JpaRepository<OutboxEventArchive, UUID> {
+}
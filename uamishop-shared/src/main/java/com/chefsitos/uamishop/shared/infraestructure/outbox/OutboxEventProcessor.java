@@ -1,6 +1,17 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -21,41 +32,179 @@ import lombok.extern.slf4j.Slf4j;
 public class OutboxEventProcessor {
 
   private final OutboxRepository outboxRepository;
-  private final OutboxMessagePublisher messagePublisher;
+  private final OutboxDeadLetterRepository deadLetterRepository;
+  private final OutboxRetryPolicy retryPolicy;
 
   /**
-   * Procesa un evento Outbox en una transacción independiente:
-   * 1. Recupera el evento de la BD
-   * 2. Publica el mensaje vía el broker
-   * 3. Marca el evento como procesado
+   * Reserva hasta {@code batchSize} eventos pendientes para {@code owner}
+   * durante {@code lease}, en una transacción corta e independiente.
+   * Las filas bloqueadas por otras instancias se saltan (SKIP LOCKED) y las
+   * reservas vencidas de instancias caídas vuelven a ser reclamables.
    *
-   * Si falla la publicación, la excepción se propaga al scheduler.
+   * @return eventos reservados, en orden de creación
    */
   @Transactional(propagation = Propagation.REQUIRES_NEW)
-  public void processEvent(UUID eventId) {
-    OutboxEvent event = outboxRepository.findById(eventId)
-        .orElseThrow(() -> new IllegalStateException("OutboxEvent no encontrado: " + eventId));
+  public List<OutboxEvent> claimBatch(String owner, Duration lease, int batchSize) {
+    LocalDateTime now = LocalDateTime.now();
+    List<OutboxEvent> events = withoutForeignPredecessors(outboxRepository.findClaimableEvents(now,
+        OutboxEvent.MAX_ATTEMPTS, PageRequest.of(0, batchSize)));
+    if (events.isEmpty()) {
+      return events;
+    }
+
+    LocalDateTime claimedUntil = now.plus(lease);
+    outboxRepository.claim(events.stream().map(OutboxEvent::getId).toList(), owner, claimedUntil);
+    events.forEach(event -> event.claim(owner, claimedUntil));
+
+    log.debug("OutboxEvents reservados: owner={}, cantidad={}, hasta={}", owner, events.size(), claimedUntil);
+    return events;
+  }
+
+  /**
+   * Descarta los eventos que tienen un predecesor pendiente de su agregado
+   * fuera del lote: otra instancia lo tiene bloqueado (SKIP LOCKED lo saltó)
+   * o reservado. Así un agregado sólo se reclama desde su evento pendiente
+   * más antiguo y nunca lo publican dos instancias a la vez.
+   *
+   * Las filas descartadas siguen bloqueadas hasta el fin de esta transacción
+   * corta, pero no se reservan.
+   */
+  private List<OutboxEvent> withoutForeignPredecessors(List<OutboxEvent> events) {
+    Set<String> aggregateIds = events.stream()
+        .map(OutboxEvent::getAggregateId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    if (aggregateIds.isEmpty()) {
+      return events;
+    }
+
+    Set<UUID> claimed = events.stream().map(OutboxEvent::getId).collect(Collectors.toSet());
+    Set<String> blocked = new HashSet<>();
+    Set<UUID> allowed = new HashSet<>();
+    for (OutboxPendingEvent pending : outboxRepository.findPendingByAggregateIds(aggregateIds)) {
+      if (blocked.contains(pending.aggregateId())) {
+        continue;
+      }
+      if (claimed.contains(pending.id())) {
+        allowed.add(pending.id());
+      } else {
+        // A partir del primer hueco, el resto del agregado espera
+        blocked.add(pending.aggregateId());
+      }
+    }
+    if (!blocked.isEmpty()) {
+      log.debug("Outbox: agregados con predecesores fuera del lote, se omiten: {}", blocked);
+    }
+    return events.stream()
+        .filter(event -> event.getAggregateId() == null || allowed.contains(event.getId()))
+        .toList();
+  }
+
+  /**
+   * Reserva un evento concreto para {@code owner} si nadie más lo tiene.
+   * Lo usa la vía rápida post-commit para no competir con el relay.
+   *
+   * @return el evento reservado, o vacío si ya estaba reservado o procesado,
+   *         o si su agregado tiene eventos anteriores pendientes (el relay los
+   *         publicará en orden)
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public Optional<OutboxEvent> claimEvent(UUID eventId, String owner, Duration lease) {
+    OutboxEvent event = outboxRepository.findById(eventId).orElse(null);
+    if (event == null || (event.getAggregateId() != null
+        && outboxRepository.existsByAggregateIdAndProcessedFalseAndCreatedAtBefore(
+            event.getAggregateId(), event.getCreatedAt()))) {
+      return Optional.empty();
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    if (outboxRepository.claimIfAvailable(eventId, owner, now, now.plus(lease)) == 0) {
+      return Optional.empty();
+    }
+    event.claim(owner, now.plus(lease));
+    return Optional.of(event);
+  }
 
-    messagePublisher.publish(event);
-    event.markAsProcessed();
-    outboxRepository.save(event);
+  /**
+   * Marca como procesado un lote completo de eventos ya publicados con un único
+   * UPDATE en una transacción independiente. Sólo afecta a los eventos que
+   * siguen reservados por {@code owner}.
+   *
+   * @return número de filas actualizadas
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int markBatchAsProcessed(Collection<UUID> eventIds, String owner) {
+    if (eventIds.isEmpty()) {
+      return 0;
+    }
+    int updated = outboxRepository.markAsProcessed(eventIds, owner, LocalDateTime.now());
+    if (updated < eventIds.size()) {
+      log.warn("OutboxEvents con reserva perdida antes de marcarse: owner={}, solicitados={}, actualizados={}",
+          owner, eventIds.size(), updated);
+    }
+    return updated;
+  }
 
-    log.debug("OutboxEvent procesado: id={}, type={}", event.getId(), event.getType());
+  /**
+   * Libera la reserva de eventos que siguen reservados por {@code owner} sin
+   * contar un intento; se usa para los que quedaron detrás de un evento
+   * fallido de su agregado.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int releaseClaims(Collection<UUID> eventIds, String owner) {
+    if (eventIds.isEmpty()) {
+      return 0;
+    }
+    return outboxRepository.releaseClaims(eventIds, owner);
   }
 
   /**
-   * Marca un evento como fallido en una transacción independiente.
-   * Incrementa el contador de intentos y registra el error.
+   * Marca un evento como fallido en una transacción independiente, sólo si
+   * sigue reservado por {@code owner} (como markBatchAsProcessed).
+   * Incrementa el contador de intentos, registra el error y programa el
+   * siguiente intento con backoff exponencial. Si agotó sus intentos lo mueve
+   * a la tabla dead-letter.
    */
   @Transactional(propagation = Propagation.REQUIRES_NEW)
-  public void markAsFailed(UUID eventId, String error) {
+  public void markAsFailed(UUID eventId, String owner, String error) {
     OutboxEvent event = outboxRepository.findById(eventId)
         .orElseThrow(() -> new IllegalStateException("OutboxEvent no encontrado: " + eventId));
 
-    event.markAsFailed(error);
-    outboxRepository.save(event);
+    int attempts = event.getAttempts() + 1;
+    LocalDateTime nextAttemptAt = retryPolicy.nextAttemptAt(attempts);
+    if (outboxRepository.markAsFailed(eventId, owner, error, nextAttemptAt) == 0) {
+      log.warn("OutboxEvent con reserva perdida antes de marcarse fallido: id={}, owner={}", eventId, owner);
+      return;
+    }
+
+    if (attempts < OutboxEvent.MAX_ATTEMPTS) {
+      log.warn("OutboxEvent fallido: id={}, type={}, attempts={}, nextAttemptAt={}, error={}",
+          eventId, event.getType(), attempts, nextAttemptAt, error);
+      return;
+    }
+
+    // El UPDATE limpió el contexto de persistencia: se relee con el intento ya contado
+    outboxRepository.findById(eventId).ifPresent(this::moveToDeadLetter);
+  }
+
+  /**
+   * Mueve a dead-letter los eventos que ya agotaron sus intentos y siguen en
+   * outbox_event (p. ej. los que fallaron antes de existir esta tabla).
+   *
+   * @return número de eventos movidos
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int moveExhaustedToDeadLetter(int batchSize) {
+    List<OutboxEvent> exhausted = outboxRepository.findExhaustedEvents(OutboxEvent.MAX_ATTEMPTS,
+        PageRequest.of(0, batchSize));
+    exhausted.forEach(this::moveToDeadLetter);
+    return exhausted.size();
+  }
 
-    log.warn("OutboxEvent fallido: id={}, type={}, attempts={}, error={}",
-        event.getId(), event.getType(), event.getAttempts(), error);
+  private void moveToDeadLetter(OutboxEvent event) {
+    deadLetterRepository.save(OutboxDeadLetter.from(event));
+    outboxRepository.delete(event);
+    log.error("OutboxEvent movido a dead-letter: id={}, type={}, attempts={}, error={}",
+        event.getId(), event.getType(), event.getAttempts(), event.getLastError());
   }
 }
@@ -0,0 +1,18 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+/**
+ * Cabeceras AMQP que el Outbox añade a cada mensaje, además de las propiedades
+ * estándar message-id (id del evento), type (tipo del evento) y timestamp
+ * (momento en que ocurrió).
+ */
+public final class OutboxHeaders {
+
+  /** Id del agregado que originó el evento (ej: ordenId, carritoId). */
+  public static final String AGGREGATE_ID = "x-aggregate-id";
+
+  /** Instante ISO-8601 en que ocurrió el evento, con precisión completa. */
+  public static final String OCCURRED_AT = "x-occurred-at";
+
+  private OutboxHeaders() {
+  }
+}
@@ -1,5 +1,13 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 /**
  * Abstracción agnóstica del broker de mensajería.
  */
@@ -7,8 +15,41 @@ public interface OutboxMessagePublisher {
 
   /**
    * Publica un evento Outbox en el broker de mensajería.
-   * 
+   *
    * @param event el evento a publicar con su exchange, routingKey y payload
    */
   void publish(OutboxEvent event);
+
+  /**
+   * Publica un lote de eventos Outbox.
+   * Un fallo en un evento no interrumpe la publicación de los demás
+   * agregados, pero sí la del suyo: los eventos posteriores del mismo
+   * agregado (OutboxEvent.partitionKey) no se envían y se devuelven como
+   * diferidos, para no adelantarlos al que falló.
+   * Las implementaciones pueden sobrescribirlo para reutilizar recursos del
+   * broker (canal, conexión) durante todo el lote.
+   *
+   * @param events eventos a publicar, en el orden en que deben enviarse
+   * @return ids publicados y fallidos
+   */
+  default OutboxPublishResult publishBatch(List<OutboxEvent> events) {
+    List<UUID> published = new ArrayList<>(events.size());
+    Map<UUID, String> failed = new LinkedHashMap<>();
+    List<UUID> deferred = new ArrayList<>();
+    Set<String> blocked = new HashSet<>();
+    for (OutboxEvent event : events) {
+      if (blocked.contains(event.partitionKey())) {
+        deferred.add(event.getId());
+        continue;
+      }
+      try {
+        publish(event);
+        published.add(event.getId());
+      } catch (Exception e) {
+        failed.put(event.getId(), String.valueOf(e.getMessage()));
+        blocked.add(event.partitionKey());
+      }
+    }
+    return new OutboxPublishResult(published, failed, deferred);
+  }
 }
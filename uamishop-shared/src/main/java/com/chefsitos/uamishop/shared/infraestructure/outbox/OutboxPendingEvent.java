@@ -0,0 +1,9 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.util.UUID;
+
+/**
+ * Id y agregado de un evento pendiente, sin cargar su payload.
+ */
+public record OutboxPendingEvent(UUID id, String aggregateId) {
+}
@@ -0,0 +1,35 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resultado de publicar un lote de eventos Outbox.
+ *
+ * @param published ids de los eventos que el broker aceptó
+ * @param failed    ids de los eventos que no se pudieron publicar con su error
+ * @param deferred  ids de eventos que no se dan por publicados porque un
+ *                  evento anterior de su mismo agregado falló; no cuentan
+ *                  como intento y se reenvían detrás de él
+ */
+public record OutboxPublishResult(List<UUID> published, Map<UUID, String> failed, List<UUID> deferred) {
+
+  public OutboxPublishResult {
+    published = List.copyOf(published);
+    failed = Map.copyOf(failed);
+    deferred = List.copyOf(deferred);
+  }
+
+  public OutboxPublishResult(List<UUID> published, Map<UUID, String> failed) {
+    this(published, failed, List.of());
+  }
+
+  public int total() {
+    return published.size() + failed.size() + deferred.size();
+  }
+
+  public boolean hasFailures() {
+    return !failed.isEmpty() || !deferred.isEmpty();
+  }
+}
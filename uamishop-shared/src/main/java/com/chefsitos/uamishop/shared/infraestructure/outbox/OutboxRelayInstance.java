@@ -0,0 +1,40 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identidad de esta réplica dentro del protocolo de reserva del Outbox.
+ * Se guarda en la columna claimed_by de los eventos que la instancia toma.
+ *
+ * Por defecto es el hostname (nombre del contenedor) más un sufijo aleatorio,
+ * de forma que un reinicio no herede reservas de la ejecución anterior.
+ */
+@Component
+public class OutboxRelayInstance {
+
+  private final String id;
+
+  public OutboxRelayInstance(@Value("${outbox.relay.instance-id:}") String configuredId) {
+    this.id = configuredId.isBlank() ? defaultId() : configuredId;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  private static String defaultId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "relay";
+    }
+    String id = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    return id.length() > 100 ? id.substring(id.length() - 100) : id;
+  }
+}
@@ -0,0 +1,20 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Selección de eventos dead-letter a reprocesar: por ids explícitos o por
+ * tipo y ventana de tiempo (dead_lettered_at en [desde, hasta)).
+ */
+public record OutboxReplayRequest(
+    List<UUID> ids,
+    String type,
+    LocalDateTime desde,
+    LocalDateTime hasta) {
+
+  public boolean porIds() {
+    return ids != null && !ids.isEmpty();
+  }
+}
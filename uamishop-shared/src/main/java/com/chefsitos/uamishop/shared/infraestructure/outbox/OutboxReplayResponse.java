@@ -0,0 +1,4 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+public record OutboxReplayResponse(int reprocesados) {
+}
@@ -1,14 +1,156 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 public interface OutboxRepository extends JpaRepository<OutboxEvent, UUID> {
 
-  @Query("SELECT e FROM OutboxEvent e WHERE e.processed = false AND e.attempts < 5 ORDER BY e.createdAt ASC")
-  List<OutboxEvent> findUnprocessedEvents(Pageable pageable);
+  /**
+   * Ids de eventos procesados antes de {@code before}, los más antiguos
+   * primero. Se usa para purgar/archivar en bloques pequeños.
+   */
+  @Query("SELECT e.id FROM OutboxEvent e WHERE e.processed = true AND e.processedAt < :before ORDER BY e.processedAt ASC")
+  List<UUID> findProcessedIdsBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+  /**
+   * Eventos que agotaron sus {@code maxAttempts} intentos y siguen en la
+   * tabla caliente.
+   */
+  @Query("SELECT e FROM OutboxEvent e WHERE e.processed = false AND e.attempts >= :maxAttempts ORDER BY e.createdAt ASC")
+  List<OutboxEvent> findExhaustedEvents(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+  /**
+   * Eventos procesados antes de {@code before}, los más antiguos primero,
+   * bloqueados con SELECT ... FOR UPDATE SKIP LOCKED como en
+   * findClaimableEvents: dos réplicas archivando a la vez toman bloques
+   * distintos. Debe ejecutarse dentro de una transacción.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("SELECT e FROM OutboxEvent e WHERE e.processed = true AND e.processedAt < :before ORDER BY e.processedAt ASC")
+  List<OutboxEvent> findProcessedBeforeForArchive(@Param("before") LocalDateTime before, Pageable pageable);
+
+  @Modifying
+  @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+  int deleteByIds(@Param("ids") Collection<UUID> ids);
+
+  /**
+   * Recupera eventos pendientes, sin reserva vigente y cuyo backoff ya venció,
+   * bloqueando sus filas con
+   * SELECT ... FOR UPDATE SKIP LOCKED (timeout -2 en Hibernate): las filas que
+   * otra instancia está reclamando en ese momento se saltan en vez de esperar.
+   * Debe ejecutarse dentro de una transacción.
+   *
+   * Sólo entran los que tienen menos de {@code maxAttempts} intentos
+   * (OutboxEvent.MAX_ATTEMPTS); el resto va a dead-letter.
+   *
+   * Un evento con agregado no es reclamable mientras un evento anterior del
+   * mismo agregado espere su backoff o esté reservado, para no adelantarlo.
+   * La subconsulta no bloquea: no ve la reserva de un predecesor que otra
+   * instancia tiene bloqueado y aún no confirmó. OutboxEventProcessor.claimBatch
+   * cubre ese caso.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("""
+      SELECT e FROM OutboxEvent e
+      WHERE e.processed = false AND e.attempts < :maxAttempts
+        AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)
+        AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)
+        AND (e.aggregateId IS NULL OR NOT EXISTS (
+          SELECT 1 FROM OutboxEvent p
+          WHERE p.aggregateId = e.aggregateId AND p.processed = false AND p.createdAt < e.createdAt
+            AND (p.nextAttemptAt > :now OR p.claimedUntil >= :now)))
+      ORDER BY e.createdAt ASC""")
+  List<OutboxEvent> findClaimableEvents(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts,
+      Pageable pageable);
+
+  /**
+   * Eventos sin procesar de los agregados indicados, en orden de creación.
+   * Es una lectura consistente, sin bloqueos: ve como pendiente un evento que
+   * otra instancia tiene bloqueado pero aún no reservó en firme.
+   */
+  @Query("""
+      SELECT new com.chefsitos.uamishop.shared.infraestructure.outbox.OutboxPendingEvent(e.id, e.aggregateId)
+      FROM OutboxEvent e
+      WHERE e.aggregateId IN :aggregateIds AND e.processed = false
+      ORDER BY e.createdAt ASC""")
+  List<OutboxPendingEvent> findPendingByAggregateIds(@Param("aggregateIds") Collection<String> aggregateIds);
+
+  /**
+   * Indica si queda algún evento anterior sin procesar del mismo agregado.
+   */
+  boolean existsByAggregateIdAndProcessedFalseAndCreatedAtBefore(String aggregateId, LocalDateTime createdAt);
+
+  /**
+   * Reserva los eventos indicados para una instancia del relay hasta
+   * {@code claimedUntil}.
+   */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.claimedBy = :owner, e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+  int claim(@Param("ids") Collection<UUID> ids, @Param("owner") String owner,
+      @Param("claimedUntil") LocalDateTime claimedUntil);
+
+  /**
+   * Reserva un único evento si sigue pendiente y sin reserva vigente.
+   *
+   * @return 1 si la reserva se obtuvo, 0 si otra instancia lo tiene o ya se
+   *         procesó
+   */
+  @Modifying
+  @Query("""
+      UPDATE OutboxEvent e SET e.claimedBy = :owner, e.claimedUntil = :claimedUntil
+      WHERE e.id = :id AND e.processed = false
+        AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)""")
+  int claimIfAvailable(@Param("id") UUID id, @Param("owner") String owner,
+      @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+  /**
+   * Marca como procesados con un único UPDATE los eventos que siguen
+   * reservados por {@code owner} y libera su reserva.
+   */
+  @Modifying
+  @Query("""
+      UPDATE OutboxEvent e
+      SET e.processed = true, e.processedAt = :processedAt, e.claimedBy = null, e.claimedUntil = null
+      WHERE e.id IN :ids AND e.claimedBy = :owner""")
+  int markAsProcessed(@Param("ids") Collection<UUID> ids, @Param("owner") String owner,
+      @Param("processedAt") LocalDateTime processedAt);
+
+  /**
+   * Cuenta un intento fallido de un evento que sigue reservado por
+   * {@code owner}, programa su siguiente intento y libera la reserva. Una
+   * instancia cuya reserva ya venció y pasó a otra no lo toca.
+   *
+   * @return 1 si se marcó, 0 si la reserva ya no es de {@code owner}
+   */
+  @Modifying(clearAutomatically = true)
+  @Query("""
+      UPDATE OutboxEvent e
+      SET e.attempts = e.attempts + 1, e.lastError = :error, e.nextAttemptAt = :nextAttemptAt,
+        e.claimedBy = null, e.claimedUntil = null
+      WHERE e.id = :id AND e.claimedBy = :owner AND e.processed = false""")
+  int markAsFailed(@Param("id") UUID id, @Param("owner") String owner, @Param("error") String error,
+      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+  /**
+   * Libera la reserva de los eventos que siguen reservados por {@code owner},
+   * sin tocar sus intentos ni su backoff.
+   */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.claimedBy = null, e.claimedUntil = null WHERE e.id IN :ids AND e.claimedBy = :owner")
+  int releaseClaims(@Param("ids") Collection<UUID> ids, @Param("owner") String owner);
 }
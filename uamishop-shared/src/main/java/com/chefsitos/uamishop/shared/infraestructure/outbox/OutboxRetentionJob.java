@@ -0,0 +1,122 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retención de la tabla Outbox: elimina (o archiva en outbox_event_archive)
+ * los eventos procesados hace más de {@code outbox.retention.max-age}.
+ *
+ * Trabaja en bloques de {@code outbox.retention.chunk-size} filas, cada uno
+ * en su propia transacción corta, para no mantener bloqueos largos sobre la
+ * tabla que usa el relay.
+ *
+ * Modos ({@code outbox.retention.mode}): {@code delete} o {@code archive}.
+ *
+ * También barre a dead-letter los eventos pendientes que ya agotaron sus
+ * intentos.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRetentionJob {
+
+  private final OutboxRepository outboxRepository;
+  private final OutboxEventProcessor eventProcessor;
+  private final OutboxEventArchiveRepository archiveRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration maxAge;
+  private final int chunkSize;
+  private final int maxChunksPerRun;
+  private final boolean archive;
+  private final Counter purgedCounter;
+
+  public OutboxRetentionJob(OutboxRepository outboxRepository,
+      OutboxEventProcessor eventProcessor,
+      OutboxEventArchiveRepository archiveRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.retention.max-age:P7D}") Duration maxAge,
+      @Value("${outbox.retention.chunk-size:500}") int chunkSize,
+      @Value("${outbox.retention.max-chunks-per-run:200}") int maxChunksPerRun,
+      @Value("${outbox.retention.mode:delete}") String mode) {
+    this.outboxRepository = outboxRepository;
+    this.eventProcessor = eventProcessor;
+    this.archiveRepository = archiveRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.maxAge = maxAge;
+    this.chunkSize = chunkSize;
+    this.maxChunksPerRun = maxChunksPerRun;
+    this.archive = "archive".equalsIgnoreCase(mode);
+    this.purgedCounter = Counter.builder("outbox.retention.rows")
+        .description("Eventos Outbox procesados retirados de la tabla caliente")
+        .tag("mode", archive ? "archive" : "delete")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${outbox.retention.delay:3600000}",
+      initialDelayString = "${outbox.retention.initial-delay:60000}")
+  public void purgeProcessedEvents() {
+    LocalDateTime before = LocalDateTime.now().minus(maxAge);
+    int total = 0;
+
+    for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+      Integer removed = transactionTemplate.execute(status -> purgeChunk(before));
+      int count = removed == null ? 0 : removed;
+      total += count;
+      purgedCounter.increment(count);
+      if (count < chunkSize) {
+        break;
+      }
+    }
+
+    if (total > 0) {
+      log.info("Outbox Retention: {} eventos procesados antes de {} ({})",
+          total, before, archive ? "archivados" : "eliminados");
+    }
+
+    int exhausted = eventProcessor.moveExhaustedToDeadLetter(chunkSize);
+    if (exhausted > 0) {
+      log.warn("Outbox Retention: {} eventos agotados movidos a dead-letter", exhausted);
+    }
+  }
+
+  private int purgeChunk(LocalDateTime before) {
+    if (archive) {
+      return archiveChunk(before);
+    }
+    List<UUID> ids = outboxRepository.findProcessedIdsBefore(before, PageRequest.of(0, chunkSize));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    return outboxRepository.deleteByIds(ids);
+  }
+
+  /**
+   * Copia el bloque al archivo y lo borra. Las filas se bloquean con SKIP
+   * LOCKED: otra réplica que archive a la vez toma el bloque siguiente en vez
+   * de insertar los mismos ids en outbox_event_archive.
+   */
+  private int archiveChunk(LocalDateTime before) {
+    List<OutboxEvent> events = outboxRepository.findProcessedBeforeForArchive(before, PageRequest.of(0, chunkSize));
+    if (events.isEmpty()) {
+      return 0;
+    }
+    archiveRepository.saveAll(events.stream().map(OutboxEventArchive::from).toList());
+    return outboxRepository.deleteByIds(events.stream().map(OutboxEvent::getId).toList());
+  }
+}
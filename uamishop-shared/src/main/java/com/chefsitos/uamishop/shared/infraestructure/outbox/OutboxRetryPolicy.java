@@ -0,0 +1,38 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backoff exponencial entre reintentos de un evento Outbox:
+ * initial-backoff * 2^(intentos - 1), acotado por max-backoff.
+ */
+@Component
+public class OutboxRetryPolicy {
+
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+
+  public OutboxRetryPolicy(@Value("${outbox.retry.initial-backoff:PT5S}") Duration initialBackoff,
+      @Value("${outbox.retry.max-backoff:PT10M}") Duration maxBackoff) {
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+  }
+
+  /**
+   * @param attempts intentos fallidos acumulados, incluido el actual
+   * @return instante a partir del cual el relay puede reintentar
+   */
+  public LocalDateTime nextAttemptAt(int attempts) {
+    return LocalDateTime.now().plus(backoff(attempts));
+  }
+
+  Duration backoff(int attempts) {
+    int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+    Duration backoff = initialBackoff.multipliedBy(1L << exponent);
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+}
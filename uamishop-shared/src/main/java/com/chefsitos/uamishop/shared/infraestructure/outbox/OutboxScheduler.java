@@ -1,14 +1,26 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -18,42 +30,207 @@ import lombok.extern.slf4j.Slf4j;
  * Se activa sólo cuando existe un bean OutboxMessagePublisher en el contexto
  * (cuando el microservicio provee una implementación concreta).
  *
+ * Trabaja por lotes: recupera hasta {@code outbox.relay.batch-size} eventos,
+ * los publica en bloque y los marca como procesados con un único UPDATE.
+ * Con {@code outbox.relay.drain} activo sigue drenando mientras los lotes
+ * vengan llenos, hasta {@code outbox.relay.max-batches-per-run} lotes por
+ * ejecución.
+ *
+ * Es seguro con varias réplicas: cada lote se reserva con
+ * SELECT ... FOR UPDATE SKIP LOCKED y una reserva (claimed_by/claimed_until)
+ * de duración {@code outbox.relay.lease}, así las instancias se reparten el
+ * backlog sin solaparse y recuperan los eventos de nodos caídos cuando su
+ * reserva vence.
+ *
+ * Cada lote se parte por agregado (OutboxEvent.partitionKey): las particiones
+ * se publican en paralelo en hasta {@code outbox.relay.parallelism} hilos
+ * virtuales y, dentro de cada una, los eventos se envían en orden de creación
+ * sobre un mismo canal. Un evento lento sólo retrasa a los de su agregado.
+ * Si un evento falla, los posteriores de su agregado no se dan por publicados:
+ * se libera su reserva sin contar intento y se reenvían detrás de él.
+ * El orden por agregado se garantiza dentro de una instancia; entre réplicas
+ * lo protege la reserva: un evento no se reclama mientras un anterior de su
+ * agregado esté reservado, en backoff o bloqueado por otra instancia que lo
+ * está reservando (OutboxEventProcessor.claimBatch).
+ *
  * Delega a OutboxEventProcessor para evitar el self-invocation problem
- * y garantizar transacciones cortas e independientes por evento.
+ * y garantizar transacciones cortas e independientes.
  */
 @Slf4j
 @Component
 @ConditionalOnBean(OutboxMessagePublisher.class)
-@RequiredArgsConstructor
 public class OutboxScheduler {
 
-  private final OutboxRepository outboxRepository;
   private final OutboxEventProcessor eventProcessor;
+  private final OutboxMessagePublisher messagePublisher;
+  private final int batchSize;
+  private final boolean drain;
+  private final int maxBatchesPerRun;
+  private final Duration lease;
+  private final String instanceId;
+  private final ExecutorService partitionExecutor;
+
+  private final Counter publishedCounter;
+  private final Counter failedCounter;
+  private final DistributionSummary batchSizeSummary;
+  private final Timer batchTimer;
+
+  public OutboxScheduler(OutboxEventProcessor eventProcessor,
+      OutboxMessagePublisher messagePublisher,
+      OutboxRelayInstance relayInstance,
+      MeterRegistry meterRegistry,
+      @Value("${outbox.relay.batch-size:100}") int batchSize,
+      @Value("${outbox.relay.drain:true}") boolean drain,
+      @Value("${outbox.relay.max-batches-per-run:50}") int maxBatchesPerRun,
+      @Value("${outbox.relay.lease:PT1M}") Duration lease,
+      @Value("${outbox.relay.parallelism:8}") int parallelism) {
+    this.eventProcessor = eventProcessor;
+    this.messagePublisher = messagePublisher;
+    this.batchSize = batchSize;
+    this.drain = drain;
+    this.maxBatchesPerRun = maxBatchesPerRun;
+    this.lease = lease;
+    this.instanceId = relayInstance.id();
+    this.partitionExecutor = Executors.newFixedThreadPool(parallelism,
+        Thread.ofVirtual().name("outbox-relay-", 0).factory());
+
+    this.publishedCounter = Counter.builder("outbox.relay.events")
+        .description("Eventos Outbox procesados por el relay")
+        .tag("result", "published")
+        .register(meterRegistry);
+    this.failedCounter = Counter.builder("outbox.relay.events")
+        .description("Eventos Outbox procesados por el relay")
+        .tag("result", "failed")
+        .register(meterRegistry);
+    this.batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+        .description("Eventos recuperados por lote")
+        .register(meterRegistry);
+    this.batchTimer = Timer.builder("outbox.relay.batch.duration")
+        .description("Tiempo en publicar y confirmar un lote del Outbox")
+        .register(meterRegistry);
+  }
 
   @Scheduled(fixedDelayString = "${outbox.scheduler.delay:5000}")
   public void processOutboxEvents() {
-    Pageable batch = PageRequest.of(0, 5);
-    List<OutboxEvent> pendingEvents = outboxRepository.findUnprocessedEvents(batch);
+    int batches = 0;
+    boolean continuar;
 
-    if (pendingEvents.isEmpty()) {
-      return;
-    }
+    do {
+      List<OutboxEvent> pendingEvents = eventProcessor.claimBatch(instanceId, lease, batchSize);
+      if (pendingEvents.isEmpty()) {
+        return;
+      }
 
-    log.info("Outbox Relay: procesando {} eventos pendientes", pendingEvents.size());
+      log.info("Outbox Relay [{}]: procesando lote de {} eventos reservados", instanceId, pendingEvents.size());
+      OutboxPublishResult result = relayBatch(pendingEvents);
+      batches++;
 
-    for (OutboxEvent event : pendingEvents) {
+      // Un lote con fallos se deja para la siguiente ejecución para no martillar
+      // al broker con los mismos eventos
+      continuar = drain
+          && pendingEvents.size() == batchSize
+          && !result.hasFailures()
+          && batches < maxBatchesPerRun;
+    } while (continuar);
+  }
+
+  private OutboxPublishResult relayBatch(List<OutboxEvent> pendingEvents) {
+    batchSizeSummary.record(pendingEvents.size());
+
+    OutboxPublishResult result = batchTimer.record(() -> publish(pendingEvents));
+
+    try {
+      eventProcessor.markBatchAsProcessed(result.published(), instanceId);
+      publishedCounter.increment(result.published().size());
+    } catch (Exception e) {
+      // Los eventos ya están en el broker; se volverán a publicar en la siguiente
+      // ejecución (entrega at-least-once)
+      log.error("Outbox Relay: error al marcar lote como procesado ({} eventos): {}",
+          result.published().size(), e.getMessage());
+    }
+
+    if (!result.deferred().isEmpty()) {
       try {
-        eventProcessor.processEvent(event.getId());
+        eventProcessor.releaseClaims(result.deferred(), instanceId);
       } catch (Exception e) {
-        log.error("Outbox Relay: error procesando evento id={}, type={}: {}",
-            event.getId(), event.getType(), e.getMessage());
-        try {
-          eventProcessor.markAsFailed(event.getId(), e.getMessage());
-        } catch (Exception markError) {
-          log.error("Outbox Relay: error al marcar evento como fallido id={}: {}",
-              event.getId(), markError.getMessage());
-        }
+        // La reserva vence sola tras outbox.relay.lease
+        log.error("Outbox Relay: error al liberar {} eventos diferidos: {}",
+            result.deferred().size(), e.getMessage());
       }
     }
+
+    result.failed().forEach((eventId, error) -> {
+      failedCounter.increment();
+      log.error("Outbox Relay: error procesando evento id={}: {}", eventId, error);
+      try {
+        eventProcessor.markAsFailed(eventId, instanceId, error);
+      } catch (Exception markError) {
+        log.error("Outbox Relay: error al marcar evento como fallido id={}: {}",
+            eventId, markError.getMessage());
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Publica el lote partido por agregado; las particiones corren en paralelo y
+   * cada una conserva el orden de sus eventos.
+   */
+  private OutboxPublishResult publish(List<OutboxEvent> pendingEvents) {
+    Map<String, List<OutboxEvent>> partitions = new LinkedHashMap<>();
+    pendingEvents.forEach(event -> partitions
+        .computeIfAbsent(event.partitionKey(), key -> new ArrayList<>())
+        .add(event));
+
+    if (partitions.size() == 1) {
+      return publishPartition(pendingEvents);
+    }
+
+    List<List<OutboxEvent>> groups = new ArrayList<>(partitions.values());
+    List<Future<OutboxPublishResult>> futures = new ArrayList<>(groups.size());
+    groups.forEach(partition -> futures.add(partitionExecutor.submit(() -> publishPartition(partition))));
+
+    List<UUID> published = new ArrayList<>(pendingEvents.size());
+    Map<UUID, String> failed = new LinkedHashMap<>();
+    List<UUID> deferred = new ArrayList<>();
+    for (int i = 0; i < groups.size(); i++) {
+      OutboxPublishResult result;
+      try {
+        result = futures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result = partitionFailed(groups.get(i), "interrumpido esperando la partición");
+      } catch (ExecutionException e) {
+        result = partitionFailed(groups.get(i), String.valueOf(e.getCause().getMessage()));
+      }
+      published.addAll(result.published());
+      failed.putAll(result.failed());
+      deferred.addAll(result.deferred());
+    }
+    return new OutboxPublishResult(published, failed, deferred);
+  }
+
+  private OutboxPublishResult publishPartition(List<OutboxEvent> partition) {
+    try {
+      return messagePublisher.publishBatch(partition);
+    } catch (Exception e) {
+      // Fallo a nivel de conexión/canal: no se sabe qué llegó al broker
+      return partitionFailed(partition, String.valueOf(e.getMessage()));
+    }
+  }
+
+  /**
+   * Partición que no se pudo publicar: cuenta el intento sólo al primer
+   * evento y difiere los posteriores para que salgan detrás de él.
+   */
+  private static OutboxPublishResult partitionFailed(List<OutboxEvent> partition, String error) {
+    List<UUID> deferred = partition.stream().skip(1).map(OutboxEvent::getId).toList();
+    return new OutboxPublishResult(List.of(), Map.of(partition.get(0).getId(), error), deferred);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    partitionExecutor.shutdown();
   }
 }
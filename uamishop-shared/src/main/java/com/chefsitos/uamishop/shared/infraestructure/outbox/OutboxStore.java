@@ -1,6 +1,13 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.chefsitos.uamishop.shared.event.DomainEvent;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,7 +19,12 @@ import lombok.extern.slf4j.Slf4j;
  * Puerto para que los servicios de aplicación registren eventos en la tabla
  * Outbox.
  * Serializa automáticamente el payload a JSON usando ObjectMapper.
+ * Si el payload es un DomainEvent, su eventId pasa a ser el id del registro
+ * (y el message-id AMQP).
  * Se une a la transacción activa del caller (no abre transacción propia).
+ *
+ * Si la vía rápida está activa (OutboxDirectPublisher), el evento se publica
+ * justo después del commit; el OutboxScheduler queda como red de seguridad.
  */
 @Slf4j
 @Component
@@ -21,6 +33,7 @@ public class OutboxStore {
 
   private final OutboxRepository outboxRepository;
   private final ObjectMapper objectMapper;
+  private final ObjectProvider<OutboxDirectPublisher> directPublisher;
 
   /**
    * Registra un evento en la tabla Outbox dentro de la transacción activa.
@@ -31,14 +44,42 @@ public class OutboxStore {
    * @param routingKey routing key para el enrutamiento del mensaje
    */
   public void save(String type, Object payload, String exchange, String routingKey) {
+    save(type, payload, exchange, routingKey, null);
+  }
+
+  /**
+   * Registra un evento asociado a un agregado. Los eventos de un mismo
+   * agregado se publican en el orden en que se registraron.
+   *
+   * @param aggregateId id del agregado (ej: ordenId, carritoId); null si el
+   *                    evento no requiere orden
+   */
+  public void save(String type, Object payload, String exchange, String routingKey, UUID aggregateId) {
     try {
       String json = objectMapper.writeValueAsString(payload);
-      OutboxEvent event = new OutboxEvent(type, json, exchange, routingKey);
+      String aggregate = aggregateId != null ? aggregateId.toString() : null;
+      OutboxEvent event = payload instanceof DomainEvent domainEvent && domainEvent.eventId() != null
+          ? new OutboxEvent(domainEvent.eventId(), domainEvent.occurredAt(), type, json, exchange, routingKey, aggregate)
+          : new OutboxEvent(type, json, exchange, routingKey, aggregate);
       outboxRepository.save(event);
-      log.debug("OutboxEvent registrado: type={}, exchange={}, routingKey={}, id={}",
-          type, exchange, routingKey, event.getId());
+      log.debug("OutboxEvent registrado: type={}, exchange={}, routingKey={}, aggregateId={}, id={}",
+          type, exchange, routingKey, aggregateId, event.getId());
+      publishAfterCommit(event.getId());
     } catch (JsonProcessingException e) {
       throw new IllegalArgumentException("Error al serializar el payload del evento Outbox: " + e.getMessage(), e);
     }
   }
+
+  private void publishAfterCommit(UUID eventId) {
+    OutboxDirectPublisher publisher = directPublisher.getIfAvailable();
+    if (publisher == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        publisher.dispatch(eventId);
+      }
+    });
+  }
 }
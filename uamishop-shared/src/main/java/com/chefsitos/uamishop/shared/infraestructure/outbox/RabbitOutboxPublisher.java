@@ -1,32 +1,208 @@
 package com.chefsitos.uamishop.shared.infraestructure.outbox;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageBuilderSupport;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Component;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Publicador Outbox sobre RabbitMQ con publisher confirms correlacionados
+ * ({@code publisher-confirm-type: correlated}).
+ *
+ * Cada mensaje viaja con un CorrelationData cuyo id es el id del evento
+ * Outbox; un evento sólo se reporta como publicado cuando el broker lo
+ * confirma (ack) y como fallido ante un nack, un retorno por no enrutable o
+ * la falta de confirmación dentro de {@code outbox.rabbit.confirm-timeout}.
+ *
+ * Cada mensaje lleva como propiedades AMQP el id del evento (message-id), su
+ * tipo (type), el momento en que ocurrió (timestamp y {@link OutboxHeaders})
+ * y el agregado, para que los consumidores deduplicar o enrutar sin
+ * deserializar el payload.
+ *
+ * Los lotes se envían en pipeline sin esperar cada confirmación, con una
+ * ventana acotada de {@code outbox.rabbit.max-in-flight} confirmaciones
+ * pendientes.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnBean(RabbitTemplate.class)
 public class RabbitOutboxPublisher implements OutboxMessagePublisher {
 
   private final RabbitTemplate rabbitTemplate;
+  private final Semaphore inFlight;
+  private final Duration confirmTimeout;
 
-  public void publish(OutboxEvent event) {
-    Message message = MessageBuilder.withBody(event.getPayload().getBytes())
-        .setContentType(MessageProperties.CONTENT_TYPE_JSON)
-        .build();
+  public RabbitOutboxPublisher(RabbitTemplate rabbitTemplate,
+      @Value("${outbox.rabbit.max-in-flight:256}") int maxInFlight,
+      @Value("${outbox.rabbit.confirm-timeout:PT10S}") Duration confirmTimeout) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.confirmTimeout = confirmTimeout;
+  }
 
-    rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), message);
+  public void publish(OutboxEvent event) {
+    CorrelationData correlation = send(rabbitTemplate, event);
+    String error = awaitConfirm(correlation, System.nanoTime() + confirmTimeout.toNanos());
+    if (error != null) {
+      throw new IllegalStateException(error);
+    }
 
-    log.info("RabbitOutbox: mensaje publicado | exchange={}, routingKey={}, eventId={}",
+    log.info("RabbitOutbox: mensaje confirmado | exchange={}, routingKey={}, eventId={}",
         event.getExchange(), event.getRoutingKey(), event.getId());
   }
 
+  /**
+   * Envía todo el lote sobre un mismo canal (rabbitTemplate.invoke) y después
+   * recoge las confirmaciones; el orden de envío se conserva.
+   *
+   * El primer fallo de un agregado corta su secuencia: si falla el envío, sus
+   * eventos posteriores ya no se envían; si falla la confirmación (nack,
+   * retorno o timeout), los posteriores, aunque ya estén en el broker, no se
+   * dan por publicados. En ambos casos se devuelven como diferidos y se
+   * reenviarán detrás del que falló.
+   */
+  @Override
+  public OutboxPublishResult publishBatch(List<OutboxEvent> events) {
+    Map<UUID, CorrelationData> pending = new LinkedHashMap<>();
+    Map<UUID, String> failed = new LinkedHashMap<>();
+    List<UUID> deferred = new ArrayList<>();
+
+    rabbitTemplate.invoke(operations -> {
+      Set<String> blocked = new HashSet<>();
+      for (OutboxEvent event : events) {
+        if (blocked.contains(event.partitionKey())) {
+          deferred.add(event.getId());
+          continue;
+        }
+        try {
+          pending.put(event.getId(), send(operations, event));
+        } catch (Exception e) {
+          failed.put(event.getId(), String.valueOf(e.getMessage()));
+          blocked.add(event.partitionKey());
+        }
+      }
+      return null;
+    });
+
+    List<UUID> published = new ArrayList<>(pending.size());
+    Set<String> blocked = new HashSet<>();
+    long deadline = System.nanoTime() + confirmTimeout.toNanos();
+    for (OutboxEvent event : events) {
+      CorrelationData correlation = pending.get(event.getId());
+      if (correlation == null) {
+        if (failed.containsKey(event.getId())) {
+          blocked.add(event.partitionKey());
+        }
+        continue;
+      }
+      if (blocked.contains(event.partitionKey())) {
+        deferred.add(event.getId());
+        continue;
+      }
+      String error = awaitConfirm(correlation, deadline);
+      if (error == null) {
+        published.add(event.getId());
+      } else {
+        failed.put(event.getId(), error);
+        blocked.add(event.partitionKey());
+      }
+    }
+
+    log.info("RabbitOutbox: lote confirmado | publicados={}, fallidos={}, diferidos={}",
+        published.size(), failed.size(), deferred.size());
+    return new OutboxPublishResult(published, failed, deferred);
+  }
+
+  private CorrelationData send(RabbitOperations operations, OutboxEvent event) {
+    acquireSlot();
+    CorrelationData correlation = new CorrelationData(event.getId().toString());
+    correlation.getFuture().whenComplete((confirm, ex) -> inFlight.release());
+    try {
+      operations.send(event.getExchange(), event.getRoutingKey(), toMessage(event), correlation);
+    } catch (RuntimeException e) {
+      // Sin envío no habrá confirmación que libere el hueco
+      correlation.getFuture().cancel(false);
+      throw e;
+    }
+    return correlation;
+  }
+
+  /**
+   * @return null si el broker confirmó el mensaje; en otro caso, la causa.
+   */
+  private String awaitConfirm(CorrelationData correlation, long deadlineNanos) {
+    try {
+      long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+      CorrelationData.Confirm confirm = correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+      if (!confirm.ack()) {
+        return "nack del broker: " + confirm.reason();
+      }
+      if (correlation.getReturned() != null) {
+        return "mensaje no enrutable: " + correlation.getReturned().getReplyText();
+      }
+      return null;
+    } catch (TimeoutException e) {
+      return "sin confirmación del broker tras " + confirmTimeout;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "interrumpido esperando confirmación";
+    } catch (ExecutionException e) {
+      return String.valueOf(e.getCause().getMessage());
+    }
+  }
+
+  private void acquireSlot() {
+    try {
+      if (!inFlight.tryAcquire(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException("Ventana de confirmaciones pendientes llena");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrumpido esperando hueco en la ventana de confirmaciones", e);
+    }
+  }
+
+  private Message toMessage(OutboxEvent event) {
+    Instant occurredAt = event.getOccurredAt() != null
+        ? event.getOccurredAt()
+        : event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+
+    MessageBuilderSupport<Message> builder = MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+        .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+        .setContentEncoding(StandardCharsets.UTF_8.name())
+        .setMessageId(event.getId().toString())
+        .setType(event.getType())
+        .setTimestamp(Date.from(occurredAt))
+        .setHeader(OutboxHeaders.OCCURRED_AT, occurredAt.toString());
+    if (event.getAggregateId() != null) {
+      builder.setHeader(OutboxHeaders.AGGREGATE_ID, event.getAggregateId());
+    }
+    return builder.build();
+  }
+
 }
@@ -0,0 +1,88 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Inbox: compactación por franjas de tiempo")
+class InboxCompactionJobTest {
+
+  private static final Duration MAX_AGE = Duration.ofDays(7);
+  private static final Duration BUCKET = Duration.ofHours(1);
+  private static final int CHUNK_SIZE = 2;
+
+  private final InboxRepository inboxRepository = mock(InboxRepository.class);
+  private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final InboxCompactionJob job;
+
+  InboxCompactionJobTest() {
+    when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+    job = new InboxCompactionJob(inboxRepository, transactionManager, meterRegistry, MAX_AGE, BUCKET, CHUNK_SIZE, 10);
+  }
+
+  @Test
+  @DisplayName("Avanza desde la franja más antigua y no pasa del corte")
+  void compact_franjasHastaElCorte() {
+    Instant antiguo = Instant.now().minus(Duration.ofDays(10));
+    Instant cercaDelCorte = Instant.now().minus(MAX_AGE).minus(Duration.ofMinutes(10));
+    when(inboxRepository.findOldestProcessedAt()).thenReturn(antiguo, cercaDelCorte, null);
+    when(inboxRepository.findEventIdsProcessedBefore(any(Instant.class), any(Pageable.class)))
+        .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()), List.of(UUID.randomUUID()));
+    when(inboxRepository.deleteByIds(anyList())).thenReturn(2, 1);
+    when(inboxRepository.count()).thenReturn(42L);
+
+    job.compact();
+
+    ArgumentCaptor<Instant> before = ArgumentCaptor.forClass(Instant.class);
+    verify(inboxRepository, times(2)).findEventIdsProcessedBefore(before.capture(), any(Pageable.class));
+    assertEquals(antiguo.plus(BUCKET), before.getAllValues().get(0));
+    // La segunda franja se recorta al corte (ahora - max-age)
+    Instant corte = before.getAllValues().get(1);
+    assertTrue(corte.isBefore(cercaDelCorte.plus(BUCKET)));
+    assertFalse(corte.isAfter(Instant.now().minus(MAX_AGE)));
+    verify(transactionManager, times(2)).commit(any());
+
+    assertEquals(3.0, meterRegistry.get("inbox.compaction.rows").counter().count());
+    assertEquals(42.0, meterRegistry.get("inbox.table.rows").gauge().value());
+  }
+
+  @Test
+  @DisplayName("No borra nada si el registro más antiguo es reciente")
+  void compact_nadaQueBorrar() {
+    when(inboxRepository.findOldestProcessedAt()).thenReturn(Instant.now().minus(Duration.ofDays(1)));
+
+    job.compact();
+
+    verify(inboxRepository, never()).findEventIdsProcessedBefore(any(), any());
+    verify(inboxRepository, never()).deleteByIds(anyList());
+  }
+
+  @Test
+  @DisplayName("Se detiene en max-chunks-per-run aunque quede atraso")
+  void compact_limiteDeBloques() {
+    when(inboxRepository.findOldestProcessedAt()).thenReturn(Instant.now().minus(Duration.ofDays(30)));
+    when(inboxRepository.findEventIdsProcessedBefore(any(Instant.class), any(Pageable.class)))
+        .thenAnswer(inv -> List.of(UUID.randomUUID(), UUID.randomUUID()));
+    when(inboxRepository.deleteByIds(anyList())).thenReturn(CHUNK_SIZE);
+
+    job.compact();
+
+    verify(inboxRepository, times(10)).deleteByIds(anyList());
+  }
+}
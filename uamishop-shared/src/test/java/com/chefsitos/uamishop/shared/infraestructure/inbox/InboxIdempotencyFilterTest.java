@@ -0,0 +1,120 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.domain.Pageable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Inbox: filtro de idempotencia en memoria")
+class InboxIdempotencyFilterTest {
+
+  private final InboxRepository inboxRepository = mock(InboxRepository.class);
+  private final InboxIdempotencyFilter filter = new InboxIdempotencyFilter(inboxRepository,
+      new SimpleMeterRegistry(), 100, 1000, 0.01, Duration.ofHours(24), 1000);
+
+  @Test
+  @DisplayName("Un id ya registrado en la tabla pero ausente del filtro no se procesa ni rompe el lote")
+  void registerAll_idEnTablaFueraDelFiltro() {
+    UUID registrado = UUID.randomUUID();
+    UUID nuevo = UUID.randomUUID();
+    // El Bloom no conoce a ninguno de los dos: el INSERT IGNORE sólo inserta el nuevo
+    when(inboxRepository.insertAllIfAbsent(anyCollection(), any(Instant.class))).thenReturn(1);
+    when(inboxRepository.findEventIdsProcessedAt(anyCollection(), any(Instant.class))).thenReturn(List.of(nuevo));
+
+    Set<UUID> nuevos = filter.registerAll(List.of(registrado, nuevo));
+
+    assertEquals(Set.of(nuevo), nuevos);
+    // El ya registrado queda en memoria: el siguiente lote no vuelve a la BD
+    assertTrue(filter.registerAll(List.of(registrado)).isEmpty());
+    verify(inboxRepository, times(1)).insertAllIfAbsent(anyCollection(), any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Si todos se insertan no consulta cuáles son nuevos")
+  void registerAll_todosNuevos() {
+    UUID primero = UUID.randomUUID();
+    UUID segundo = UUID.randomUUID();
+    when(inboxRepository.insertAllIfAbsent(anyCollection(), any(Instant.class))).thenReturn(2);
+
+    assertEquals(List.of(primero, segundo), List.copyOf(filter.registerAll(List.of(primero, segundo))));
+    verify(inboxRepository, never()).findEventIdsProcessedAt(anyCollection(), any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Si no puede distinguir las filas propias falla para que el lote se reentregue")
+  void registerAll_ambiguoFalla() {
+    when(inboxRepository.insertAllIfAbsent(anyCollection(), any(Instant.class))).thenReturn(1);
+    when(inboxRepository.findEventIdsProcessedAt(anyCollection(), any(Instant.class)))
+        .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+    assertThrows(IllegalStateException.class,
+        () -> filter.registerAll(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())));
+  }
+
+  @Nested
+  @DisplayName("Rotación del Bloom")
+  class Rotacion {
+
+    // Sin LRU, para que cada consulta pase por el Bloom
+    private final InboxIdempotencyFilter sinLru = new InboxIdempotencyFilter(inboxRepository,
+        new SimpleMeterRegistry(), 0, 1000, 0.01, Duration.ofHours(24), 1000);
+
+    @Test
+    @DisplayName("Un id desconocido es nuevo sin consultar la BD")
+    void desconocidoNoConsulta() {
+      assertFalse(sinLru.isDuplicate(UUID.randomUUID()));
+      verify(inboxRepository, never()).existsById(any());
+    }
+
+    @Test
+    @DisplayName("Un id registrado sigue en el Bloom tras una rotación y se olvida tras dos")
+    void sobreviveUnaRotacion() {
+      UUID id = UUID.randomUUID();
+      when(inboxRepository.insertIfAbsent(eq(id), any(Instant.class))).thenReturn(1);
+      when(inboxRepository.existsById(id)).thenReturn(true);
+      assertTrue(sinLru.register(id));
+
+      assertTrue(sinLru.isDuplicate(id));
+      sinLru.rotate();
+      assertTrue(sinLru.isDuplicate(id));
+      verify(inboxRepository, times(2)).existsById(id);
+
+      // La confirmación de la BD lo recuerda en la generación actual: hace
+      // falta que pasen dos rotaciones sin verlo
+      sinLru.rotate();
+      sinLru.rotate();
+      assertFalse(sinLru.isDuplicate(id));
+      verify(inboxRepository, times(2)).existsById(id);
+    }
+
+    @Test
+    @DisplayName("La precarga llena la generación actual")
+    void precarga() {
+      UUID id = UUID.randomUUID();
+      when(inboxRepository.findEventIdsProcessedSince(any(Instant.class), any(Pageable.class)))
+          .thenReturn(List.of(id));
+      when(inboxRepository.existsById(id)).thenReturn(true);
+
+      assertFalse(sinLru.isDuplicate(id));
+      sinLru.warmUp();
+
+      assertTrue(sinLru.isDuplicate(id));
+      verify(inboxRepository).existsById(id);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.chefsitos.uamishop.shared.infraestructure.inbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Inbox: filtro de Bloom de UUIDs")
+class UuidBloomFilterTest {
+
+  private static final int INSERCIONES = 10_000;
+  private static final double TASA = 0.01;
+
+  @Test
+  @DisplayName("Nunca da falsos negativos")
+  void sinFalsosNegativos() {
+    UuidBloomFilter filtro = new UuidBloomFilter(INSERCIONES, TASA);
+    List<UUID> ids = generar(new Random(1), INSERCIONES);
+    ids.forEach(filtro::put);
+
+    ids.forEach(id -> assertTrue(filtro.mightContain(id), "Falso negativo para " + id));
+  }
+
+  @Test
+  @DisplayName("Vacío no contiene nada")
+  void vacio() {
+    UuidBloomFilter filtro = new UuidBloomFilter(INSERCIONES, TASA);
+
+    generar(new Random(2), 1000).forEach(id -> assertFalse(filtro.mightContain(id)));
+  }
+
+  @Test
+  @DisplayName("La tasa de falsos positivos se mantiene cerca de la configurada")
+  void tasaDeFalsosPositivos() {
+    UuidBloomFilter filtro = new UuidBloomFilter(INSERCIONES, TASA);
+    generar(new Random(3), INSERCIONES).forEach(filtro::put);
+
+    int pruebas = 100_000;
+    long falsosPositivos = generar(new Random(4), pruebas).stream().filter(filtro::mightContain).count();
+
+    // Holgura de 2x sobre la tasa teórica para que la prueba no sea frágil
+    assertTrue(falsosPositivos < pruebas * TASA * 2,
+        "Falsos positivos: " + falsosPositivos + " de " + pruebas);
+  }
+
+  @Test
+  @DisplayName("Reparte bien ids secuenciales, no sólo aleatorios")
+  void idsSecuenciales() {
+    UuidBloomFilter filtro = new UuidBloomFilter(INSERCIONES, TASA);
+    for (long i = 0; i < INSERCIONES; i++) {
+      filtro.put(new UUID(0, i));
+    }
+
+    int pruebas = 100_000;
+    int falsosPositivos = 0;
+    for (long i = INSERCIONES; i < INSERCIONES + pruebas; i++) {
+      if (filtro.mightContain(new UUID(0, i))) {
+        falsosPositivos++;
+      }
+    }
+    assertTrue(falsosPositivos < pruebas * TASA * 2,
+        "Falsos positivos: " + falsosPositivos + " de " + pruebas);
+  }
+
+  private static List<UUID> generar(Random random, int cantidad) {
+    List<UUID> ids = new ArrayList<>(cantidad);
+    for (int i = 0; i < cantidad; i++) {
+      ids.add(new UUID(random.nextLong(), random.nextLong()));
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,68 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.chefsitos.uamishop.shared.exception.BadRequestException;
+
+@DisplayName("Outbox: dead-letter y replay")
+class OutboxDeadLetterServiceTest {
+
+  private final OutboxDeadLetterRepository deadLetterRepository = mock(OutboxDeadLetterRepository.class);
+  private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+  private final OutboxDeadLetterService service = new OutboxDeadLetterService(deadLetterRepository,
+      outboxRepository, 2);
+
+  @Test
+  @DisplayName("El replay devuelve el evento al outbox con su id original y sin intentos")
+  @SuppressWarnings("unchecked")
+  void reprocesarConservaId() {
+    OutboxEvent original = new OutboxEvent("OrdenCreada", "{\"a\":1}", "uamishop.events", "orden.creada", "orden-1");
+    OutboxDeadLetter deadLetter = OutboxDeadLetter.from(original);
+    when(deadLetterRepository.findAllById(List.of(original.getId()))).thenReturn(List.of(deadLetter));
+
+    OutboxReplayResponse response = service.reprocesar(new OutboxReplayRequest(List.of(original.getId()),
+        null, null, null));
+
+    ArgumentCaptor<List<OutboxEvent>> guardados = ArgumentCaptor.forClass(List.class);
+    verify(outboxRepository).saveAll(guardados.capture());
+    OutboxEvent replay = guardados.getValue().get(0);
+    assertEquals(1, response.reprocesados());
+    assertEquals(original.getId(), replay.getId());
+    assertEquals("orden-1", replay.getAggregateId());
+    assertEquals("{\"a\":1}", replay.getPayload());
+    assertEquals(0, replay.getAttempts());
+    assertFalse(replay.isProcessed());
+    verify(deadLetterRepository).deleteAllInBatch(List.of(deadLetter));
+  }
+
+  @Test
+  @DisplayName("Rechaza más ids de los permitidos por solicitud")
+  void reprocesarLimite() {
+    OutboxReplayRequest request = new OutboxReplayRequest(
+        List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()), null, null, null);
+
+    assertThrows(BadRequestException.class, () -> service.reprocesar(request));
+    verify(outboxRepository, never()).saveAll(anyList());
+  }
+
+  @Test
+  @DisplayName("Rechaza una solicitud sin ids ni filtros y una ventana invertida")
+  void reprocesarSinFiltro() {
+    LocalDateTime ahora = LocalDateTime.now();
+
+    assertThrows(BadRequestException.class,
+        () -> service.reprocesar(new OutboxReplayRequest(List.of(), null, null, null)));
+    assertThrows(BadRequestException.class,
+        () -> service.reprocesar(new OutboxReplayRequest(null, "OrdenCreada", ahora, ahora.minusHours(1))));
+  }
+}
@@ -0,0 +1,103 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Outbox: vía rápida post-commit")
+class OutboxDirectPublisherTest {
+
+  private static final String OWNER = "relay-a";
+  private static final Duration LEASE = Duration.ofMinutes(1);
+
+  private final OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
+  private final OutboxMessagePublisher publisher = mock(OutboxMessagePublisher.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final OutboxDirectPublisher directPublisher = new OutboxDirectPublisher(processor, publisher,
+      new OutboxRelayInstance(OWNER), meterRegistry, 1, 1, LEASE);
+
+  private final OutboxEvent evento = new OutboxEvent("PruebaEvent", "{}", "pruebas.exchange", "pruebas.key", "orden-1");
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    directPublisher.shutdown();
+  }
+
+  private double eventos(String result) {
+    return meterRegistry.get("outbox.fastpath.events").tag("result", result).counter().count();
+  }
+
+  @Test
+  @DisplayName("Publica el evento reservado y lo marca procesado")
+  void publicaYMarca() {
+    when(processor.claimEvent(evento.getId(), OWNER, LEASE)).thenReturn(Optional.of(evento));
+
+    directPublisher.dispatch(evento.getId());
+
+    verify(processor, timeout(5000)).markBatchAsProcessed(List.of(evento.getId()), OWNER);
+    verify(publisher).publish(evento);
+    verify(processor, never()).markAsFailed(any(), anyString(), anyString());
+  }
+
+  @Test
+  @DisplayName("Si el relay ya lo reservó no publica nada")
+  void sinReservaNoPublica() throws InterruptedException {
+    when(processor.claimEvent(evento.getId(), OWNER, LEASE)).thenReturn(Optional.empty());
+
+    directPublisher.dispatch(evento.getId());
+    directPublisher.shutdown();
+
+    verify(processor).claimEvent(evento.getId(), OWNER, LEASE);
+    verifyNoInteractions(publisher);
+    verify(processor, never()).markBatchAsProcessed(anyList(), anyString());
+    assertEquals(1.0, eventos("deferred"));
+  }
+
+  @Test
+  @DisplayName("Un fallo al publicar cuenta un intento con la reserva de esta instancia")
+  void falloCuentaIntento() {
+    when(processor.claimEvent(evento.getId(), OWNER, LEASE)).thenReturn(Optional.of(evento));
+    doThrow(new IllegalStateException("canal cerrado")).when(publisher).publish(evento);
+
+    directPublisher.dispatch(evento.getId());
+
+    verify(processor, timeout(5000)).markAsFailed(evento.getId(), OWNER, "canal cerrado");
+    verify(processor, never()).markBatchAsProcessed(anyList(), anyString());
+  }
+
+  @Test
+  @DisplayName("Con el pool saturado deja el evento al relay sin lanzar excepción")
+  void saturadaDifiere() throws InterruptedException {
+    CountDownLatch ocupado = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    when(processor.claimEvent(any(), eq(OWNER), eq(LEASE))).thenAnswer(inv -> {
+      ocupado.countDown();
+      liberar.await(5, TimeUnit.SECONDS);
+      return Optional.empty();
+    });
+
+    // Un hilo ocupado y una cola de uno: el tercero se rechaza
+    directPublisher.dispatch(evento.getId());
+    assertTrue(ocupado.await(5, TimeUnit.SECONDS));
+    directPublisher.dispatch(evento.getId());
+    assertDoesNotThrow(() -> directPublisher.dispatch(evento.getId()));
+    assertEquals(1.0, eventos("deferred"));
+
+    liberar.countDown();
+  }
+}
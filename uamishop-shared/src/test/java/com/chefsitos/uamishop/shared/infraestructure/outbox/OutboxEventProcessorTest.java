@@ -0,0 +1,165 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+@DisplayName("Outbox: reserva y marcado de eventos")
+class OutboxEventProcessorTest {
+
+  private static final String OWNER = "relay-a";
+
+  private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+  private final OutboxDeadLetterRepository deadLetterRepository = mock(OutboxDeadLetterRepository.class);
+  private final OutboxEventProcessor processor = new OutboxEventProcessor(outboxRepository, deadLetterRepository,
+      new OutboxRetryPolicy(Duration.ofSeconds(5), Duration.ofMinutes(10)));
+
+  @Nested
+  class ClaimBatch {
+
+    @Test
+    @DisplayName("No reclama un agregado cuyo evento más antiguo lo tiene bloqueado otra instancia")
+    void omiteAgregadoConPredecesorAjeno() {
+      OutboxEvent predecesor = evento("orden-1");
+      OutboxEvent sucesor = evento("orden-1");
+      OutboxEvent otro = evento("orden-2");
+      // SKIP LOCKED saltó al predecesor, que otra instancia está reservando
+      reclamables(List.of(sucesor, otro));
+      when(outboxRepository.findPendingByAggregateIds(anyCollection())).thenReturn(List.of(
+          pendiente(predecesor), pendiente(otro), pendiente(sucesor)));
+
+      List<OutboxEvent> reservados = processor.claimBatch(OWNER, Duration.ofMinutes(1), 10);
+
+      assertEquals(List.of(otro), reservados);
+      verify(outboxRepository).claim(eq(List.of(otro.getId())), eq(OWNER), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Reclama juntos los eventos de un agregado cuando el lote incluye al más antiguo")
+    void reclamaAgregadoCompleto() {
+      OutboxEvent primero = evento("orden-1");
+      OutboxEvent segundo = evento("orden-1");
+      OutboxEvent sinAgregado = evento(null);
+      reclamables(List.of(primero, segundo, sinAgregado));
+      when(outboxRepository.findPendingByAggregateIds(anyCollection()))
+          .thenReturn(List.of(pendiente(primero), pendiente(segundo)));
+
+      List<OutboxEvent> reservados = processor.claimBatch(OWNER, Duration.ofMinutes(1), 10);
+
+      assertEquals(List.of(primero, segundo, sinAgregado), reservados);
+      assertEquals(OWNER, primero.getClaimedBy());
+    }
+
+    @Test
+    @DisplayName("Tras un hueco en el agregado no reclama los eventos posteriores")
+    void cortaEnElPrimerHueco() {
+      OutboxEvent primero = evento("orden-1");
+      OutboxEvent ajeno = evento("orden-1");
+      OutboxEvent tercero = evento("orden-1");
+      reclamables(List.of(primero, tercero));
+      when(outboxRepository.findPendingByAggregateIds(anyCollection()))
+          .thenReturn(List.of(pendiente(primero), pendiente(ajeno), pendiente(tercero)));
+
+      assertEquals(List.of(primero), processor.claimBatch(OWNER, Duration.ofMinutes(1), 10));
+    }
+  }
+
+  @Nested
+  class MarkAsFailed {
+
+    @Test
+    @DisplayName("Con la reserva perdida no toca el evento ni lo mueve a dead-letter")
+    void reservaPerdida() {
+      OutboxEvent event = evento("orden-1");
+      when(outboxRepository.findById(event.getId())).thenReturn(Optional.of(event));
+      when(outboxRepository.markAsFailed(eq(event.getId()), eq(OWNER), anyString(), any(LocalDateTime.class)))
+          .thenReturn(0);
+
+      processor.markAsFailed(event.getId(), OWNER, "nack");
+
+      verifyNoInteractions(deadLetterRepository);
+      verify(outboxRepository, never()).delete(any(OutboxEvent.class));
+    }
+
+    @Test
+    @DisplayName("Con la reserva vigente cuenta el intento sin moverlo si le quedan intentos")
+    void reservaVigente() {
+      OutboxEvent event = evento("orden-1");
+      when(outboxRepository.findById(event.getId())).thenReturn(Optional.of(event));
+      when(outboxRepository.markAsFailed(eq(event.getId()), eq(OWNER), anyString(), any(LocalDateTime.class)))
+          .thenReturn(1);
+
+      processor.markAsFailed(event.getId(), OWNER, "nack");
+
+      verify(outboxRepository).markAsFailed(eq(event.getId()), eq(OWNER), eq("nack"), any(LocalDateTime.class));
+      verifyNoInteractions(deadLetterRepository);
+    }
+  }
+
+  @Nested
+  class DeadLetter {
+
+    @Test
+    @DisplayName("Al agotar sus intentos mueve el evento a dead-letter con el error")
+    void agotaIntentos() {
+      OutboxEvent event = evento("orden-1");
+      for (int i = 1; i < OutboxEvent.MAX_ATTEMPTS; i++) {
+        event.markAsFailed("nack", LocalDateTime.now());
+      }
+      when(outboxRepository.findById(event.getId())).thenReturn(Optional.of(event));
+      when(outboxRepository.markAsFailed(eq(event.getId()), eq(OWNER), anyString(), any(LocalDateTime.class)))
+          .thenAnswer(inv -> {
+            event.markAsFailed(inv.getArgument(2), inv.getArgument(3));
+            return 1;
+          });
+
+      processor.markAsFailed(event.getId(), OWNER, "nack final");
+
+      ArgumentCaptor<OutboxDeadLetter> deadLetter = ArgumentCaptor.forClass(OutboxDeadLetter.class);
+      verify(deadLetterRepository).save(deadLetter.capture());
+      assertEquals(event.getId(), deadLetter.getValue().getId());
+      assertEquals(OutboxEvent.MAX_ATTEMPTS, deadLetter.getValue().getAttempts());
+      assertEquals("nack final", deadLetter.getValue().getLastError());
+      verify(outboxRepository).delete(event);
+    }
+
+    @Test
+    @DisplayName("Mueve por bloques los eventos agotados que quedaron en la tabla")
+    void mueveAgotados() {
+      OutboxEvent agotado = evento(null);
+      when(outboxRepository.findExhaustedEvents(eq(OutboxEvent.MAX_ATTEMPTS), any(Pageable.class)))
+          .thenReturn(List.of(agotado));
+
+      assertEquals(1, processor.moveExhaustedToDeadLetter(50));
+      verify(outboxRepository).delete(agotado);
+    }
+  }
+
+  private void reclamables(List<OutboxEvent> events) {
+    when(outboxRepository.findClaimableEvents(any(LocalDateTime.class), anyInt(), any(Pageable.class)))
+        .thenReturn(events);
+  }
+
+  private static OutboxPendingEvent pendiente(OutboxEvent event) {
+    return new OutboxPendingEvent(event.getId(), event.getAggregateId());
+  }
+
+  private static OutboxEvent evento(String aggregateId) {
+    return new OutboxEvent("OrdenCreada", "{}", "uamishop.events", "orden.creada", aggregateId);
+  }
+}
@@ -0,0 +1,115 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Outbox: retención por bloques")
+class OutboxRetentionJobTest {
+
+  private static final int CHUNK_SIZE = 2;
+  private static final Duration MAX_AGE = Duration.ofDays(7);
+
+  private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+  private final OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
+  private final OutboxEventArchiveRepository archiveRepository = mock(OutboxEventArchiveRepository.class);
+  private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  OutboxRetentionJobTest() {
+    when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+  }
+
+  private OutboxRetentionJob job(String mode, int maxChunksPerRun) {
+    return new OutboxRetentionJob(outboxRepository, processor, archiveRepository, transactionManager,
+        meterRegistry, MAX_AGE, CHUNK_SIZE, maxChunksPerRun, mode);
+  }
+
+  private double retirados(String mode) {
+    return meterRegistry.get("outbox.retention.rows").tag("mode", mode).counter().count();
+  }
+
+  @Test
+  @DisplayName("Borra por bloques, cada uno en su transacción, hasta un bloque incompleto")
+  void delete_hastaBloqueIncompleto() {
+    List<UUID> primero = List.of(UUID.randomUUID(), UUID.randomUUID());
+    List<UUID> segundo = List.of(UUID.randomUUID());
+    when(outboxRepository.findProcessedIdsBefore(any(LocalDateTime.class), any(Pageable.class)))
+        .thenReturn(primero, segundo);
+    when(outboxRepository.deleteByIds(primero)).thenReturn(2);
+    when(outboxRepository.deleteByIds(segundo)).thenReturn(1);
+
+    job("delete", 10).purgeProcessedEvents();
+
+    verify(outboxRepository, times(2)).findProcessedIdsBefore(any(LocalDateTime.class), any(Pageable.class));
+    verify(transactionManager, times(2)).commit(any());
+    verify(processor).moveExhaustedToDeadLetter(CHUNK_SIZE);
+    assertEquals(3.0, retirados("delete"));
+  }
+
+  @Test
+  @DisplayName("Sólo retira eventos procesados antes de max-age")
+  void delete_respetaMaxAge() {
+    when(outboxRepository.findProcessedIdsBefore(any(LocalDateTime.class), any(Pageable.class)))
+        .thenReturn(List.of());
+    LocalDateTime antes = LocalDateTime.now().minus(MAX_AGE);
+
+    job("delete", 10).purgeProcessedEvents();
+
+    ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+    ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+    verify(outboxRepository).findProcessedIdsBefore(before.capture(), page.capture());
+    assertFalse(before.getValue().isBefore(antes));
+    assertFalse(before.getValue().isAfter(LocalDateTime.now().minus(MAX_AGE)));
+    assertEquals(CHUNK_SIZE, page.getValue().getPageSize());
+    verify(outboxRepository, never()).deleteByIds(anyList());
+  }
+
+  @Test
+  @DisplayName("Se detiene en max-chunks-per-run aunque los bloques sigan llenos")
+  void delete_limiteDeBloques() {
+    when(outboxRepository.findProcessedIdsBefore(any(LocalDateTime.class), any(Pageable.class)))
+        .thenAnswer(inv -> List.of(UUID.randomUUID(), UUID.randomUUID()));
+    when(outboxRepository.deleteByIds(anyList())).thenReturn(CHUNK_SIZE);
+
+    job("delete", 3).purgeProcessedEvents();
+
+    verify(outboxRepository, times(3)).deleteByIds(anyList());
+    assertEquals(6.0, retirados("delete"));
+  }
+
+  @Test
+  @DisplayName("En modo archive copia el bloque al archivo antes de borrarlo")
+  void archive_copiaYBorra() {
+    OutboxEvent evento = new OutboxEvent("PruebaEvent", "{}", "pruebas.exchange", "pruebas.key", "orden-1");
+    when(outboxRepository.findProcessedBeforeForArchive(any(LocalDateTime.class), any(Pageable.class)))
+        .thenReturn(List.of(evento));
+    when(outboxRepository.deleteByIds(List.of(evento.getId()))).thenReturn(1);
+
+    job("archive", 10).purgeProcessedEvents();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<OutboxEventArchive>> archivados = ArgumentCaptor.forClass(List.class);
+    var orden = inOrder(archiveRepository, outboxRepository);
+    orden.verify(archiveRepository).saveAll(archivados.capture());
+    orden.verify(outboxRepository).deleteByIds(List.of(evento.getId()));
+    assertEquals(evento.getId(), archivados.getValue().get(0).getId());
+    verify(outboxRepository, never()).findProcessedIdsBefore(any(), any());
+    assertEquals(1.0, retirados("archive"));
+  }
+}
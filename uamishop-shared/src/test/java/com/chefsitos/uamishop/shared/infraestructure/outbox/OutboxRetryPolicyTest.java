@@ -0,0 +1,48 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Outbox: backoff exponencial entre reintentos")
+class OutboxRetryPolicyTest {
+
+  private final OutboxRetryPolicy policy = new OutboxRetryPolicy(Duration.ofSeconds(5), Duration.ofMinutes(10));
+
+  @Test
+  @DisplayName("Duplica la espera en cada intento a partir del backoff inicial")
+  void duplicaPorIntento() {
+    assertEquals(Duration.ofSeconds(5), policy.backoff(1));
+    assertEquals(Duration.ofSeconds(10), policy.backoff(2));
+    assertEquals(Duration.ofSeconds(20), policy.backoff(3));
+    assertEquals(Duration.ofSeconds(40), policy.backoff(4));
+  }
+
+  @Test
+  @DisplayName("Se acota por el backoff máximo, también con muchos intentos")
+  void acotadoPorMaximo() {
+    assertEquals(Duration.ofMinutes(10), policy.backoff(8));
+    assertEquals(Duration.ofMinutes(10), policy.backoff(1000));
+  }
+
+  @Test
+  @DisplayName("Un número de intentos no positivo usa el backoff inicial")
+  void intentosNoPositivos() {
+    assertEquals(Duration.ofSeconds(5), policy.backoff(0));
+  }
+
+  @Test
+  @DisplayName("El siguiente intento queda a un backoff del momento actual")
+  void siguienteIntento() {
+    LocalDateTime antes = LocalDateTime.now();
+    LocalDateTime siguiente = policy.nextAttemptAt(2);
+    LocalDateTime despues = LocalDateTime.now();
+
+    assertFalse(siguiente.isBefore(antes.plusSeconds(10)));
+    assertFalse(siguiente.isAfter(despues.plusSeconds(10)));
+  }
+}
@@ -0,0 +1,109 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Outbox: relay por lotes")
+class OutboxSchedulerTest {
+
+  private static final String OWNER = "relay-a";
+  private static final int BATCH_SIZE = 3;
+
+  private final OutboxEventProcessor processor = mock(OutboxEventProcessor.class);
+  private final OutboxMessagePublisher publisher = mock(OutboxMessagePublisher.class);
+  private final OutboxScheduler scheduler = new OutboxScheduler(processor, publisher, new OutboxRelayInstance(OWNER),
+      new SimpleMeterRegistry(), BATCH_SIZE, true, 10, Duration.ofMinutes(1), 4);
+
+  private final OutboxEvent primero = evento("orden-1");
+  private final OutboxEvent segundo = evento("orden-1");
+  private final OutboxEvent otro = evento("orden-2");
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  @DisplayName("Una partición que lanza excepción cuenta un intento al primero y difiere al resto")
+  void particionFallida() {
+    lote(List.of(primero, segundo, otro));
+    when(publisher.publishBatch(anyList())).thenAnswer(inv -> {
+      List<OutboxEvent> particion = inv.getArgument(0);
+      if (particion.contains(primero)) {
+        throw new IllegalStateException("canal cerrado");
+      }
+      return new OutboxPublishResult(particion.stream().map(OutboxEvent::getId).toList(), Map.of());
+    });
+
+    scheduler.processOutboxEvents();
+
+    verify(processor).markBatchAsProcessed(List.of(otro.getId()), OWNER);
+    verify(processor).markAsFailed(primero.getId(), OWNER, "canal cerrado");
+    verify(processor).releaseClaims(List.of(segundo.getId()), OWNER);
+    verify(processor, never()).markAsFailed(eq(segundo.getId()), anyString(), anyString());
+  }
+
+  @Test
+  @DisplayName("Los eventos diferidos por el publicador se liberan sin contar intento y frenan el drenado")
+  void diferidosSeLiberan() {
+    lote(List.of(primero, segundo, otro));
+    when(publisher.publishBatch(anyList())).thenAnswer(inv -> {
+      List<OutboxEvent> particion = inv.getArgument(0);
+      if (particion.contains(primero)) {
+        return new OutboxPublishResult(List.of(), Map.of(primero.getId(), "nack"), List.of(segundo.getId()));
+      }
+      return new OutboxPublishResult(List.of(otro.getId()), Map.of());
+    });
+
+    scheduler.processOutboxEvents();
+
+    verify(processor).releaseClaims(List.of(segundo.getId()), OWNER);
+    verify(processor).markAsFailed(primero.getId(), OWNER, "nack");
+    // Lote lleno pero con fallos: no se reclama otro en esta ejecución
+    verify(processor, times(1)).claimBatch(anyString(), any(Duration.class), anyInt());
+  }
+
+  @Test
+  @DisplayName("Con lotes llenos y sin fallos sigue drenando hasta vaciar la cola")
+  void drenaLotesLlenos() {
+    List<OutboxEvent> lleno = List.of(evento("a"), evento("b"), evento("c"));
+    when(processor.claimBatch(eq(OWNER), any(Duration.class), eq(BATCH_SIZE)))
+        .thenReturn(lleno)
+        .thenReturn(List.of(primero))
+        .thenReturn(List.of());
+    when(publisher.publishBatch(anyList())).thenAnswer(inv -> new OutboxPublishResult(
+        inv.<List<OutboxEvent>>getArgument(0).stream().map(OutboxEvent::getId).toList(), Map.of()));
+
+    scheduler.processOutboxEvents();
+
+    // El segundo lote no viene lleno: se detiene sin pedir un tercero
+    verify(processor, times(2)).claimBatch(anyString(), any(Duration.class), anyInt());
+    verify(processor).markBatchAsProcessed(List.of(primero.getId()), OWNER);
+    verify(processor, never()).releaseClaims(anyList(), anyString());
+    verify(processor, times(2)).markBatchAsProcessed(argThat(ids -> !ids.isEmpty()), eq(OWNER));
+  }
+
+  private void lote(List<OutboxEvent> events) {
+    when(processor.claimBatch(eq(OWNER), any(Duration.class), eq(BATCH_SIZE))).thenReturn(events);
+  }
+
+  private static OutboxEvent evento(String aggregateId) {
+    return new OutboxEvent("OrdenCreada", "{}", "uamishop.events", "orden.creada", aggregateId);
+  }
+}
@@ -0,0 +1,97 @@
+package com.chefsitos.uamishop.shared.infraestructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+@DisplayName("Outbox: publicación por lotes con orden por agregado")
+class RabbitOutboxPublisherTest {
+
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+  private final RabbitOperations operations = mock(RabbitOperations.class);
+  private final RabbitOutboxPublisher publisher = new RabbitOutboxPublisher(rabbitTemplate, 16,
+      Duration.ofSeconds(1));
+
+  private final OutboxEvent primero = evento("orden-1");
+  private final OutboxEvent segundo = evento("orden-1");
+  private final OutboxEvent tercero = evento("orden-1");
+
+  @BeforeEach
+  void setUp() {
+    when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+        .thenAnswer(inv -> inv.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+  }
+
+  @Test
+  @DisplayName("Un nack del segundo evento difiere al tercero aunque el broker lo confirme")
+  void nackDifiereLosPosteriores() {
+    confirmarSalvo(Set.of(segundo.getId()));
+
+    OutboxPublishResult result = publisher.publishBatch(List.of(primero, segundo, tercero));
+
+    assertEquals(List.of(primero.getId()), result.published());
+    assertEquals(Set.of(segundo.getId()), result.failed().keySet());
+    assertEquals(List.of(tercero.getId()), result.deferred());
+  }
+
+  @Test
+  @DisplayName("Un error al enviar el segundo evento deja sin enviar al tercero")
+  void errorDeEnvioCortaLaParticion() {
+    doAnswer(inv -> {
+      CorrelationData correlation = inv.getArgument(3);
+      if (correlation.getId().equals(segundo.getId().toString())) {
+        throw new AmqpException("canal cerrado");
+      }
+      correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+      return null;
+    }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+    OutboxPublishResult result = publisher.publishBatch(List.of(primero, segundo, tercero));
+
+    assertEquals(List.of(primero.getId()), result.published());
+    assertEquals(Set.of(segundo.getId()), result.failed().keySet());
+    assertEquals(List.of(tercero.getId()), result.deferred());
+    verify(operations, times(2)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+  }
+
+  @Test
+  @DisplayName("El fallo de un agregado no afecta a los eventos de otro")
+  void otrosAgregadosSiguen() {
+    OutboxEvent otro = evento("orden-2");
+    confirmarSalvo(Set.of(primero.getId()));
+
+    OutboxPublishResult result = publisher.publishBatch(List.of(primero, otro, segundo));
+
+    assertEquals(List.of(otro.getId()), result.published());
+    assertEquals(Set.of(primero.getId()), result.failed().keySet());
+    assertEquals(List.of(segundo.getId()), result.deferred());
+  }
+
+  private void confirmarSalvo(Set<UUID> rechazados) {
+    doAnswer(inv -> {
+      CorrelationData correlation = inv.getArgument(3);
+      boolean ack = !rechazados.contains(UUID.fromString(correlation.getId()));
+      correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rechazado"));
+      return null;
+    }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+  }
+
+  private static OutboxEvent evento(String aggregateId) {
+    return new OutboxEvent("OrdenCreada", "{}", "uamishop.events", "orden.creada", aggregateId);
+  }
+}
@@ -2,10 +2,18 @@ package com.chefsitos.uamishop.catalogo.api;
 
 import com.chefsitos.uamishop.catalogo.api.dto.ProductoDTO;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface CatalogoApi {
 
   ProductoDTO buscarPorId(UUID id);
 
+  /**
+   * Productos con los ids indicados, en el orden pedido; los que no existen
+   * no aparecen en la lista.
+   */
+  List<ProductoDTO> buscarPorIds(Collection<UUID> ids);
+
 }
@@ -2,42 +2,105 @@ package com.chefsitos.uamishop.catalogo.api;
 
 import com.chefsitos.uamishop.catalogo.api.dto.ProductoDTO;
 import com.chefsitos.uamishop.shared.exception.ServiceUnavailableException;
+import com.chefsitos.uamishop.shared.infraestructure.http.CacheCondicional;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
 public class CatalogoApiHttpClient implements CatalogoApi {
 
+  /** Máximo de ids que acepta POST /api/v1/productos/lote por llamada. */
+  private static final int TAMANO_LOTE = 100;
+
   private final RestTemplate restTemplate;
   private final String catalogoBaseUrl;
+  private final CacheCondicional<UUID, ProductoDTO> productos;
 
   public CatalogoApiHttpClient(RestTemplate restTemplate,
-      @Value("${catalogo.service.url}") String catalogoBaseUrl) {
+      @Value("${catalogo.service.url}") String catalogoBaseUrl,
+      @Value("${catalogo.service.cache-size:1000}") int tamanoCache) {
     this.restTemplate = restTemplate;
     this.catalogoBaseUrl = catalogoBaseUrl;
+    this.productos = new CacheCondicional<>(tamanoCache);
   }
 
+  /**
+   * GET condicional: si ya hay una copia del producto se envía su ETag en
+   * If-None-Match y un 304 la reutiliza sin transferir el cuerpo.
+   *
+   * El catálogo compara cada petición condicional con la versión en su BD, así
+   * que un 304 nunca confirma una copia atrasada. Sin copia, el 200 puede
+   * salir de la caché {@code productos-json} de la réplica que responde y
+   * llevar como mucho su TTL (expireAfterWrite, 5 minutos) de retraso frente a
+   * una escritura hecha en otra réplica; la siguiente llamada lo corrige.
+   */
   @CircuitBreaker(name = "catalogoService", fallbackMethod = "fallbackMethodBuscarPorId")
   public ProductoDTO buscarPorId(UUID id) {
     String url = catalogoBaseUrl + "/api/v1/productos/" + id;
-    ResponseEntity<ProductoDTO> response = restTemplate.getForEntity(url, ProductoDTO.class);
+    CacheCondicional.Entrada<ProductoDTO> copia = productos.obtener(id);
+    HttpHeaders headers = new HttpHeaders();
+    if (copia != null) {
+      headers.setIfNoneMatch(copia.etag());
+    }
+    ResponseEntity<ProductoDTO> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+        ProductoDTO.class);
 
+    if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && copia != null) {
+      return copia.valor();
+    }
     if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+      productos.eliminar(id);
       throw new RuntimeException("Producto no encontrado en el servicio de catálogo: " + id);
     }
 
+    productos.guardar(id, response.getHeaders().getETag(), response.getBody());
     return response.getBody();
   }
 
+  /**
+   * Una llamada a POST /api/v1/productos/lote por cada TAMANO_LOTE ids.
+   */
+  @CircuitBreaker(name = "catalogoService", fallbackMethod = "fallbackMethodBuscarPorIds")
+  public List<ProductoDTO> buscarPorIds(Collection<UUID> ids) {
+    String url = catalogoBaseUrl + "/api/v1/productos/lote";
+    List<UUID> pendientes = List.copyOf(ids);
+    List<ProductoDTO> productos = new ArrayList<>(pendientes.size());
+
+    for (int desde = 0; desde < pendientes.size(); desde += TAMANO_LOTE) {
+      List<UUID> lote = pendientes.subList(desde, Math.min(desde + TAMANO_LOTE, pendientes.size()));
+      ResponseEntity<ProductoDTO[]> response = restTemplate.postForEntity(url, Map.of("ids", lote),
+          ProductoDTO[].class);
+
+      if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+        throw new RuntimeException("Respuesta inválida del servicio de catálogo al buscar productos por lote");
+      }
+      productos.addAll(List.of(response.getBody()));
+    }
+
+    return productos;
+  }
+
   public ProductoDTO fallbackMethodBuscarPorId(UUID id, Exception ex) {
     throw new ServiceUnavailableException(
         "catalogo", "Servicio de catalogo no disponible temporalmente.", ex);
   }
 
+  public List<ProductoDTO> fallbackMethodBuscarPorIds(Collection<UUID> ids, Exception ex) {
+    throw new ServiceUnavailableException(
+        "catalogo", "Servicio de catalogo no disponible temporalmente.", ex);
+  }
 }
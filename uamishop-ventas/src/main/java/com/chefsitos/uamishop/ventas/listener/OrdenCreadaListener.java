@@ -12,8 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.chefsitos.uamishop.shared.event.OrdenCreadaEvent;
 import com.chefsitos.uamishop.ventas.config.RabbitConfig;
 import com.chefsitos.uamishop.ventas.service.CarritoService;
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxEvent;
-import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxRepository;
+import com.chefsitos.uamishop.shared.infraestructure.inbox.InboxIdempotencyFilter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +22,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class OrdenCreadaListener {
   private final CarritoService carritoService;
-  private final InboxRepository inboxRepository;
+  private final InboxIdempotencyFilter inboxFilter;
 
   @RabbitListener(queues = RabbitConfig.QUEUE_CARRITO_ORDEN_CREADA)
   @EventListener
@@ -34,7 +33,8 @@ public class OrdenCreadaListener {
   // falla aquí no debe afectar ni bloquear la transacción
   // principal
   public void onOrdenCreada(OrdenCreadaEvent event) {
-    if (event.eventId() != null && inboxRepository.existsById(event.eventId())) {
+    // Registra el evento en el Inbox (un único INSERT); si ya existía es duplicado
+    if (event.eventId() != null && !inboxFilter.register(event.eventId())) {
       log.warn(AZUL + "Evento duplicado omitido (Idempotente): {}" + RESET, event.eventId());
       return;
     }
@@ -43,10 +43,6 @@ public class OrdenCreadaListener {
         + " | ordenId={}, carritoId={}, clienteId={}",
         event.ordenId(), event.carritoId(), event.clienteId());
     carritoService.completarCheckout(event.carritoId());
-
-    if (event.eventId() != null) {
-      inboxRepository.save(InboxEvent.from(event.eventId()));
-    }
   }
 
 }
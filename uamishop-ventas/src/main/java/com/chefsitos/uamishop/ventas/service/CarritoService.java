@@ -114,7 +114,8 @@ public class CarritoService {
         "ProductoAgregadoAlCarrito",
         evento,
         RabbitExchangeConfig.EVENTS_EXCHANGE,
-        RabbitConfig.RK_PRODUCTO_AGREGADO);
+        RabbitConfig.RK_PRODUCTO_AGREGADO,
+        carritoGuardado.getCarritoId().valor());
 
     log.info(ROSA + "Evento: ProductoAgregadoAlCarrito emitido por Outbox" + RESET
         + " | productoId={}, carritoId={}, cantidad={}",